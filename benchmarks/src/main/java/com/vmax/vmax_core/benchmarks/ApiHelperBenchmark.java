@@ -0,0 +1,63 @@
+package com.vmax.vmax_core.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vmax.vmax_core.api_elements.ApiInstance;
+import com.vmax.vmax_core.graph.UriNode;
+
+/**
+ * <p>
+ * Benchmarks the resolution of instances by the {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper</code>}.
+ * </p>
+ * <p>
+ * <code>getNodeByUri</code> is measured with a warm instance cache and, by invalidating the URI before each lookup,
+ * without the cache.
+ * <code>getImplementingInstances</code> is measured for the top class with the most subclasses.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ApiHelperBenchmark {
+
+    /** Index of the next instance URI to resolve */
+    private int uriIndex = 0;
+
+    @Benchmark
+    public UriNode getNodeByUriCached(SyntheticModelState state) {
+        return state.apiHelper.getNodeByUri(this.nextUri(state));
+    }
+
+    @Benchmark
+    public UriNode getNodeByUriUncached(SyntheticModelState state) {
+        String uri = this.nextUri(state);
+        state.apiHelper.invalidateInstance(uri);
+        return state.apiHelper.getNodeByUri(uri);
+    }
+
+    @Benchmark
+    public List<ApiInstance> getImplementingInstances(SyntheticModelState state) {
+        return state.getLargestTopClass().getImplementingInstances();
+    }
+
+    private String nextUri(SyntheticModelState state) {
+        List<String> instanceUris = state.instanceUris;
+        if ( this.uriIndex >= instanceUris.size() ) { this.uriIndex = 0; }
+        return instanceUris.get(this.uriIndex++);
+    }
+
+}
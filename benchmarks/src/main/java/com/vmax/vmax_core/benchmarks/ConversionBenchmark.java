@@ -0,0 +1,84 @@
+package com.vmax.vmax_core.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.graph.UnboundNode;
+import com.vmax.vmax_core.server.JenaInterface;
+import com.vmax.vmax_core.server.JsonInterface;
+
+/**
+ * <p>
+ * Benchmarks the conversion of triples and triple patterns between VMAX, JSON and Jena.
+ * </p>
+ * <p>
+ * The converted triples are all triples of the predicate of the sample triple
+ * of the {@link com.vmax.vmax_core.benchmarks.SyntheticModelState <code>SyntheticModelState</code>}.
+ * Each benchmark converts all of these triples, the conversions from JSON and Jena include resolving the URIs of the instances.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    private List<Triple> triples;
+    private List<JSONObject> triplesAsJson;
+    private List<org.apache.jena.graph.Triple> triplesAsJena;
+    private JsonInterface jsonInterface;
+    private JenaInterface jenaInterface;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticModelState state) {
+        this.triples = state.tripleFinder.find(new TriplePattern(new UnboundNode(), state.predicate, new UnboundNode()));
+        this.triplesAsJson = new ArrayList<JSONObject>();
+        this.triplesAsJena = new ArrayList<org.apache.jena.graph.Triple>();
+        for (Triple triple: this.triples) {
+            this.triplesAsJson.add(triple.toJson());
+            this.triplesAsJena.add(triple.toJenaTriple());
+        }
+        this.jsonInterface = new JsonInterface(state.apiHelper);
+        this.jenaInterface = new JenaInterface(state.apiHelper);
+    }
+
+    @Benchmark
+    public void toJson(Blackhole blackhole) {
+        for (Triple triple: this.triples) { blackhole.consume(triple.toJson()); }
+    }
+
+    @Benchmark
+    public void toJena(Blackhole blackhole) {
+        for (Triple triple: this.triples) { blackhole.consume(triple.toJenaTriple()); }
+    }
+
+    @Benchmark
+    public void fromJson(Blackhole blackhole) {
+        for (JSONObject tripleAsJson: this.triplesAsJson) { blackhole.consume(this.jsonInterface.createTriplePatternFromJsonData(tripleAsJson)); }
+    }
+
+    @Benchmark
+    public void fromJena(Blackhole blackhole) {
+        for (org.apache.jena.graph.Triple tripleAsJena: this.triplesAsJena) { blackhole.consume(this.jenaInterface.createTriplePatternFromJenaTriple(tripleAsJena)); }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.vmax.vmax_core.benchmarks;
+
+import com.vmax.vmax_core.api_helper.ApiHelper;
+
+/**
+ * Class for the API helper of a {@link com.vmax.vmax_core.benchmarks.SyntheticModel <code>SyntheticModel</code>}.
+ */
+public class SyntheticApiHelper extends ApiHelper {
+
+    private final SyntheticModel model;
+
+    public SyntheticApiHelper(SyntheticModel model) {
+        super(SyntheticModel.INSTANCE_URI_PREFIX, new SyntheticClassAndAttributeList(model));
+        this.model = model;
+    }
+
+    @Override
+    protected Object findApiInstanceAsObjectByUri(String uri) {
+        return this.model.getInstanceByUri(uri);
+    }
+
+    public SyntheticModel getModel() {
+        return this.model;
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.vmax.vmax_core.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.api_elements.ApiClass;
+import com.vmax.vmax_core.api_elements.ApiInstance;
+import com.vmax.vmax_core.api_elements.ApiType;
+import com.vmax.vmax_core.api_helper.ApiClassAndAttributeList;
+import com.vmax.vmax_core.api_helper.ApiDataTypeList;
+
+/**
+ * <p>
+ * Class for the classes and attributes of a {@link com.vmax.vmax_core.benchmarks.SyntheticModel <code>SyntheticModel</code>}.
+ * </p>
+ * <p>
+ * All instances share the Java class {@link com.vmax.vmax_core.benchmarks.SyntheticObject <code>SyntheticObject</code>},
+ * so each {@link SyntheticApiClass <code>SyntheticApiClass</code>} converts objects to instances of their actual class,
+ * i.e. the class stored in the object.
+ * </p>
+ */
+public class SyntheticClassAndAttributeList extends ApiClassAndAttributeList {
+
+    public SyntheticClassAndAttributeList(SyntheticModel model) {
+        super(SyntheticModel.CLASS_URI_PREFIX, SyntheticModel.ATTRIBUTE_URI_PREFIX, SyntheticModel.INSTANCE_URI_PREFIX);
+        // create classes, superclasses always have a lower index than their subclasses
+        List<ApiClass> classes = new ArrayList<ApiClass>(model.getClassCount());
+        for (int i = 0; i < model.getClassCount(); i++) {
+            int superclassIndex = model.getSuperclassIndex(i);
+            List<ApiClass> directSuperclasses = ( superclassIndex < 0 )
+                ? Collections.emptyList() : Collections.singletonList(classes.get(superclassIndex));
+            classes.add(new SyntheticApiClass(model, i, directSuperclasses, classes));
+        }
+        this.classList = classes;
+        // create attributes
+        this.attributeList = new ArrayList<ApiAttribute>(model.getAttributeCount());
+        for (int j = 0; j < model.getAttributeCount(); j++) {
+            ApiClass sourceClass = classes.get(model.getSourceClassIndex(j));
+            ApiType targetType;
+            if ( model.isReferenceAttribute(j) ) { targetType = classes.get(model.getTargetClassIndex(j)); }
+            else if ( model.isIntegerAttribute(j) ) { targetType = ApiDataTypeList.DATA_TYPE_INTEGER; }
+            else { targetType = ApiDataTypeList.DATA_TYPE_STRING; }
+            this.attributeList.add(new SyntheticApiAttribute(model, j, sourceClass, targetType));
+        }
+    }
+
+    /**
+     * Class of the synthetic model, identified by its index.
+     */
+    private static class SyntheticApiClass extends ApiClass {
+
+        private final SyntheticModel model;
+        private final int classIndex;
+        /** All classes of the model, to convert objects to instances of their actual class */
+        private final List<ApiClass> allClasses;
+
+        private SyntheticApiClass(SyntheticModel model, int classIndex, List<ApiClass> directSuperclasses, List<ApiClass> allClasses) {
+            super(SyntheticObject.class, directSuperclasses, SyntheticModel.CLASS_URI_PREFIX + "C" + classIndex, SyntheticModel.INSTANCE_URI_PREFIX);
+            this.model = model;
+            this.classIndex = classIndex;
+            this.allClasses = allClasses;
+        }
+
+        @Override
+        public ApiInstance convertObjectToApiEntity(Object checkedResult) {
+            SyntheticObject syntheticObject = (SyntheticObject) checkedResult;
+            return new ApiInstance(syntheticObject.getUri(), this.allClasses.get(syntheticObject.getClassIndex()), syntheticObject);
+        }
+
+        @Override
+        protected String determineInstanceUri(Object instanceAsObject) {
+            return ((SyntheticObject) instanceAsObject).getUri();
+        }
+
+        @Override
+        protected List<Object> getImplementingInstancesAsObjects() {
+            return this.model.getInstances(this.classIndex);
+        }
+
+        @Override
+        protected boolean indirectInstancesIncluded() {
+            return false;
+        }
+
+    }
+
+    /**
+     * Attribute of the synthetic model, identified by its index.
+     */
+    private static class SyntheticApiAttribute extends ApiAttribute {
+
+        private final SyntheticModel model;
+        private final int attributeIndex;
+
+        private SyntheticApiAttribute(SyntheticModel model, int attributeIndex, ApiClass sourceClass, ApiType targetType) {
+            super(sourceClass, targetType, SyntheticModel.ATTRIBUTE_URI_PREFIX + "A" + attributeIndex);
+            this.model = model;
+            this.attributeIndex = attributeIndex;
+        }
+
+        @Override
+        public List<? extends Object> getTargetEntitiesForSourceInstanceSpec(Object sourceInstanceObject) {
+            return this.model.getAttributeValues(this.attributeIndex, (SyntheticObject) sourceInstanceObject);
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.vmax.vmax_core.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Class for a synthetic model of a tool, consisting of plain Java objects.
+ * </p>
+ * <p>
+ * The classes of the model form a forest: class <code>i</code> is a subclass of class <code>(i - 1) / fanOut</code>,
+ * unless this would exceed the hierarchy depth, in which case the class becomes another top class.
+ * Each class has the same number of direct instances ({@link com.vmax.vmax_core.benchmarks.SyntheticObject <code>SyntheticObjects</code>}).
+ * </p>
+ * <p>
+ * Attribute <code>j</code> has class <code>j % classCount</code> as source class.
+ * Every third attribute references instances of another class, the others return an integer or a string value.
+ * All values are computed deterministically from the index of the source instance, so the model needs no memory per attribute.
+ * </p>
+ */
+public class SyntheticModel {
+
+    public static final String CLASS_URI_PREFIX = "http://vmax.benchmark/class/";
+    public static final String ATTRIBUTE_URI_PREFIX = "http://vmax.benchmark/attribute/";
+    public static final String INSTANCE_URI_PREFIX = "http://vmax.benchmark/instance/";
+    /** Number of instances referenced by each instance for each reference attribute */
+    public static final int REFERENCES_PER_INSTANCE = 2;
+
+    private final int classCount;
+    private final int attributeCount;
+    /** Index of the direct superclass of each class, <code>-1</code> for top classes */
+    private final int[] superclassIndexes;
+    /** Direct instances of each class */
+    private final List<List<Object>> instancesByClass;
+    private final Map<String, SyntheticObject> instancesByUri;
+
+    /**
+     * Creates a synthetic model.
+     * @param classCount - The number of classes
+     * @param hierarchyDepth - The maximum number of classes from a top class to a leaf class, including both
+     * @param fanOut - The maximum number of direct subclasses of a class
+     * @param attributeCount - The number of attributes
+     * @param instancesPerClass - The number of direct instances of each class
+     */
+    public SyntheticModel(int classCount, int hierarchyDepth, int fanOut, int attributeCount, int instancesPerClass) {
+        if ( classCount < 1 ) { throw new IllegalArgumentException("class count must be at least 1"); }
+        if ( hierarchyDepth < 1 ) { throw new IllegalArgumentException("hierarchy depth must be at least 1"); }
+        if ( fanOut < 1 ) { throw new IllegalArgumentException("fan out must be at least 1"); }
+        if ( attributeCount < 0 ) { throw new IllegalArgumentException("attribute count can't be negative"); }
+        if ( instancesPerClass < 0 ) { throw new IllegalArgumentException("instances per class can't be negative"); }
+        this.classCount = classCount;
+        this.attributeCount = attributeCount;
+        // build class hierarchy
+        this.superclassIndexes = new int[classCount];
+        int[] depths = new int[classCount];
+        for (int i = 0; i < classCount; i++) {
+            int superclassIndex = ( i == 0 ) ? -1 : (i - 1) / fanOut;
+            if ( superclassIndex >= 0 && depths[superclassIndex] + 1 >= hierarchyDepth ) { superclassIndex = -1; }
+            this.superclassIndexes[i] = superclassIndex;
+            depths[i] = ( superclassIndex < 0 ) ? 0 : depths[superclassIndex] + 1;
+        }
+        // create instances
+        this.instancesByClass = new ArrayList<List<Object>>(classCount);
+        this.instancesByUri = new HashMap<String, SyntheticObject>();
+        for (int i = 0; i < classCount; i++) {
+            List<Object> instances = new ArrayList<Object>(instancesPerClass);
+            for (int j = 0; j < instancesPerClass; j++) {
+                SyntheticObject instance = new SyntheticObject(i, j, INSTANCE_URI_PREFIX + "C" + i + "/" + j);
+                instances.add(instance);
+                this.instancesByUri.put(instance.getUri(), instance);
+            }
+            this.instancesByClass.add(Collections.unmodifiableList(instances));
+        }
+    }
+
+    public int getClassCount() {
+        return this.classCount;
+    }
+
+    public int getAttributeCount() {
+        return this.attributeCount;
+    }
+
+    /**
+     * Returns the index of the direct superclass of a class, <code>-1</code> for top classes.
+     */
+    public int getSuperclassIndex(int classIndex) {
+        return this.superclassIndexes[classIndex];
+    }
+
+    /**
+     * Returns the direct instances of a class.
+     */
+    public List<Object> getInstances(int classIndex) {
+        return this.instancesByClass.get(classIndex);
+    }
+
+    /**
+     * Returns the URIs of all instances of the model.
+     */
+    public List<String> getInstanceUris() {
+        return new ArrayList<String>(this.instancesByUri.keySet());
+    }
+
+    /**
+     * Returns the instance with the given URI, <code>null</code> if there is no such instance.
+     */
+    public SyntheticObject getInstanceByUri(String uri) {
+        return this.instancesByUri.get(uri);
+    }
+
+    /**
+     * Returns the index of the source class of an attribute.
+     */
+    public int getSourceClassIndex(int attributeIndex) {
+        return attributeIndex % this.classCount;
+    }
+
+    /**
+     * Returns <code>true</code> if the attribute references instances, <code>false</code> if it returns values.
+     */
+    public boolean isReferenceAttribute(int attributeIndex) {
+        return attributeIndex % 3 == 0;
+    }
+
+    /**
+     * Returns <code>true</code> if the attribute returns integer values, <code>false</code> if it returns string values.
+     * Only valid for attributes that do not reference instances.
+     */
+    public boolean isIntegerAttribute(int attributeIndex) {
+        return attributeIndex % 3 == 1;
+    }
+
+    /**
+     * Returns the index of the class referenced by a reference attribute.
+     */
+    public int getTargetClassIndex(int attributeIndex) {
+        return (this.getSourceClassIndex(attributeIndex) + attributeIndex / this.classCount + 1) % this.classCount;
+    }
+
+    /**
+     * Returns the values of an attribute for a source instance, i.e. referenced instances or a single integer or string.
+     * This is the "API call" of the synthetic tool.
+     */
+    public List<? extends Object> getAttributeValues(int attributeIndex, SyntheticObject source) {
+        if ( !this.isReferenceAttribute(attributeIndex) ) {
+            if ( this.isIntegerAttribute(attributeIndex) ) { return Collections.singletonList(source.getIndex() * (attributeIndex + 1)); }
+            return Collections.singletonList("value-" + source.getIndex());
+        }
+        List<Object> targetInstances = this.instancesByClass.get(this.getTargetClassIndex(attributeIndex));
+        if ( targetInstances.isEmpty() ) { return Collections.emptyList(); }
+        List<Object> values = new ArrayList<Object>(REFERENCES_PER_INSTANCE);
+        for (int k = 0; k < REFERENCES_PER_INSTANCE; k++) {
+            values.add(targetInstances.get((source.getIndex() * 31 + k * 7 + attributeIndex) % targetInstances.size()));
+        }
+        return values;
+    }
+
+}
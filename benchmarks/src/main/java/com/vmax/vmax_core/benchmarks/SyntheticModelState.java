@@ -0,0 +1,97 @@
+package com.vmax.vmax_core.benchmarks;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.api_elements.ApiClass;
+import com.vmax.vmax_core.api_elements.ApiInstance;
+import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.triple_finder.TripleFinder;
+
+/**
+ * <p>
+ * Benchmark state holding a {@link com.vmax.vmax_core.benchmarks.SyntheticModel <code>SyntheticModel</code>},
+ * its {@link com.vmax.vmax_core.benchmarks.SyntheticApiHelper <code>SyntheticApiHelper</code>} and a triple finder.
+ * </p>
+ * <p>
+ * The size of the model is configured by the parameters, e.g. <code>-p classCount=200 -p instancesPerClass=1000</code>.
+ * Additionally, a sample triple <code>&lt;subject predicate object&gt;</code> of a reference attribute is selected,
+ * from which triple patterns of all shapes are created.
+ * </p>
+ * <p>
+ * The data types of the API are shared by all API helpers and can only be initialized once per JVM,
+ * so each combination of parameters has to run in its own fork (the default of JMH).
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class SyntheticModelState {
+
+    @Param({"50"})
+    public int classCount;
+
+    @Param({"3"})
+    public int hierarchyDepth;
+
+    @Param({"4"})
+    public int fanOut;
+
+    @Param({"150"})
+    public int attributeCount;
+
+    @Param({"100"})
+    public int instancesPerClass;
+
+    public SyntheticModel model;
+    public SyntheticApiHelper apiHelper;
+    public TripleFinder tripleFinder;
+    /** The URIs of all instances */
+    public List<String> instanceUris;
+    // nodes of the sample triple
+    public ApiInstance subject;
+    public ApiAttribute predicate;
+    public BoundNode object;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.model = new SyntheticModel(this.classCount, this.hierarchyDepth, this.fanOut, this.attributeCount, this.instancesPerClass);
+        this.apiHelper = new SyntheticApiHelper(this.model);
+        this.tripleFinder = new TripleFinder(this.apiHelper);
+        this.instanceUris = this.model.getInstanceUris();
+        // select the first triple of a reference attribute as sample triple
+        for (ApiAttribute apiAttribute: this.apiHelper.getAttributeList()) {
+            if ( !(apiAttribute.getTargetType() instanceof ApiClass) ) { continue; }
+            List<ApiInstance> sourceInstances = apiAttribute.getSourceClass().getImplementingInstances();
+            if ( sourceInstances == null ) { continue; }
+            for (ApiInstance sourceInstance: sourceInstances) {
+                List<? extends BoundNode> targetEntities = apiAttribute.getTargetEntitiesForSourceInstance(sourceInstance);
+                if ( targetEntities == null || targetEntities.isEmpty() ) { continue; }
+                this.subject = sourceInstance;
+                this.predicate = apiAttribute;
+                this.object = targetEntities.get(0);
+                return;
+            }
+        }
+        throw new IllegalStateException("the synthetic model contains no instances referencing other instances");
+    }
+
+    /**
+     * Returns the top class with the most instances, i.e. the class with the most indirect subclasses.
+     */
+    public ApiClass getLargestTopClass() {
+        ApiClass largestTopClass = null;
+        for (ApiClass apiClass: this.apiHelper.getClassList()) {
+            if ( !apiClass.getDirectSuperclasses().isEmpty() ) { continue; }
+            if ( largestTopClass == null || apiClass.getIndirectSubclasses().size() > largestTopClass.getIndirectSubclasses().size() ) {
+                largestTopClass = apiClass;
+            }
+        }
+        return largestTopClass;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.vmax.vmax_core.benchmarks;
+
+/**
+ * <p>
+ * Class for the plain Java objects of a {@link com.vmax.vmax_core.benchmarks.SyntheticModel <code>SyntheticModel</code>},
+ * i.e. the instances of the synthetic tool.
+ * </p>
+ * <p>
+ * All objects share this Java class, the class of the synthetic model is stored as an index.
+ * </p>
+ */
+public final class SyntheticObject {
+
+    /** Index of the class of the object in the synthetic model */
+    private final int classIndex;
+    /** Index of the object among all objects of its class */
+    private final int index;
+    private final String uri;
+
+    public SyntheticObject(int classIndex, int index, String uri) {
+        this.classIndex = classIndex;
+        this.index = index;
+        this.uri = uri;
+    }
+
+    public int getClassIndex() {
+        return this.classIndex;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public String getUri() {
+        return this.uri;
+    }
+
+    @Override
+    public String toString() {
+        return this.uri;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.vmax.vmax_core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.vmax.vmax_core.graph.Node;
+import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.graph.UnboundNode;
+import com.vmax.vmax_core.metrics.TriplePatternShape;
+import com.vmax.vmax_core.triple_finder.TripleIterator;
+
+/**
+ * <p>
+ * Benchmarks the evaluation of triple patterns by the {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>},
+ * once for each {@link com.vmax.vmax_core.metrics.TriplePatternShape <code>TriplePatternShape</code>}.
+ * </p>
+ * <p>
+ * The bound nodes of the triple patterns are taken from the sample triple of the
+ * {@link com.vmax.vmax_core.benchmarks.SyntheticModelState <code>SyntheticModelState</code>},
+ * so each triple pattern matches at least one triple.
+ * All matching triples are consumed.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TriplePatternBenchmark {
+
+    @Param
+    public TriplePatternShape shape;
+
+    private TriplePattern triplePattern;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticModelState state) {
+        // bind the nodes of the sample triple according to the shape
+        String boundNodes = this.shape.name();
+        Node subject = boundNodes.contains("SUBJECT") ? state.subject : new UnboundNode();
+        Node predicate = boundNodes.contains("PREDICATE") ? state.predicate : new UnboundNode();
+        Node object = boundNodes.contains("OBJECT") ? state.object : new UnboundNode();
+        this.triplePattern = new TriplePattern(subject, predicate, object);
+    }
+
+    @Benchmark
+    public long findTriples(SyntheticModelState state, Blackhole blackhole) {
+        TripleIterator tripleIterator = state.tripleFinder.findLazily(this.triplePattern);
+        long tripleCount = 0;
+        while ( tripleIterator.hasNext() ) {
+            blackhole.consume(tripleIterator.next());
+            tripleCount++;
+        }
+        return tripleCount;
+    }
+
+}
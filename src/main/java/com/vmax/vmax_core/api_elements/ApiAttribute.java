@@ -1,11 +1,23 @@
 package com.vmax.vmax_core.api_elements;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.vmax.vmax_core.graph.BoundNode;
 import com.vmax.vmax_core.graph.NodeType;
+import com.vmax.vmax_core.metrics.OperationMetrics;
 
 /**
  * <p>
@@ -20,8 +32,23 @@ import com.vmax.vmax_core.graph.NodeType;
  * This can be an {@link com.vmax.vmax_core.api_elements.ApiClass <code>ApiClass</code>} 
  * or an {@link com.vmax.vmax_core.api_elements.ApiDataType <code>ApiDataType</code>}.
  * </p>
+ * <p>
+ * Optionally, an attribute can maintain a reverse index from target entities to source instances
+ * (see {@link #setReverseIndexEnabled(boolean) <code>setReverseIndexEnabled(boolean)</code>}),
+ * so that source instances for a given target entity can be found without calling the API for every source instance.
+ * The reverse index is built on the first lookup and has to be invalidated when the model of the tool changes.
+ * </p>
+ * <p>
+ * Scans over many source instances request the target entities in batches
+ * (see {@link #getTargetEntitiesForSourceInstances(List) <code>getTargetEntitiesForSourceInstances(List)</code>}).
+ * API specific subclasses can override {@link #getTargetEntitiesForSourceInstancesSpec(List) <code>getTargetEntitiesForSourceInstancesSpec(List)</code>}
+ * to answer a whole batch with a single call to the tool.
+ * </p>
  */
 public abstract class ApiAttribute implements ApiUriElement {
+
+    /** Maximum number of source instances, whose target entities are requested from the API in a single call */
+    public static final int SOURCE_BATCH_SIZE = 128;
     
     /** The URI of the attribute */
     private final String uri;
@@ -33,8 +60,20 @@ public abstract class ApiAttribute implements ApiUriElement {
     private List<ApiClass> indirectSourceClasses;
     /** List of indirect target types of the attribute */
     private List<ApiType> indirectTargetTypes;
+    /** Ordinals of the indirect source classes of the attribute */
+    private BitSet indirectSourceClassOrdinals;
+    /** Ordinals of the indirect target types of the attribute */
+    private BitSet indirectTargetTypeOrdinals;
     /** Boolean to determine if indirect source and target types have been determined */
     private boolean indirectSourceAndTargetTypesDetermined = false;
+    /** Boolean to determine if the reverse index is used to find source instances for a target entity */
+    private volatile boolean reverseIndexEnabled = false;
+    /** Reverse index from target entities to source instances, <code>null</code> if not built yet */
+    private volatile Map<BoundNode, List<ApiInstance>> reverseIndex;
+    /** Version of the reverse index, incremented on each invalidation */
+    private final AtomicLong reverseIndexVersion = new AtomicLong();
+    /** Latencies and numbers of results of all calls to the API */
+    private final OperationMetrics metrics = new OperationMetrics();
 
     public ApiAttribute(ApiClass sourceClass, ApiType targetType, String uri)  {
         this.uri = uri;
@@ -93,6 +132,30 @@ public abstract class ApiAttribute implements ApiUriElement {
         return this.indirectTargetTypes;
     }
 
+    /**
+     * Returns <code>true</code> if the given class is the source class of this attribute or any of its subclasses.
+     * Checks a single bit instead of searching the list of {@link #getIndirectSourceClasses() <code>indirect source classes</code>}.
+     * @param apiClass - The class to check
+     */
+    public boolean isIndirectSourceClass(ApiClass apiClass) {
+        // check if indirect source and target types have been determined
+        if ( !this.indirectSourceAndTargetTypesDetermined )
+            { throw new RuntimeException("source and target types have not been determined yet"); }
+        return this.indirectSourceClassOrdinals.get(apiClass.getOrdinal());
+    }
+
+    /**
+     * Returns <code>true</code> if the given type is the target type of this attribute or any of its subclasses.
+     * Checks a single bit instead of searching the list of {@link #getIndirectTargetTypes() <code>indirect target types</code>}.
+     * @param apiType - The type to check
+     */
+    public boolean isIndirectTargetType(ApiType apiType) {
+        // check if indirect source and target types have been determined
+        if ( !this.indirectSourceAndTargetTypesDetermined )
+            { throw new RuntimeException("source and target types have not been determined yet"); }
+        return this.indirectTargetTypeOrdinals.get(apiType.getOrdinal());
+    }
+
     /**
      * <p>
      * Returns a list of {@link ApiEntity <code>ApiEntity</code>} that are the target of the attribute
@@ -113,12 +176,121 @@ public abstract class ApiAttribute implements ApiUriElement {
         Object sourceInstanceAppSecific = sourceInstance.getEntityAsObject();
         // try to call app specific function
         List<? extends Object> uncheckedResultList;
+        long startTime = System.nanoTime();
 		try { 
             uncheckedResultList = getTargetEntitiesForSourceInstanceSpec(sourceInstanceAppSecific);
         // if app specific function cannot be called, return null
         } catch (Exception e) {
+            this.metrics.record(startTime, 0);
             return null;
         }
+        // record latency and number of results of the call to the api
+        this.metrics.record(startTime, ( uncheckedResultList == null ) ? 0 : uncheckedResultList.size());
+        return this.convertTargetObjects(uncheckedResultList);
+    }
+
+    /**
+     * <p>
+     * Returns a lazy stream of the {@link ApiEntity <code>ApiEntity</code>} that are the target of the attribute
+     * for a given source {@link ApiInstance <code>ApiInstance</code>}.
+     * </p>
+     * <p>
+     * Executes the app specific method {@link #getTargetEntitiesForSourceInstanceSpliteratorSpec(Object) <code>getTargetEntitiesForSourceInstanceSpliteratorSpec(Object)</code>}
+     * and checks and converts the returned objects one by one, while the stream is consumed.
+     * If the spliterator knows its size, the call to the API is recorded right away,
+     * otherwise it is recorded with the number of returned objects once the spliterator is exhausted.
+     * Returns an empty stream if the app specific method fails,
+     * and ends the stream if the spliterator fails while advancing, as if it was exhausted.
+     * </p>
+     * @param sourceInstance - The source {@link ApiInstance <code>ApiInstance</code>} 
+     * for which the target {@link ApiEntity <code>ApiEntity</code>} should be determined
+     */
+    public Stream<BoundNode> streamTargetEntitiesForSourceInstance(ApiInstance sourceInstance) {
+        // check if indirect source and target types have been determined
+        if ( !this.indirectSourceAndTargetTypesDetermined )
+            { throw new RuntimeException("source and target types have not been determined yet"); }
+        // try to call app specific function
+        Spliterator<? extends Object> uncheckedResultSpliterator;
+        long startTime = System.nanoTime();
+        try {
+            uncheckedResultSpliterator = getTargetEntitiesForSourceInstanceSpliteratorSpec(sourceInstance.getEntityAsObject());
+        // if app specific function cannot be called, return empty stream
+        } catch (Exception e) {
+            this.metrics.record(startTime, 0);
+            return Stream.empty();
+        }
+        if ( uncheckedResultSpliterator == null ) { 
+            this.metrics.record(startTime, 0);
+            return Stream.empty(); 
+        }
+        // record latency and number of results of the call to the api, if the number is known, else once the spliterator is exhausted
+        long endTime = System.nanoTime();
+        long resultSize = uncheckedResultSpliterator.getExactSizeIfKnown();
+        if ( resultSize >= 0 ) { this.metrics.record(startTime, endTime, resultSize); }
+        // filter objects of correct class and convert them lazily
+        return StreamSupport.stream(new TargetObjectSpliterator(uncheckedResultSpliterator, this.metrics, startTime, ( resultSize >= 0 ) ? -1 : endTime), false)
+            .filter((Object singleResult) -> (singleResult != null))
+            .filter((Object singleResult) -> this.targetType.getAssociatedClass().isInstance(singleResult))
+            .map((Object singleResult) -> (BoundNode) this.targetType.convertObjectToApiEntity(singleResult));
+    }
+
+    /**
+     * <p>
+     * Returns the target entities of the attribute for each of the given source instances, 
+     * in the same order as the source instances.
+     * Each element is <code>null</code> if the source instance has no target entities, 
+     * as for {@link #getTargetEntitiesForSourceInstance(ApiInstance) <code>getTargetEntitiesForSourceInstance(ApiInstance)</code>}.
+     * </p>
+     * <p>
+     * Executes the app specific method {@link #getTargetEntitiesForSourceInstancesSpec(List) <code>getTargetEntitiesForSourceInstancesSpec(List)</code>}
+     * once for all source instances and records it as a single call to the API.
+     * If the app specific method fails or does not return one result per source instance,
+     * the target entities are requested for each source instance separately.
+     * </p>
+     * @param sourceInstances - The source instances for which the target entities should be determined
+     */
+    public List<List<? extends BoundNode>> getTargetEntitiesForSourceInstances(List<ApiInstance> sourceInstances) {
+        // check if indirect source and target types have been determined
+        if ( !this.indirectSourceAndTargetTypesDetermined )
+            { throw new RuntimeException("source and target types have not been determined yet"); }
+        List<List<? extends BoundNode>> targetEntitiesList = new ArrayList<List<? extends BoundNode>>(sourceInstances.size());
+        if ( sourceInstances.isEmpty() ) { return targetEntitiesList; }
+        // get source instances as app specific objects
+        List<Object> sourceInstancesAppSpecific = new ArrayList<Object>(sourceInstances.size());
+        for (ApiInstance sourceInstance: sourceInstances) { sourceInstancesAppSpecific.add(sourceInstance.getEntityAsObject()); }
+        // try to call app specific function
+        List<? extends List<? extends Object>> uncheckedResultLists;
+        long startTime = System.nanoTime();
+        try {
+            uncheckedResultLists = getTargetEntitiesForSourceInstancesSpec(sourceInstancesAppSpecific);
+        } catch (Exception e) {
+            uncheckedResultLists = null;
+        }
+        // if app specific function fails, fall back to requesting each source instance separately
+        // (each of these calls is recorded by itself)
+        if ( uncheckedResultLists == null || uncheckedResultLists.size() != sourceInstances.size() ) {
+            for (ApiInstance sourceInstance: sourceInstances) { targetEntitiesList.add(this.getTargetEntitiesForSourceInstance(sourceInstance)); }
+            return targetEntitiesList;
+        }
+        // record latency and total number of results of the call to the api
+        int resultNumber = 0;
+        for (List<? extends Object> uncheckedResultList: uncheckedResultLists) {
+            if ( uncheckedResultList != null ) { resultNumber += uncheckedResultList.size(); }
+        }
+        this.metrics.record(startTime, resultNumber);
+        // check and convert results of each source instance
+        for (List<? extends Object> uncheckedResultList: uncheckedResultLists) {
+            targetEntitiesList.add(this.convertTargetObjects(uncheckedResultList));
+        }
+        return targetEntitiesList;
+    }
+
+    /**
+     * Filters the given objects returned by the API for objects of the target type and converts them to entities.
+     * Returns <code>null</code> if no object of the target type is left.
+     * @param uncheckedResultList - The objects returned by the API, may be <code>null</code>
+     */
+    private List<? extends BoundNode> convertTargetObjects(List<? extends Object> uncheckedResultList) {
         // return null if result is null or empty list
         if ( uncheckedResultList == null || uncheckedResultList.isEmpty() ) { return null; }
         // filter list for objects of correct class
@@ -149,6 +321,135 @@ public abstract class ApiAttribute implements ApiUriElement {
      */
     public abstract List<? extends Object> getTargetEntitiesForSourceInstanceSpec(Object sourceInstanceObject);
 
+    /**
+     * <p>
+     * Returns a spliterator over the target objects of the attribute for a given source {@link java.lang.Object <code>Object</code>},
+     * with the same objects as {@link #getTargetEntitiesForSourceInstanceSpec(Object) <code>getTargetEntitiesForSourceInstanceSpec(Object)</code>}.
+     * </p>
+     * <p>
+     * The default implementation returns the spliterator of the list of 
+     * {@link #getTargetEntitiesForSourceInstanceSpec(Object) <code>getTargetEntitiesForSourceInstanceSpec(Object)</code>}.
+     * It can be overridden by API specific subclasses, if the API can enumerate the values of the attribute without building a list first,
+     * e.g. by wrapping an iterator of the API using {@link java.util.Spliterators#spliteratorUnknownSize(java.util.Iterator, int) <code>Spliterators.spliteratorUnknownSize(Iterator, int)</code>}.
+     * </p>
+     * @param sourceInstanceObject - The source instance passed as an {@link java.lang.Object <code>Object</code>}
+     */
+    public Spliterator<? extends Object> getTargetEntitiesForSourceInstanceSpliteratorSpec(Object sourceInstanceObject) {
+        List<? extends Object> resultList = this.getTargetEntitiesForSourceInstanceSpec(sourceInstanceObject);
+        if ( resultList == null ) { return Spliterators.emptySpliterator(); }
+        return resultList.spliterator();
+    }
+
+    /**
+     * <p>
+     * Returns the target objects of the attribute for each of the given source objects, in the same order as the source objects.
+     * Each element may be <code>null</code> or an empty list if the source object has no target objects.
+     * </p>
+     * <p>
+     * This is the API specific method to get target entities for many source instances in a single call.
+     * The default implementation calls {@link #getTargetEntitiesForSourceInstanceSpec(Object) <code>getTargetEntitiesForSourceInstanceSpec(Object)</code>}
+     * for each source object, a failing source object results in <code>null</code>.
+     * It can be overridden by API specific subclasses, if the API allows to read the attribute of many objects more efficiently.
+     * </p>
+     * @param sourceInstanceObjects - The source instances passed as {@link java.lang.Object <code>Objects</code>}
+     */
+    public List<? extends List<? extends Object>> getTargetEntitiesForSourceInstancesSpec(List<? extends Object> sourceInstanceObjects) {
+        List<List<? extends Object>> resultLists = new ArrayList<List<? extends Object>>(sourceInstanceObjects.size());
+        for (Object sourceInstanceObject: sourceInstanceObjects) {
+            List<? extends Object> resultList;
+            try { resultList = this.getTargetEntitiesForSourceInstanceSpec(sourceInstanceObject); }
+            catch (Exception e) { resultList = null; }
+            resultLists.add(resultList);
+        }
+        return resultLists;
+    }
+
+    /**
+     * Returns the latencies and numbers of results of all calls to the API
+     * (see {@link #getTargetEntitiesForSourceInstanceSpec(Object) <code>getTargetEntitiesForSourceInstanceSpec(Object)</code>}).
+     */
+    public OperationMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns <code>true</code> if the reverse index is used to find source instances for a target entity.
+     */
+    public boolean isReverseIndexEnabled() {
+        return this.reverseIndexEnabled;
+    }
+
+    /**
+     * Enables or disables the reverse index.
+     * Disabling the reverse index also discards it.
+     * @param reverseIndexEnabled - <code>true</code> to enable the reverse index
+     */
+    public void setReverseIndexEnabled(boolean reverseIndexEnabled) {
+        this.reverseIndexEnabled = reverseIndexEnabled;
+        if ( !reverseIndexEnabled ) { this.invalidateReverseIndex(); }
+    }
+
+    /**
+     * Discards the reverse index, so that it is built again on the next lookup.
+     * Has to be called when the model of the tool changes.
+     */
+    public void invalidateReverseIndex() {
+        this.reverseIndexVersion.incrementAndGet();
+        this.reverseIndex = null;
+    }
+
+    /**
+     * <p>
+     * Returns all source instances, that have the given entity as a target of this attribute.
+     * Returns <code>null</code> if there are no such instances.
+     * </p>
+     * <p>
+     * The lookup uses the reverse index, which is built on the first call by getting the target entities 
+     * for all instances of the source class once.
+     * </p>
+     * @param targetEntity - The target entity 
+     */
+    public List<ApiInstance> getSourceInstancesForTargetEntity(BoundNode targetEntity) {
+        Map<BoundNode, List<ApiInstance>> index = this.reverseIndex;
+        if ( index == null ) { index = this.buildReverseIndex(); }
+        return index.get(targetEntity);
+    }
+
+    /**
+     * Builds the reverse index from target entities to source instances.
+     * The built index is only kept, if the reverse index was not invalidated while building it.
+     */
+    private synchronized Map<BoundNode, List<ApiInstance>> buildReverseIndex() {
+        // check if index has been built by another thread in the meantime
+        Map<BoundNode, List<ApiInstance>> index = this.reverseIndex;
+        if ( index != null ) { return index; }
+        long version = this.reverseIndexVersion.get();
+        // get target entities for all instances of the source class and add the instance for each target entity,
+        // the source instances of each target entity are collected in a set to skip duplicates in constant time
+        Map<BoundNode, LinkedHashSet<ApiInstance>> sourceInstancesByTargetEntity = new HashMap<BoundNode, LinkedHashSet<ApiInstance>>();
+        // the source instances are streamed and their target entities are requested in batches
+        this.sourceClass.forEachImplementingInstanceBatch(SOURCE_BATCH_SIZE, (List<ApiInstance> sourceInstanceBatch) -> {
+            List<List<? extends BoundNode>> targetEntitiesList = this.getTargetEntitiesForSourceInstances(sourceInstanceBatch);
+            for (int i = 0; i < sourceInstanceBatch.size(); i++) {
+                ApiInstance sourceInstance = sourceInstanceBatch.get(i);
+                List<? extends BoundNode> targetEntities = targetEntitiesList.get(i);
+                if ( targetEntities == null ) { continue; }
+                for (BoundNode targetEntity: targetEntities) {
+                    sourceInstancesByTargetEntity.computeIfAbsent(targetEntity, (BoundNode key) -> new LinkedHashSet<ApiInstance>(2)).add(sourceInstance);
+                }
+            }
+        });
+        // convert the sets to lists once
+        index = new HashMap<BoundNode, List<ApiInstance>>();
+        for (Map.Entry<BoundNode, LinkedHashSet<ApiInstance>> entry: sourceInstancesByTargetEntity.entrySet()) {
+            index.put(entry.getKey(), new ArrayList<ApiInstance>(entry.getValue()));
+        }
+        index = Collections.unmodifiableMap(index);
+        // keep index only if it was not invalidated in the meantime
+        if ( version == this.reverseIndexVersion.get() ) { this.reverseIndex = index; }
+        return index;
+    }
+
     /**
      * <p>
      * Determines the indirect source classes and target types of the attribute.
@@ -175,6 +476,11 @@ public abstract class ApiAttribute implements ApiUriElement {
         indirectTargetTypes.add(this.targetType);
         if ( this.targetType.getApiElementType().equals(ApiElementType.CLASS) ) 
             { indirectTargetTypes.addAll(((ApiClass) this.targetType).getIndirectSubclasses()); }
+        // store ordinals of both lists as bit sets for constant time checks
+        this.indirectSourceClassOrdinals = new BitSet();
+        indirectSourceClasses.forEach((ApiClass apiClass) -> this.indirectSourceClassOrdinals.set(apiClass.getOrdinal()));
+        this.indirectTargetTypeOrdinals = new BitSet();
+        indirectTargetTypes.forEach((ApiType apiType) -> this.indirectTargetTypeOrdinals.set(apiType.getOrdinal()));
         // set boolean to true
         this.indirectSourceAndTargetTypesDetermined = true;
     }
@@ -184,6 +490,74 @@ public abstract class ApiAttribute implements ApiUriElement {
         return "<" + this.getUri()+ ">";
     } 
 
+    /**
+     * Sequential spliterator over the target objects of a spliterator of the API,
+     * that ends like an exhausted spliterator, if the spliterator of the API fails while advancing.
+     * If the number of target objects was not known in advance, the call to the API is recorded 
+     * with the number of returned objects once the spliterator is exhausted.
+     */
+    private static final class TargetObjectSpliterator implements Spliterator<Object> {
+
+        private final Spliterator<? extends Object> objectSpliterator;
+        private final OperationMetrics metrics;
+        private final long startTime;
+        /** End time of the call to the API, <code>-1</code> if the call has been recorded already */
+        private long endTime;
+        private long resultSize = 0;
+        private boolean finished = false;
+        // last object returned by the spliterator of the API and the consumer receiving it
+        private Object currentObject;
+        private final Consumer<Object> objectConsumer = (Object targetObject) -> this.currentObject = targetObject;
+
+        private TargetObjectSpliterator(Spliterator<? extends Object> objectSpliterator, OperationMetrics metrics, long startTime, long endTime) {
+            this.objectSpliterator = objectSpliterator;
+            this.metrics = metrics;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            if ( this.finished ) { return false; }
+            boolean advanced;
+            // if the spliterator of the api fails, end the stream as for getTargetEntitiesForSourceInstance
+            // (only the call to the api is guarded, the action is executed afterwards)
+            try {
+                advanced = this.objectSpliterator.tryAdvance(this.objectConsumer);
+            } catch (Exception e) {
+                advanced = false;
+            }
+            if ( advanced ) { 
+                Object targetObject = this.currentObject;
+                this.currentObject = null;
+                this.resultSize++; 
+                action.accept(targetObject);
+                return true;
+            }
+            this.finished = true;
+            if ( this.endTime >= 0 ) { this.metrics.record(this.startTime, this.endTime, this.resultSize); }
+            this.endTime = -1;
+            return false;
+        }
+
+        @Override
+        public Spliterator<Object> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.finished ? 0 : this.objectSpliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            // the size is not exact, as the spliterator of the api may fail before it is exhausted
+            return this.objectSpliterator.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        }
+
+    }
+
     @Override
     public boolean equals(Object other) {
         if ( other == this ) { return true; }
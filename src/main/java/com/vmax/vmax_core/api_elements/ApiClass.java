@@ -1,8 +1,15 @@
 package com.vmax.vmax_core.api_elements;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.vmax.vmax_core.graph.NodeType;
 
@@ -24,7 +31,7 @@ public abstract class ApiClass extends ApiType {
     protected final List<ApiClass> directSuperclasses;
     /** Indirect superclasses of this class. Indirect means that they are computed from the hierarchy of superclasses. */
     protected List<ApiClass> indirectSuperclasses;
-    /** Indirect superclasses of this class, including the class itself. */
+    /** Indirect superclasses of this class, including the class itself (first). Immutable and shared by all instances of this class. */
     protected List<ApiClass> indirectSuperclassesAndSelf;
     /** Direct subclasses of this class. Direct means that another class directly defines this class as its superclass. */
     protected List<ApiClass> directSubclasses;
@@ -32,6 +39,10 @@ public abstract class ApiClass extends ApiType {
     protected List<ApiClass> indirectSubclasses;
     /** Indirect subclasses of this class, including the class itself. */
     protected List<ApiClass> indirectSubclassesAndSelf;
+    /** Ordinals of the indirect superclasses of this class, including the class itself. */
+    protected BitSet indirectSuperclassAndSelfOrdinals;
+    /** Ordinals of the indirect subclasses of this class, including the class itself. */
+    protected BitSet indirectSubclassAndSelfOrdinals;
     /** URI prefix for instances, passed to the constructor from externally. */
     protected String instanceUriPrefix;
     /** Boolean to check if subclasses have been determined. */
@@ -62,45 +73,60 @@ public abstract class ApiClass extends ApiType {
     /**
      * Returns all instances ({@link com.vmax.vmax_core.api_elements.ApiInstance <code>ApiInstance</code>}) 
      * that implement this class or any of its subclasses.
+     * Returns <code>null</code> if there are no such instances.
+     * Collects the instances of {@link #streamImplementingInstances() <code>streamImplementingInstances()</code>}.
      */
     public List<ApiInstance> getImplementingInstances() {
+        // collect all instances of the lazy stream into a single list
+        List<ApiInstance> instanceList = new ArrayList<ApiInstance>();
+        this.streamImplementingInstances().forEachOrdered(instanceList::add);
+        if ( instanceList.isEmpty() ) { return null; }
+        return instanceList;
+    }
+
+    /**
+     * <p>
+     * Returns a lazy stream of all instances ({@link com.vmax.vmax_core.api_elements.ApiInstance <code>ApiInstance</code>}) 
+     * that implement this class or any of its subclasses.
+     * </p>
+     * <p>
+     * The objects of the API are requested by {@link #getImplementingInstancesAsObjectsSpliterator() <code>getImplementingInstancesAsObjectsSpliterator()</code>}
+     * and converted to instances one by one, while the stream is consumed, so no list of all instances is created.
+     * If indirect instances are not included (see {@link #indirectInstancesIncluded() <code>indirectInstancesIncluded()</code>}),
+     * the objects of all indirect subclasses are requested in turn.
+     * The stream can be split for parallel processing, first by class and then by the spliterators of the API.
+     * </p>
+     */
+    public Stream<ApiInstance> streamImplementingInstances() {
         // check if attributes have been determined
         // this method does not need attributes but should not be called before anyways
         if ( !this.attributesDetermined ) 
             { throw new RuntimeException("this method wont't work yet"); }
-        // init list of instances
-        List<ApiInstance> instanceList = new ArrayList<ApiInstance>();
-        // get all instances as objects
-        List<Object> instancesAsObjects = this.getImplementingInstancesAsObjects();
-        // convert all objects to ApiInstances and add them to the list
-        if ( instancesAsObjects != null && !instancesAsObjects.isEmpty() ) { 
-            instanceList.addAll(instancesAsObjects.stream().map(
-                (Object instanceAsObject) -> {
-                    if ( instanceAsObject == null ) { return null; }
-                    ApiInstance apiInstance = this.convertObjectToApiEntity(instanceAsObject);
-                    if ( apiInstance == null ) { return null; }
-                    return apiInstance;
-                })
-                .collect(Collectors.toList())); 
-        }
-        // if indirect instances are not already (determined by boolean indirectInstancesIncluded()), 
-        // add them by repeating the process for all indirect subclasses
-        if ( !this.indirectInstancesIncluded() ) {
-            for (ApiClass subClass: this.indirectSubclasses) {
-                instancesAsObjects = subClass.getImplementingInstancesAsObjects();
-                if ( instancesAsObjects == null || instancesAsObjects.isEmpty() ) { continue; }
-                instanceList.addAll(instancesAsObjects.stream().map(
-                    (Object instanceAsObject) -> {
-                        if ( instanceAsObject == null ) { return null; }
-                        ApiInstance apiInstance = subClass.convertObjectToApiEntity(instanceAsObject);
-                        if ( apiInstance == null ) { return null; }
-                        return apiInstance;
-                    })
-                    .collect(Collectors.toList())); 
-            }
+        // if indirect instances are not included (determined by boolean indirectInstancesIncluded()), 
+        // the instances of all indirect subclasses are streamed as well
+        List<ApiClass> enumeratedClasses = this.indirectInstancesIncluded() 
+            ? Collections.singletonList(this) : this.indirectSubclassesAndSelf;
+        return StreamSupport.stream(new InstanceSpliterator(enumeratedClasses, 0, enumeratedClasses.size()), false);
+    }
+
+    /**
+     * Passes all instances of {@link #streamImplementingInstances() <code>streamImplementingInstances()</code>} 
+     * to the given consumer in batches, e.g. to request attribute values for many instances at once.
+     * Only a single batch of instances is kept in memory.
+     * @param batchSize - The maximum number of instances of a batch
+     * @param batchConsumer - The consumer of each batch, the list of a batch must not be kept after it returns
+     */
+    public void forEachImplementingInstanceBatch(int batchSize, Consumer<List<ApiInstance>> batchConsumer) {
+        if ( batchSize < 1 ) { throw new IllegalArgumentException("batch size must be at least 1"); }
+        List<ApiInstance> batch = new ArrayList<ApiInstance>(Math.min(batchSize, 16));
+        Iterator<ApiInstance> instanceIterator = this.streamImplementingInstances().iterator();
+        while ( instanceIterator.hasNext() ) {
+            batch.add(instanceIterator.next());
+            if ( batch.size() < batchSize ) { continue; }
+            batchConsumer.accept(batch);
+            batch.clear();
         }
-        if ( instanceList == null || instanceList.isEmpty() ) { return null; }
-        return instanceList;
+        if ( !batch.isEmpty() ) { batchConsumer.accept(batch); }
     }
 
     /**
@@ -123,6 +149,21 @@ public abstract class ApiClass extends ApiType {
         return this.indirectSuperclasses;
     }
 
+    /**
+     * Returns this class followed by all of its superclasses, including indirect, computed superclasses.
+     * The returned list is immutable and shared by all instances of this class 
+     * (see {@link com.vmax.vmax_core.api_elements.ApiInstance#getIndirectTypes() <code>ApiInstance.getIndirectTypes()</code>}).
+     * Cannot be called before 
+     * {@link ApiClass#determineIndirectSubAndSuperclasses <code>determineIndirectSubAndSuperclasses()</code>}
+     * has been called.
+     */
+    public List<ApiClass> getIndirectSuperclassesAndSelf() {
+        // check if indirect sub and superclasses have been determined
+        if ( !this.indirectSubAndSuperclassesDetermined ) 
+            { throw new RuntimeException("indirect superclasses have not been determined yet, so the called method wont't work"); }
+        return this.indirectSuperclassesAndSelf;
+    }
+
     /**
      * Returns the directly defined subclasses of this class.
      * Cannot be called before
@@ -162,6 +203,48 @@ public abstract class ApiClass extends ApiType {
         return this.indirectSubclassesAndSelf;
     }
 
+    /**
+     * Returns the ordinals of all superclasses of this class, including indirect superclasses and the class itself
+     * (see {@link ApiType#getOrdinal() <code>getOrdinal()</code>}).
+     * The returned bit set must not be modified.
+     * Cannot be called before
+     * {@link ApiClass#determineIndirectSubAndSuperclasses <code>determineIndirectSubAndSuperclasses()</code>}
+     * has been called.
+     */
+    public BitSet getIndirectSuperclassAndSelfOrdinals() {
+        // check if indirect sub and superclasses have been determined
+        if ( !this.indirectSubAndSuperclassesDetermined ) 
+            { throw new RuntimeException("indirect superclasses have not been determined yet, so the called method wont't work"); }
+        return this.indirectSuperclassAndSelfOrdinals;
+    }
+
+    /**
+     * Returns the ordinals of all subclasses of this class, including indirect subclasses and the class itself
+     * (see {@link ApiType#getOrdinal() <code>getOrdinal()</code>}).
+     * The returned bit set must not be modified.
+     * Cannot be called before
+     * {@link ApiClass#determineIndirectSubAndSuperclasses <code>determineIndirectSubAndSuperclasses()</code>}
+     * has been called.
+     */
+    public BitSet getIndirectSubclassAndSelfOrdinals() {
+        // check if indirect sub and superclasses have been determined
+        if ( !this.indirectSubAndSuperclassesDetermined ) 
+            { throw new RuntimeException("indirect subclasses have not been determined yet, so the called method wont't work"); }
+        return this.indirectSubclassAndSelfOrdinals;
+    }
+
+    /**
+     * Returns <code>true</code> if this class is the given type or any of its subclasses.
+     * Checks a single bit of the ordinals of the superclasses instead of searching the list of superclasses.
+     * @param apiType - The possible superclass
+     */
+    @Override
+    public boolean isSubtypeOf(ApiType apiType) {
+        // classes are never subtypes of data types
+        if ( !apiType.getApiElementType().equals(ApiElementType.CLASS) ) { return false; }
+        return this.getIndirectSuperclassAndSelfOrdinals().get(apiType.getOrdinal());
+    }
+
     /**
      * Determines direct subclasses of this class.
      * Can only be called once.
@@ -240,12 +323,18 @@ public abstract class ApiClass extends ApiType {
             currentClassLayer = nextClassLayer;
         }
         // add self to sets of superclasses and subclasses
-        this.indirectSuperclassesAndSelf = new ArrayList<ApiClass>();
-        this.indirectSuperclassesAndSelf.add(this);
-        this.indirectSuperclassesAndSelf.addAll(this.indirectSuperclasses);
+        List<ApiClass> superclassesAndSelf = new ArrayList<ApiClass>();
+        superclassesAndSelf.add(this);
+        superclassesAndSelf.addAll(this.indirectSuperclasses);
+        this.indirectSuperclassesAndSelf = List.copyOf(superclassesAndSelf);
         this.indirectSubclassesAndSelf = new ArrayList<ApiClass>();
         this.indirectSubclassesAndSelf.add(this);
         this.indirectSubclassesAndSelf.addAll(this.indirectSubclasses); 
+        // store ordinals of both lists as bit sets for constant time hierarchy checks
+        this.indirectSuperclassAndSelfOrdinals = new BitSet();
+        this.indirectSuperclassesAndSelf.forEach((ApiClass apiClass) -> this.indirectSuperclassAndSelfOrdinals.set(apiClass.getOrdinal()));
+        this.indirectSubclassAndSelfOrdinals = new BitSet();
+        this.indirectSubclassesAndSelf.forEach((ApiClass apiClass) -> this.indirectSubclassAndSelfOrdinals.set(apiClass.getOrdinal()));
         // set boolean to true, so that this method cannot be called again and other methods can be called
         this.indirectSubAndSuperclassesDetermined = true;
     }
@@ -271,6 +360,25 @@ public abstract class ApiClass extends ApiType {
      */
     protected abstract List<Object> getImplementingInstancesAsObjects();
 
+    /**
+     * <p>
+     * Returns a spliterator over all instances that implement the given class, 
+     * with the same instances as {@link #getImplementingInstancesAsObjects() <code>getImplementingInstancesAsObjects()</code>}.
+     * </p>
+     * <p>
+     * The default implementation returns the spliterator of the list of 
+     * {@link #getImplementingInstancesAsObjects() <code>getImplementingInstancesAsObjects()</code>}.
+     * It can be overridden by the API specific version of this class, 
+     * if the API can enumerate the instances without building a list first,
+     * e.g. by wrapping an iterator of the API using {@link java.util.Spliterators#spliteratorUnknownSize(java.util.Iterator, int) <code>Spliterators.spliteratorUnknownSize(Iterator, int)</code>}.
+     * </p>
+     */
+    protected Spliterator<Object> getImplementingInstancesAsObjectsSpliterator() {
+        List<Object> instancesAsObjects = this.getImplementingInstancesAsObjects();
+        if ( instancesAsObjects == null ) { return Spliterators.emptySpliterator(); }
+        return instancesAsObjects.spliterator();
+    }
+
     /**
      * Returns a boolean indicating whether the method 
      * {@link ApiClass#getImplementingInstancesAsObjects <code>getImplementingInstancesAsObjects()</code>}
@@ -279,4 +387,123 @@ public abstract class ApiClass extends ApiType {
      */
     protected abstract boolean indirectInstancesIncluded();
 
+    /**
+     * Returns a boolean indicating whether the method 
+     * {@link ApiClass#findImplementingInstanceAsObjectById(String) <code>findImplementingInstanceAsObjectById(String)</code>}
+     * is implemented by the API specific version of this class.
+     * Returns <code>false</code> by default.
+     */
+    protected boolean instanceLookupByIdSupported() {
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if instances of this class can be looked up by the ID decoded from their URI
+     * (see {@link #findImplementingInstanceAsObjectById(String) <code>findImplementingInstanceAsObjectById(String)</code>}).
+     */
+    public boolean isInstanceLookupByIdSupported() {
+        return this.instanceLookupByIdSupported();
+    }
+
+    /**
+     * <p>
+     * Returns the instance of this class with the given ID as an {@link java.lang.Object <code>Object</code>},
+     * or <code>null</code> if the API has no such instance.
+     * </p>
+     * <p>
+     * The ID is the part of the instance URI decoded by 
+     * {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper.decodeInstanceUri(String)</code>},
+     * so the API can look up the instance in a class specific way instead of resolving the full URI.
+     * This method can be implemented by the API specific version of this class, 
+     * together with {@link #instanceLookupByIdSupported() <code>instanceLookupByIdSupported()</code>}.
+     * The default implementation returns <code>null</code>, as if the API had no such instance.
+     * </p>
+     * @param instanceId - The ID of the instance, decoded from its URI
+     */
+    public Object findImplementingInstanceAsObjectById(String instanceId) {
+        return null;
+    }
+
+    /**
+     * Spliterator over the instances of a range of classes,
+     * converting the objects of the spliterators of the API to instances while advancing.
+     * Splits the range of classes first and the spliterator of the API of a single class afterwards.
+     */
+    private static final class InstanceSpliterator implements Spliterator<ApiInstance> {
+
+        private final List<ApiClass> classes;
+        private int classIndex;
+        private final int toClassIndex;
+        /** Spliterator of the API over the objects of the current class, <code>null</code> if not requested yet */
+        private Spliterator<Object> currentObjectSpliterator;
+        // last object returned by the spliterator of the API and the consumer receiving it
+        private Object currentObject;
+        private final Consumer<Object> objectConsumer = (Object instanceAsObject) -> this.currentObject = instanceAsObject;
+
+        private InstanceSpliterator(List<ApiClass> classes, int fromClassIndex, int toClassIndex) {
+            this.classes = classes;
+            this.classIndex = fromClassIndex;
+            this.toClassIndex = toClassIndex;
+        }
+
+        private InstanceSpliterator(ApiClass apiClass, Spliterator<Object> objectSpliterator) {
+            this(Collections.singletonList(apiClass), 0, 1);
+            this.currentObjectSpliterator = objectSpliterator;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ApiInstance> action) {
+            while ( this.classIndex < this.toClassIndex ) {
+                ApiClass apiClass = this.classes.get(this.classIndex);
+                if ( this.currentObjectSpliterator == null ) { this.currentObjectSpliterator = apiClass.getImplementingInstancesAsObjectsSpliterator(); }
+                // skip null objects and objects that cannot be converted
+                while ( this.currentObjectSpliterator.tryAdvance(this.objectConsumer) ) {
+                    Object instanceAsObject = this.currentObject;
+                    this.currentObject = null;
+                    if ( instanceAsObject == null ) { continue; }
+                    ApiInstance apiInstance = apiClass.convertObjectToApiEntity(instanceAsObject);
+                    if ( apiInstance == null ) { continue; }
+                    action.accept(apiInstance);
+                    return true;
+                }
+                // objects of the current class are exhausted, continue with the next class
+                this.currentObjectSpliterator = null;
+                this.classIndex++;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<ApiInstance> trySplit() {
+            // split the remaining classes, as long as the objects of the first class have not been requested
+            if ( this.currentObjectSpliterator == null && this.toClassIndex - this.classIndex > 1 ) {
+                int middle = (this.classIndex + this.toClassIndex) >>> 1;
+                InstanceSpliterator prefix = new InstanceSpliterator(this.classes, this.classIndex, middle);
+                this.classIndex = middle;
+                return prefix;
+            }
+            // else, split the objects of the current class
+            if ( this.classIndex >= this.toClassIndex ) { return null; }
+            ApiClass apiClass = this.classes.get(this.classIndex);
+            if ( this.currentObjectSpliterator == null ) { this.currentObjectSpliterator = apiClass.getImplementingInstancesAsObjectsSpliterator(); }
+            Spliterator<Object> prefixObjectSpliterator = this.currentObjectSpliterator.trySplit();
+            if ( prefixObjectSpliterator == null ) { return null; }
+            return new InstanceSpliterator(apiClass, prefixObjectSpliterator);
+        }
+
+        @Override
+        public long estimateSize() {
+            // the number of instances is only known when the objects of a single class are left
+            if ( this.classIndex >= this.toClassIndex ) { return 0; }
+            if ( this.toClassIndex - this.classIndex == 1 && this.currentObjectSpliterator != null ) { return this.currentObjectSpliterator.estimateSize(); }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+
+    }
+
 }
@@ -2,7 +2,6 @@ package com.vmax.vmax_core.api_elements;
 
 import com.vmax.vmax_core.graph.NodeType;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -24,8 +23,6 @@ public class ApiInstance implements ApiUriElement, ApiEntity {
     private final String uri;
     /** The direct class of the api instance */
     private final ApiClass directApiClass;
-    /** List of indirect classes of the api instance */
-    private final List<ApiClass> indirectApiClasses;
     /** The instance as an {@link java.lang.Object <code>Object</code>} */
     private final Object apiInstanceAsObject;
 
@@ -33,9 +30,6 @@ public class ApiInstance implements ApiUriElement, ApiEntity {
         this.uri = uri;
         this.apiInstanceAsObject = apiInstanceAsObject;
         this.directApiClass = directApiClass;
-        this.indirectApiClasses = new ArrayList<ApiClass>();
-        this.indirectApiClasses.add(directApiClass);
-        this.indirectApiClasses.addAll(this.directApiClass.getIndirectSuperclasses());
     }
 
     @Override
@@ -63,9 +57,14 @@ public class ApiInstance implements ApiUriElement, ApiEntity {
         return directApiClass;
     }
 
+    /**
+     * Returns the direct class of the instance followed by all of its superclasses.
+     * The immutable list is shared by all instances of the direct class instead of being copied for each instance
+     * (see {@link com.vmax.vmax_core.api_elements.ApiClass#getIndirectSuperclassesAndSelf() <code>ApiClass.getIndirectSuperclassesAndSelf()</code>}).
+     */
     @Override
     public List<ApiClass> getIndirectTypes() {
-        return indirectApiClasses;
+        return this.directApiClass.getIndirectSuperclassesAndSelf();
     }
     
     @Override
@@ -27,6 +27,8 @@ public abstract class ApiType implements ApiUriElement {
     protected boolean attributesDetermined = false;
     /** boolean to check if indirect sub and superclasses have been determined */
     protected boolean indirectSubAndSuperclassesDetermined = false;
+    /** dense ordinal of the type among all types of the API, <code>-1</code> if it has not been assigned yet */
+    private int ordinal = -1;
 
     public ApiType(Class<?> associatedClass, String uri) {
         this.uri = uri;
@@ -56,6 +58,44 @@ public abstract class ApiType implements ApiUriElement {
         return this.associatedClass;
     };
 
+    /**
+     * <p>
+     * Returns the ordinal of the type.
+     * </p>
+     * <p>
+     * Ordinals are assigned densely to all data types and classes by the 
+     * {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper</code>}, 
+     * so that sets of types (e.g. the subclasses of a class) can be stored as {@link java.util.BitSet <code>BitSets</code>}.
+     * </p>
+     */
+    public int getOrdinal() {
+        if ( this.ordinal < 0 ) 
+            { throw new RuntimeException("ordinal has not been assigned yet, so the called method wont't work"); }
+        return this.ordinal;
+    }
+
+    /**
+     * Assigns the ordinal of the type. 
+     * Has to be called before the hierarchy of classes is determined.
+     * Data types are shared between APIs, so assigning the same ordinal again is allowed.
+     * @param ordinal - The ordinal, unique among all types of the API
+     */
+    public void setOrdinal(int ordinal) {
+        if ( ordinal < 0 ) { throw new IllegalArgumentException("ordinal can't be negative"); }
+        if ( this.ordinal >= 0 && this.ordinal != ordinal ) 
+            { throw new RuntimeException("a different ordinal has already been assigned"); }
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Returns <code>true</code> if this type is the given type or, for classes, any of its subclasses.
+     * Data types have no sub and supertypes, so for data types this is only the case if both types are equal.
+     * @param apiType - The possible supertype
+     */
+    public boolean isSubtypeOf(ApiType apiType) {
+        return this.equals(apiType);
+    }
+
     /**
      * <p>
      * Returns the list of attributes with this type as source.
@@ -112,12 +152,12 @@ public abstract class ApiType implements ApiUriElement {
         // else, type is a class, so find all attributes that have this class as source or any of its subclasses as source
         else {
             this.sourceAttributes = apiAttributeList.stream()  
-            .filter((ApiAttribute apiAttribute) -> apiAttribute.getIndirectSourceClasses().contains(this))
+            .filter((ApiAttribute apiAttribute) -> apiAttribute.isIndirectSourceClass((ApiClass) this))
             .collect(Collectors.toList());
         }
         // find all attributes that have this class as target or any of its subclasses as target
         this.targetAttributes = apiAttributeList.stream()  
-            .filter((ApiAttribute apiAttribute) -> apiAttribute.getIndirectTargetTypes().contains(this))
+            .filter((ApiAttribute apiAttribute) -> apiAttribute.isIndirectTargetType(this))
             .collect(Collectors.toList());
         // set booleans to true, so that this method cannot be called again and other methods can be called
         this.attributesDetermined = true;
@@ -29,4 +29,8 @@ public abstract class ApiClassAndAttributeList {
         return classList;
     }
 
+    public String getInstanceUriPrefix() {
+        return instanceUriPrefix;
+    }
+
 }
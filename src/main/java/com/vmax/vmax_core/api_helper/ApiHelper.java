@@ -1,9 +1,17 @@
 package com.vmax.vmax_core.api_helper;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.vmax.vmax_core.api_elements.ApiAttribute;
 import com.vmax.vmax_core.api_elements.ApiClass;
@@ -23,8 +31,35 @@ import com.vmax.vmax_core.graph.UriNode;
  * The class is intended to be extended by a tool-specific implementation,
  * which provides an implementation of the abstract method 
  * {@link #findApiInstanceAsObjectByUri(String uri) <code>findApiInstanceAsObjectByUri(String uri)</code>}.
+ * </p>
+ * <p>
+ * Instances resolved by {@link #getNodeByUri(String uri) <code>getNodeByUri(String uri)</code>} are kept in a
+ * {@link com.vmax.vmax_core.api_helper.BoundedCache <code>BoundedCache</code>}, if a cache is passed to the constructor (disabled by default).
+ * Tool specific implementations should call {@link #invalidateInstance(String uri) <code>invalidateInstance(String uri)</code>}
+ * or {@link #invalidateAllInstances() <code>invalidateAllInstances()</code>} when the model of the tool changes.
+ * Instance URIs, that could not be resolved, can be kept in a second cache with a short time to live (disabled by default),
+ * so that repeated lookups of unknown URIs do not call the API again.
+ * </p>
+ * <p>
+ * Alternatively, tool specific implementations report changes of the model by calling
+ * {@link #notifyInstanceCreated(Object) <code>notifyInstanceCreated(Object)</code>},
+ * {@link #notifyInstanceDeleted(ApiInstance) <code>notifyInstanceDeleted(ApiInstance)</code>},
+ * {@link #notifyAttributeValueChanged(Object, ApiAttribute) <code>notifyAttributeValueChanged(Object, ApiAttribute)</code>}
+ * or {@link #notifyModelChanged() <code>notifyModelChanged()</code>}.
+ * Each change increments the model version, evicts the affected entries of the instance cache (deleted instances) and the reverse attribute indexes
+ * and is passed on to all registered {@link com.vmax.vmax_core.api_helper.ModelChangeListener <code>ModelChangeListeners</code>}.
+ * </p>
  */
 public abstract class ApiHelper {
+
+    /** default capacity of the instance cache */
+    public static final int DEFAULT_INSTANCE_CACHE_CAPACITY = 10000;
+    /** default time to live of entries of the instance cache */
+    public static final Duration DEFAULT_INSTANCE_CACHE_TIME_TO_LIVE = Duration.ofMinutes(1);
+    /** default capacity of the cache of unresolvable instance URIs */
+    public static final int DEFAULT_UNRESOLVABLE_URI_CACHE_CAPACITY = 10000;
+    /** default time to live of entries of the cache of unresolvable instance URIs */
+    public static final Duration DEFAULT_UNRESOLVABLE_URI_CACHE_TIME_TO_LIVE = Duration.ofSeconds(10);
    
     // lists of all classes, attributes and data types of the API
     protected List<ApiClass> classList;
@@ -32,10 +67,79 @@ public abstract class ApiHelper {
     protected List<ApiAttribute> attributeList;
     // list of classes without superclasses ("top classes")
     protected List<ApiClass> topClassList;
+    // map of each class to the first top class of its superclasses and itself, which streams its direct instances
+    protected Map<ApiClass, ApiClass> owningTopClassByClass;
+    // immutable map of all RDF/RDFS nodes, data types, classes and attributes by URI
+    protected final Map<String, UriNode> schemaNodesByUri;
+    // URI prefix of all instances
+    protected final String instanceUriPrefix;
+    // cache of instances by URI
+    protected final BoundedCache<String, ApiInstance> instanceCache;
+    // cache of instance URIs, that could not be resolved recently ("negative cache")
+    protected final BoundedCache<String, Boolean> unresolvableUriCache;
+    // immutable map of classes by the local name of their URI, used to decode instance URIs (local names of several classes are left out)
+    private final Map<String, ApiClass> classesByLocalName;
+    // api class of the objects of each runtime class, determined on first use (null if the runtime class matches no api class)
+    private final ClassValue<ApiClass> apiClassByRuntimeClass = new ClassValue<ApiClass>() {
+        @Override
+        protected ApiClass computeValue(Class<?> runtimeClass) {
+            return ApiHelper.this.determineApiClassOfRuntimeClass(runtimeClass);
+        }
+    };
+    // version of the model, incremented for each reported change
+    private final AtomicLong modelVersion = new AtomicLong();
+    // listeners to changes of the model
+    private final List<ModelChangeListener> modelChangeListeners = new CopyOnWriteArrayList<ModelChangeListener>();
 
+    /**
+     * Creates the helper without an instance cache, so that every instance is resolved by the API.
+     * Caching of instances is enabled by passing a cache to 
+     * {@link #ApiHelper(String, ApiClassAndAttributeList, BoundedCache) <code>ApiHelper(String, ApiClassAndAttributeList, BoundedCache)</code>},
+     * e.g. with {@link #DEFAULT_INSTANCE_CACHE_CAPACITY <code>DEFAULT_INSTANCE_CACHE_CAPACITY</code>} 
+     * and {@link #DEFAULT_INSTANCE_CACHE_TIME_TO_LIVE <code>DEFAULT_INSTANCE_CACHE_TIME_TO_LIVE</code>}.
+     * @param ToolUriPrefix - The URI prefix of the tool
+     * @param apiClassAndAttributeList - The list of classes and attributes of the API
+     */
     public ApiHelper(String ToolUriPrefix, ApiClassAndAttributeList apiClassAndAttributeList) {
+        this(ToolUriPrefix, apiClassAndAttributeList, BoundedCache.<String, ApiInstance>disabled());
+    }
+
+    /**
+     * Creates the helper with a specific instance cache and without a cache of unresolvable instance URIs. 
+     * Pass {@link BoundedCache#disabled() <code>BoundedCache.disabled()</code>} to disable caching of instances.
+     * Caching of unresolvable instance URIs is enabled by passing a cache to 
+     * {@link #ApiHelper(String, ApiClassAndAttributeList, BoundedCache, BoundedCache) <code>ApiHelper(String, ApiClassAndAttributeList, BoundedCache, BoundedCache)</code>},
+     * e.g. with {@link #DEFAULT_UNRESOLVABLE_URI_CACHE_CAPACITY <code>DEFAULT_UNRESOLVABLE_URI_CACHE_CAPACITY</code>} 
+     * and {@link #DEFAULT_UNRESOLVABLE_URI_CACHE_TIME_TO_LIVE <code>DEFAULT_UNRESOLVABLE_URI_CACHE_TIME_TO_LIVE</code>}.
+     * @param ToolUriPrefix - The URI prefix of the tool
+     * @param apiClassAndAttributeList - The list of classes and attributes of the API
+     * @param instanceCache - The cache for instances resolved by URI
+     */
+    public ApiHelper(String ToolUriPrefix, ApiClassAndAttributeList apiClassAndAttributeList, BoundedCache<String, ApiInstance> instanceCache) {
+        this(ToolUriPrefix, apiClassAndAttributeList, instanceCache, BoundedCache.<String, Boolean>disabled());
+    }
+
+    /**
+     * Creates the helper with a specific instance cache and cache of unresolvable instance URIs. 
+     * Pass {@link BoundedCache#disabled() <code>BoundedCache.disabled()</code>} to disable either cache.
+     * @param ToolUriPrefix - The URI prefix of the tool
+     * @param apiClassAndAttributeList - The list of classes and attributes of the API
+     * @param instanceCache - The cache for instances resolved by URI
+     * @param unresolvableUriCache - The cache for instance URIs, that could not be resolved
+     */
+    public ApiHelper(String ToolUriPrefix, ApiClassAndAttributeList apiClassAndAttributeList, 
+            BoundedCache<String, ApiInstance> instanceCache, BoundedCache<String, Boolean> unresolvableUriCache) {
+        if ( instanceCache == null ) { throw new IllegalArgumentException("instance cache can't be null"); }
+        if ( unresolvableUriCache == null ) { throw new IllegalArgumentException("unresolvable uri cache can't be null"); }
+        this.instanceCache = instanceCache;
+        this.unresolvableUriCache = unresolvableUriCache;
         // get class list 
         this.classList = apiClassAndAttributeList.getClassList();
+        // assign dense ordinals to all data types and classes, so that sets of types can be stored as bit sets
+        // data types are shared between APIs and therefore always get the same, first ordinals
+        int ordinal = 0;
+        for (ApiDataType apiDataType: this.dataTypeList) { apiDataType.setOrdinal(ordinal++); }
+        for (ApiClass apiClass: this.classList) { apiClass.setOrdinal(ordinal++); }
         // create class hierarchy
         this.classList.forEach((ApiClass apiClass) -> apiClass.determineSubclasses(this.classList));
         this.classList.forEach((ApiClass apiClass) -> apiClass.determineIndirectSubAndSuperclasses());
@@ -43,6 +147,16 @@ public abstract class ApiHelper {
         this.topClassList = this.classList.stream().filter(
             (ApiClass apiClass) -> (apiClass.getDirectSuperclasses().isEmpty()))
             .collect(Collectors.toList());
+        // for each class, determine the first top class (in order of the top class list) it is an indirect subclass of
+        // so that instances of classes with several top classes are streamed only once
+        Map<ApiClass, ApiClass> owningTopClasses = new HashMap<ApiClass, ApiClass>();
+        for (ApiClass apiClass : this.classList) {
+            List<ApiClass> superclassesAndSelf = apiClass.getIndirectSuperclassesAndSelf();
+            for (ApiClass topClass : this.topClassList) {
+                if ( superclassesAndSelf.contains(topClass) ) { owningTopClasses.put(apiClass, topClass); break; }
+            }
+        }
+        this.owningTopClassByClass = Map.copyOf(owningTopClasses);
         // get attribute list
         this.attributeList = apiClassAndAttributeList.getAttributeList();
         // determine indirect source and target types for all attributes
@@ -50,6 +164,26 @@ public abstract class ApiHelper {
         // add source and target attributes for all classes and data types
         this.classList.forEach((ApiClass apiClass) -> apiClass.determineTargetAndSourceAttributes(this.attributeList));
         this.dataTypeList.forEach((ApiDataType apiDataType) -> apiDataType.determineTargetAndSourceAttributes(this.attributeList));
+        // create map of all nodes identifiable by URI, that are not instances
+        // first occurrence of an URI wins, in the same order as the former search (rdfs nodes, data types, classes, attributes)
+        Map<String, UriNode> schemaNodes = new HashMap<String, UriNode>();
+        RdfsHelper.ALL_RDFS_NODES.forEach((RdfsNode rdfsNode) -> schemaNodes.putIfAbsent(rdfsNode.getUri(), rdfsNode));
+        this.dataTypeList.forEach((ApiDataType apiDataType) -> schemaNodes.putIfAbsent(apiDataType.getUri(), apiDataType));
+        this.classList.forEach((ApiClass apiClass) -> schemaNodes.putIfAbsent(apiClass.getUri(), apiClass));
+        this.attributeList.forEach((ApiAttribute apiAttribute) -> schemaNodes.putIfAbsent(apiAttribute.getUri(), apiAttribute));
+        this.schemaNodesByUri = Map.copyOf(schemaNodes);
+        // get URI prefix of instances
+        this.instanceUriPrefix = apiClassAndAttributeList.getInstanceUriPrefix();
+        // create map of classes by the local name of their URI, leaving out local names shared by several classes
+        Map<String, ApiClass> classesByName = new HashMap<String, ApiClass>();
+        Set<String> ambiguousNames = new HashSet<String>();
+        for (ApiClass apiClass : this.classList) {
+            String classUri = apiClass.getUri();
+            String localName = classUri.substring(Math.max(classUri.lastIndexOf('/'), classUri.lastIndexOf('#')) + 1);
+            if ( classesByName.putIfAbsent(localName, apiClass) != null ) { ambiguousNames.add(localName); }
+        }
+        classesByName.keySet().removeAll(ambiguousNames);
+        this.classesByLocalName = Map.copyOf(classesByName);
     }
 
     /**
@@ -73,15 +207,42 @@ public abstract class ApiHelper {
      * Used by TT10 and TT11.
      */
     public List<ApiInstance> getAllInstances() {
-        // init
         List<ApiInstance> allInstances = new ArrayList<ApiInstance>();
-        // get all instances of all top classes
-        for (ApiClass apiClass : this.topClassList) {
-            List<ApiInstance> instances = apiClass.getImplementingInstances();
-            if (instances != null) { allInstances.addAll(instances); }
-        }
+        this.streamAllInstances().forEachOrdered(allInstances::add);
         if (allInstances.isEmpty()) { return null; }
-        return allInstances.stream().distinct().collect(Collectors.toList());
+        return allInstances;
+    }
+
+    /**
+     * <p>
+     * Returns a lazy stream of all instances of the API, in the same order as {@link #getAllInstances() <code>getAllInstances()</code>}.
+     * Used by TT10 and TT11 to count their triples.
+     * </p>
+     * <p>
+     * The instances of all top classes are streamed one after another. 
+     * Instead of removing duplicates, which would require to keep all instances in memory, 
+     * an instance is only returned by the first top class of its actual class (see {@link #getApiClassOfObject(Object) <code>getApiClassOfObject(Object)</code>}).
+     * The direct type of the instance enumerated by a top class can't be used for this, 
+     * as it is the enumerating top class itself if the top class includes indirect instances.
+     * Such instances are converted to instances of their actual class, 
+     * so the streamed instances have the same direct type as instances resolved by their URI.
+     * </p>
+     */
+    public Stream<ApiInstance> streamAllInstances() {
+        return this.topClassList.stream().flatMap((ApiClass topClass) -> topClass.streamImplementingInstances()
+            .map(this::convertToActualClass)
+            .filter((ApiInstance apiInstance) -> topClass.equals(this.owningTopClassByClass.get(apiInstance.getDirectType()))));
+    }
+
+    /**
+     * Returns an instance of the actual class of the object of the given instance, 
+     * or the given instance, if its direct type is the actual class or the class of its object can't be determined.
+     * @param apiInstance - The instance
+     */
+    private ApiInstance convertToActualClass(ApiInstance apiInstance) {
+        ApiClass apiClass = this.getApiClassOfObject(apiInstance.getEntityAsObject());
+        if ( apiClass == null || apiClass.equals(apiInstance.getDirectType()) ) { return apiInstance; }
+        return apiClass.convertObjectToApiEntity(apiInstance.getEntityAsObject());
     }
     
     /**
@@ -90,6 +251,8 @@ public abstract class ApiHelper {
      * </p>
      * <p>
      * This methods searches for the given URI in the list of RDFS/RDFS Nodes and all elements of the API identifiable by an URI.
+     * RDF/RDFS nodes, data types, classes and attributes are looked up in a map created by the constructor.
+     * URIs not starting with the URI prefix of instances are rejected without calling the API.
      * It therefore returns an instance of the following subclasses:
      * <ul>
      * <li>{@link com.vmax.vmax_core.graph.RdfsNode <code>RdfsNode</code>}</li>
@@ -105,35 +268,307 @@ public abstract class ApiHelper {
      * @param uri - The URI to search for
      */
     public UriNode getNodeByUri(String uri) {
-        // search for uri in rdfs nodes
-        RdfsNode foundRdfsNode = RdfsHelper.getRdfsNodeByUri(uri);
-        if (foundRdfsNode != null) { return foundRdfsNode; }
-        // search for uri in data types
-        ApiDataType foundApiDataType = this.dataTypeList.stream().filter(
-            (ApiDataType apiDataType) -> (apiDataType.getUri().equals(uri)))
-            .findFirst().orElse(null);
-        if (foundApiDataType != null) { return foundApiDataType; }
-        // search for uri in classes
-        ApiClass foundApiClass = this.classList.stream().filter(
-            (ApiClass apiClass ) -> (apiClass.getUri().equals(uri)))
-            .findFirst().orElse(null);
-        if (foundApiClass != null) { return foundApiClass; }
-        // search for uri in attributes
-        ApiAttribute foundApiAttribute = this.attributeList.stream().filter(
-            (ApiAttribute apiAttribute) -> (apiAttribute.getUri().equals(uri)))
-            .findFirst().orElse(null);
-        if (foundApiAttribute != null) { return foundApiAttribute; }
+        if ( uri == null ) { return null; }
+        // search for uri in rdfs nodes, data types, classes and attributes
+        UriNode foundSchemaNode = this.schemaNodesByUri.get(uri);
+        if (foundSchemaNode != null) { return foundSchemaNode; }
+        // reject uri without calling the api, if it cannot be the uri of an instance
+        if ( !this.isPossibleInstanceUri(uri) ) { return null; }
+        // search for uri in instance cache
+        ApiInstance cachedInstance = this.instanceCache.get(uri);
+        if (cachedInstance != null) { return cachedInstance; }
+        // reject uri without calling the api, if it could not be resolved recently
+        if ( this.unresolvableUriCache.get(uri) != null ) { return null; }
+        // remember the model version, so that uris are not cached as unresolvable if the model changed during the lookup
+        long versionBeforeLookup = this.modelVersion.get();
+        // if enabled, decode the uri and reject it without calling the api, if it cannot be decoded
+        DecodedInstanceUri decodedUri = null;
+        if ( this.instanceUriDecodingEnabled() ) {
+            try { decodedUri = this.decodeInstanceUri(uri); }
+            catch (Exception e) { return this.rejectUnresolvableUri(uri, versionBeforeLookup); }
+            if ( decodedUri == null ) { return this.rejectUnresolvableUri(uri, versionBeforeLookup); }
+        }
         // try to get instance by uri
-        // try to get instance as object from api, reuturn null on exception
+        // try to get instance as object from api, reuturn null if not found or on exception
+        // if the decoded uri contains an id and its class supports it, the instance is looked up by the class instead
         Object uncheckedObject;
-        try { uncheckedObject = this.findApiInstanceAsObjectByUri(uri); } 
-        catch (Exception e) { return null; }
+        try { 
+            if ( decodedUri != null && decodedUri.getInstanceId() != null && decodedUri.getApiClass().isInstanceLookupByIdSupported() ) {
+                uncheckedObject = decodedUri.getApiClass().findImplementingInstanceAsObjectById(decodedUri.getInstanceId());
+            } else {
+                uncheckedObject = this.findApiInstanceAsObjectByUriOrNull(uri); 
+            }
+        } catch (Exception e) { return this.rejectUnresolvableUri(uri, versionBeforeLookup); }
         // get the matching api class of the object by calling the tool specific method
         ApiClass matchingApiClass = this.getApiClassOfObject(uncheckedObject);
         // if no matching class found, return null 
-        if (matchingApiClass == null) { return null; }
-        // else, return instance
-        return matchingApiClass.convertObjectToApiEntity(uncheckedObject); 
+        if (matchingApiClass == null) { return this.rejectUnresolvableUri(uri, versionBeforeLookup); }
+        // if the uri was decoded, the object has to directly implement the decoded class, 
+        // otherwise the uri of the instance would differ from the given uri
+        if ( decodedUri != null && !matchingApiClass.equals(decodedUri.getApiClass()) ) { return this.rejectUnresolvableUri(uri, versionBeforeLookup); }
+        // else, cache and return instance
+        ApiInstance foundApiInstance = matchingApiClass.convertObjectToApiEntity(uncheckedObject); 
+        this.instanceCache.put(uri, foundApiInstance);
+        return foundApiInstance;
+    }
+
+    /**
+     * Caches the given URI as unresolvable and returns <code>null</code>.
+     * The URI is not cached, if the model version changed since the lookup started, as the instance may have been created meanwhile.
+     * @param uri - The URI that could not be resolved
+     * @param versionBeforeLookup - The model version before the lookup started
+     */
+    private UriNode rejectUnresolvableUri(String uri, long versionBeforeLookup) {
+        if ( this.modelVersion.get() == versionBeforeLookup ) { this.unresolvableUriCache.put(uri, Boolean.TRUE); }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Returns a boolean indicating whether instance URIs are decoded by 
+     * {@link #decodeInstanceUri(String) <code>decodeInstanceUri(String)</code>} 
+     * before the API is called by {@link #getNodeByUri(String) <code>getNodeByUri(String)</code>}.
+     * Returns <code>false</code> by default.
+     * </p>
+     * <p>
+     * If enabled, URIs that cannot be decoded are rejected without calling the API.
+     * </p>
+     */
+    protected boolean instanceUriDecodingEnabled() {
+        return false;
+    }
+
+    /**
+     * <p>
+     * Decodes an instance URI into the {@link com.vmax.vmax_core.api_elements.ApiClass <code>ApiClass</code>} 
+     * that the instance directly implements and optionally an ID of the instance.
+     * Returns <code>null</code> if the URI is not a valid instance URI.
+     * </p>
+     * <p>
+     * This method can be implemented by the tool specific implementation, if the class of an instance can be read from its URI,
+     * together with {@link #instanceUriDecodingEnabled() <code>instanceUriDecodingEnabled()</code>}.
+     * If the ID is returned and the class supports it, the instance is looked up by 
+     * {@link com.vmax.vmax_core.api_elements.ApiClass#findImplementingInstanceAsObjectById(String) <code>ApiClass.findImplementingInstanceAsObjectById(String)</code>}
+     * instead of {@link #findApiInstanceAsObjectByUri(String) <code>findApiInstanceAsObjectByUri(String)</code>}.
+     * For URIs of the form <code>instanceUriPrefix + classId + "/" + localId</code>, 
+     * the implementation can return {@link #decodeClassIdAndLocalId(String) <code>decodeClassIdAndLocalId(String)</code>}.
+     * The default implementation returns <code>null</code>.
+     * </p>
+     * @param uri - The URI starting with the URI prefix of instances
+     */
+    protected DecodedInstanceUri decodeInstanceUri(String uri) {
+        return null;
+    }
+
+    /**
+     * <p>
+     * Decodes an instance URI of the form <code>instanceUriPrefix + classId + "/" + localId</code>.
+     * The class ID is the local name of the class URI, i.e. the part after its last <code>/</code> or <code>#</code>.
+     * </p>
+     * <p>
+     * Returns <code>null</code> if the URI does not start with the URI prefix of instances,
+     * if the class ID is not the local name of exactly one class or if the local ID is empty.
+     * </p>
+     * @param uri - The URI to decode
+     */
+    protected DecodedInstanceUri decodeClassIdAndLocalId(String uri) {
+        if ( uri == null || this.instanceUriPrefix == null || !uri.startsWith(this.instanceUriPrefix) ) { return null; }
+        int separatorIndex = uri.indexOf('/', this.instanceUriPrefix.length());
+        if ( separatorIndex < 0 || separatorIndex == uri.length() - 1 ) { return null; }
+        ApiClass apiClass = this.classesByLocalName.get(uri.substring(this.instanceUriPrefix.length(), separatorIndex));
+        if ( apiClass == null ) { return null; }
+        return new DecodedInstanceUri(apiClass, uri.substring(separatorIndex + 1));
+    }
+
+    /**
+     * Removes the instance with the given URI from the instance cache.
+     * Should be called by the tool specific implementation if the instance was changed or deleted.
+     * @param uri - The URI of the instance
+     */
+    public void invalidateInstance(String uri) {
+        this.instanceCache.invalidate(uri);
+    }
+
+    /**
+     * Removes all instances from the instance cache.
+     * Should be called by the tool specific implementation if the model of the tool was changed.
+     */
+    public void invalidateAllInstances() {
+        this.instanceCache.invalidateAll();
+    }
+
+    /**
+     * Removes all URIs from the cache of unresolvable instance URIs, so that they are looked up again.
+     * Creations of instances reported by {@link #notifyInstanceCreated(Object) <code>notifyInstanceCreated(Object)</code>} 
+     * and changes of the model reported by {@link #notifyModelChanged() <code>notifyModelChanged()</code>} are handled automatically.
+     */
+    public void invalidateUnresolvableUris() {
+        this.unresolvableUriCache.invalidateAll();
+    }
+
+    /**
+     * Enables or disables the reverse indexes of all attributes
+     * (see {@link com.vmax.vmax_core.api_elements.ApiAttribute#setReverseIndexEnabled(boolean) <code>ApiAttribute.setReverseIndexEnabled(boolean)</code>}).
+     * If enabled, the tool specific implementation has to call {@link #invalidateModel() <code>invalidateModel()</code>} when the model of the tool changes.
+     * @param reverseIndexEnabled - <code>true</code> to enable the reverse indexes
+     */
+    public void setReverseAttributeIndexesEnabled(boolean reverseIndexEnabled) {
+        this.attributeList.forEach((ApiAttribute apiAttribute) -> apiAttribute.setReverseIndexEnabled(reverseIndexEnabled));
+    }
+
+    /**
+     * Removes all instances from the instance cache and discards the reverse indexes of all attributes.
+     * Should be called by the tool specific implementation if the model of the tool was changed.
+     * Equivalent to {@link #notifyModelChanged() <code>notifyModelChanged()</code>}, so all model change listeners are notified as well.
+     */
+    public void invalidateModel() {
+        this.notifyModelChanged();
+    }
+
+    /**
+     * Returns the version of the model, which is incremented for each reported change of the model.
+     */
+    public long getModelVersion() {
+        return this.modelVersion.get();
+    }
+
+    /**
+     * Registers a listener, that is notified of all changes of the model reported by the tool specific implementation.
+     * @param modelChangeListener - The listener to register
+     */
+    public void addModelChangeListener(ModelChangeListener modelChangeListener) {
+        if ( modelChangeListener == null ) { throw new IllegalArgumentException("model change listener can't be null"); }
+        this.modelChangeListeners.add(modelChangeListener);
+    }
+
+    /**
+     * Removes a listener registered by {@link #addModelChangeListener(ModelChangeListener) <code>addModelChangeListener(ModelChangeListener)</code>}.
+     * @param modelChangeListener - The listener to remove
+     */
+    public void removeModelChangeListener(ModelChangeListener modelChangeListener) {
+        this.modelChangeListeners.remove(modelChangeListener);
+    }
+
+    /**
+     * Reports that the given object was created as an instance of the API.
+     * Should be called by the tool specific implementation after the instance was created.
+     * Returns the new model version.
+     * @param object - The created object
+     */
+    public long notifyInstanceCreated(Object object) {
+        return this.fireModelChange(ModelChangeType.INSTANCE_CREATED, this.convertObjectToApiInstance(object), null);
+    }
+
+    /**
+     * Reports that the given instance of the API was deleted.
+     * Should be called by the tool specific implementation after the instance was deleted.
+     * As the deleted object can't be converted anymore, the instance has to be captured before the deletion,
+     * e.g. by {@link #getNodeByUri(String) <code>getNodeByUri(String)</code>}.
+     * Changes of the attribute values of instances, that referenced the deleted instance, should be reported separately.
+     * Returns the new model version.
+     * @param deletedApiInstance - The deleted instance, captured before the deletion
+     */
+    public long notifyInstanceDeleted(ApiInstance deletedApiInstance) {
+        if ( deletedApiInstance == null ) { throw new IllegalArgumentException("deleted instance can't be null"); }
+        return this.fireModelChange(ModelChangeType.INSTANCE_DELETED, deletedApiInstance, null);
+    }
+
+    /**
+     * Reports that the value(s) of the given attribute of the given instance of the API changed.
+     * Should be called by the tool specific implementation after the value(s) were changed.
+     * Returns the new model version.
+     * @param object - The object whose attribute value(s) changed
+     * @param apiAttribute - The changed attribute
+     */
+    public long notifyAttributeValueChanged(Object object, ApiAttribute apiAttribute) {
+        if ( apiAttribute == null ) { throw new IllegalArgumentException("changed attribute can't be null"); }
+        return this.fireModelChange(ModelChangeType.ATTRIBUTE_VALUE_CHANGED, this.convertObjectToApiInstance(object), apiAttribute);
+    }
+
+    /**
+     * Reports that any part of the model may have changed, e.g. after loading another model into the tool.
+     * Removes all instances from the instance cache and discards the reverse indexes of all attributes.
+     * Returns the new model version.
+     */
+    public long notifyModelChanged() {
+        return this.fireModelChange(ModelChangeType.MODEL_CHANGED, null, null);
+    }
+
+    /**
+     * Increments the model version, evicts the entries of the instance cache and the reverse attribute indexes affected by the change
+     * and notifies all model change listeners.
+     * Returns the new model version.
+     */
+    private long fireModelChange(ModelChangeType modelChangeType, ApiInstance apiInstance, ApiAttribute apiAttribute) {
+        long version = this.modelVersion.incrementAndGet();
+        ModelChangeEvent modelChangeEvent = new ModelChangeEvent(modelChangeType, version, apiInstance, apiAttribute);
+        switch (modelChangeType) {
+            case INSTANCE_CREATED:
+                // the uri of the new instance can be resolved now
+                this.unresolvableUriCache.invalidate(apiInstance.getUri());
+                // the attribute values of the new instance extend the reverse indexes of attributes with its class as source
+                this.attributeList.stream()
+                    .filter((ApiAttribute attribute) -> attribute.isIndirectSourceClass(apiInstance.getDirectType()))
+                    .forEach((ApiAttribute attribute) -> attribute.invalidateReverseIndex());
+                break;
+            case INSTANCE_DELETED:
+                // the deleted instance may be contained in reverse indexes of attributes with its class as source or target
+                this.invalidateInstance(apiInstance.getUri());
+                this.attributeList.stream()
+                    .filter((ApiAttribute attribute) -> attribute.isIndirectSourceClass(apiInstance.getDirectType())
+                        || attribute.isIndirectTargetType(apiInstance.getDirectType()))
+                    .forEach((ApiAttribute attribute) -> attribute.invalidateReverseIndex());
+                break;
+            case ATTRIBUTE_VALUE_CHANGED:
+                // cached instances don't hold attribute values, so only the reverse index of the attribute is affected
+                apiAttribute.invalidateReverseIndex();
+                break;
+            case MODEL_CHANGED:
+                this.invalidateAllInstances();
+                this.invalidateUnresolvableUris();
+                this.attributeList.forEach((ApiAttribute attribute) -> attribute.invalidateReverseIndex());
+                break;
+        }
+        for (ModelChangeListener modelChangeListener: this.modelChangeListeners) {
+            modelChangeListener.modelChanged(modelChangeEvent);
+        }
+        return version;
+    }
+
+    /**
+     * Converts an object of the tool to an instance of its API class.
+     * Throws an {@link java.lang.IllegalArgumentException <code>IllegalArgumentException</code>} if the object is not an instance of any class of the API.
+     * @param object - The object to convert
+     */
+    private ApiInstance convertObjectToApiInstance(Object object) {
+        if ( object == null ) { throw new IllegalArgumentException("changed object can't be null"); }
+        ApiClass apiClass = this.getApiClassOfObject(object);
+        if ( apiClass == null ) { throw new IllegalArgumentException("object of type " + object.getClass().getName() + " is not an instance of any class of the api"); }
+        return apiClass.convertObjectToApiEntity(object);
+    }
+
+    /**
+     * Returns the instance cache, e.g. to read the hit, miss and eviction counters.
+     */
+    public BoundedCache<String, ApiInstance> getInstanceCache() {
+        return this.instanceCache;
+    }
+
+    /**
+     * Returns the cache of unresolvable instance URIs, e.g. to read the hit, miss and eviction counters.
+     */
+    public BoundedCache<String, Boolean> getUnresolvableUriCache() {
+        return this.unresolvableUriCache;
+    }
+        
+    /**
+     * Returns <code>true</code> if the given URI starts with the URI prefix of instances,
+     * or if no URI prefix of instances is configured.
+     * @param uri - The URI to check
+     */
+    protected boolean isPossibleInstanceUri(String uri) {
+        if ( this.instanceUriPrefix == null || this.instanceUriPrefix.isEmpty() ) { return true; }
+        return uri.startsWith(this.instanceUriPrefix);
     }
         
     /**
@@ -144,30 +579,71 @@ public abstract class ApiHelper {
      * Returns <code>null</code> if no matching class is found.
      * </p>
      * <p>
-     * The method first finds all classes that the {@link java.lang.Object <code>Object</code>} is an instance of.
-     * It then returns the class with the lowest number of subclasses, 
-     * as this is the "lowest" class in the hierarchy of all previously found classes.
+     * The class only depends on the runtime class of the {@link java.lang.Object <code>Object</code>}, 
+     * so it is determined once per runtime class by {@link #determineApiClassOfRuntimeClass(Class) <code>determineApiClassOfRuntimeClass(Class)</code>}
+     * and then looked up in {@link #apiClassByRuntimeClass <code>apiClassByRuntimeClass</code>}.
      * </p>
      * @param object - The {@link java.lang.Object <code>Object</code>} to find the {@link com.vmax.vmax_core.api_elements.ApiClass <code>ApiClass</code>} of
      */
     private ApiClass getApiClassOfObject(Object object){
+        if ( object == null ) { return null; }
+        return this.apiClassByRuntimeClass.get(object.getClass());
+    };
+
+    /**
+     * <p> 
+     * Determines the {@link com.vmax.vmax_core.api_elements.ApiClass <code>ApiClass</code>} of all objects of a runtime class.
+     * </p>
+     * <p>
+     * Returns <code>null</code> if no matching class is found.
+     * </p>
+     * <p>
+     * The method first finds all classes whose associated class or interface is assignable from the runtime class.
+     * It then returns the class with the lowest number of subclasses, 
+     * as this is the "lowest" class in the hierarchy of all previously found classes.
+     * If the runtime class implements associated interfaces of several classes, that are not subclasses of each other,
+     * the first of these classes in the class list with the lowest number of subclasses is returned.
+     * </p>
+     * @param runtimeClass - The runtime class of the objects
+     */
+    private ApiClass determineApiClassOfRuntimeClass(Class<?> runtimeClass){
         // first, get all matching classes
         List<ApiClass> matchingClasses = this.classList.stream().filter(
             (ApiClass apiClass) -> 
-            (apiClass.getAssociatedClass().isInstance(object)))
+            (apiClass.getAssociatedClass().isAssignableFrom(runtimeClass)))
             .collect(Collectors.toList());
         // find lowest class in the hierarch as all higher classes contain the lower classes as subclasses,
         ApiClass matchingClass = matchingClasses.stream()
             .min(Comparator.comparingInt((ApiClass apiClass) -> apiClass.getIndirectSubclasses().size()))
             .orElse(null);
         return matchingClass;
-    };
+    }
 
     /**
      * Abstract method that returns an instance as an {@link java.lang.Object <code>Object</code>} from the api based on an URI.
      * This method needs to be implemented by the specific addon.
+     * Any exception thrown by this method is treated as "not found".
      * @param uri - The URI of the instance
      */
     protected abstract Object findApiInstanceAsObjectByUri(String uri);
 
+    /**
+     * <p>
+     * Returns an instance as an {@link java.lang.Object <code>Object</code>} from the api based on an URI,
+     * or <code>null</code> if the api has no instance with this URI.
+     * </p>
+     * <p>
+     * This is the method called by {@link #getNodeByUri(String) <code>getNodeByUri(String)</code>}.
+     * The default implementation calls {@link #findApiInstanceAsObjectByUri(String) <code>findApiInstanceAsObjectByUri(String)</code>}
+     * and returns <code>null</code> on exception.
+     * It should be overridden by specific addons, whose api can look up an instance without throwing an exception if it is not found,
+     * as throwing and catching an exception for each unknown URI (e.g. URIs of other ontologies in federated queries) is expensive.
+     * </p>
+     * @param uri - The URI of the instance
+     */
+    protected Object findApiInstanceAsObjectByUriOrNull(String uri) {
+        try { return this.findApiInstanceAsObjectByUri(uri); } 
+        catch (Exception e) { return null; }
+    }
+
 }
@@ -0,0 +1,290 @@
+package com.vmax.vmax_core.api_helper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * <p>
+ * Class for a concurrent, size-bounded cache.
+ * </p>
+ * <p>
+ * The cache is split into segments, which are locked independently, so that concurrent requests rarely block each other.
+ * If a segment exceeds its share of the capacity, entries are evicted according to the
+ * {@link com.vmax.vmax_core.api_helper.CacheEvictionPolicy <code>CacheEvictionPolicy</code>}:
+ * <ul>
+ * <li>{@link CacheEvictionPolicy#LRU <code>LRU</code>} evicts the least recently used entry of the segment.</li>
+ * <li>{@link CacheEvictionPolicy#LFU <code>LFU</code>} evicts the least frequently used entry
+ * of a small sample of the oldest entries of the segment and halves the frequencies of the other sampled entries,
+ * so that entries which were used frequently a long time ago can be evicted eventually.</li>
+ * </ul>
+ * Entries expire after the time to live, if a positive time to live is given.
+ * A cache with a capacity of <code>0</code> is disabled and does not store any entries.
+ * </p>
+ * <p>
+ * Hits, misses and evictions (including expired entries) are counted and can be used for monitoring.
+ * </p>
+ * @param <K> - The type of the keys
+ * @param <V> - The type of the values
+ */
+public class BoundedCache<K, V> {
+
+    /** maximum number of segments */
+    private static final int MAX_SEGMENTS = 16;
+    /** number of entries sampled for an eviction with policy LFU */
+    private static final int LFU_SAMPLE_SIZE = 8;
+
+    private final int capacity;
+    private final long timeToLiveNanos;
+    private final CacheEvictionPolicy evictionPolicy;
+    private final List<Segment> segments;
+    // counters for monitoring
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates a new cache.
+     * @param capacity - The maximum number of entries, <code>0</code> disables the cache
+     * @param timeToLive - The time after which entries expire, <code>null</code> or a non-positive duration for no expiry
+     * @param evictionPolicy - The eviction policy
+     */
+    public BoundedCache(int capacity, Duration timeToLive, CacheEvictionPolicy evictionPolicy) {
+        if ( capacity < 0 ) { throw new IllegalArgumentException("capacity of a cache can't be negative"); }
+        if ( evictionPolicy == null ) { throw new IllegalArgumentException("eviction policy of a cache can't be null"); }
+        this.capacity = capacity;
+        this.timeToLiveNanos = ( timeToLive == null || timeToLive.isNegative() || timeToLive.isZero() )
+            ? Long.MAX_VALUE : timeToLive.toNanos();
+        this.evictionPolicy = evictionPolicy;
+        // use a power of two as number of segments, but do not use more segments than entries
+        int segmentCount = 1;
+        while ( segmentCount < MAX_SEGMENTS && segmentCount * 2 <= capacity ) { segmentCount *= 2; }
+        List<Segment> segmentList = new ArrayList<Segment>(segmentCount);
+        // distribute capacity over segments, so that the sum of all segment capacities equals the capacity
+        for (int i = 0; i < segmentCount; i++) { 
+            int segmentCapacity = capacity / segmentCount + ( i < capacity % segmentCount ? 1 : 0 );
+            segmentList.add(new Segment(segmentCapacity)); 
+        }
+        this.segments = List.copyOf(segmentList);
+    }
+
+    /**
+     * Returns a disabled cache, that does not store any entries.
+     */
+    public static <K, V> BoundedCache<K, V> disabled() {
+        return new BoundedCache<K, V>(0, null, CacheEvictionPolicy.LRU);
+    }
+
+    /**
+     * Returns <code>true</code> if the cache can store entries, i.e. its capacity is greater than <code>0</code>.
+     */
+    public boolean isEnabled() {
+        return this.capacity > 0;
+    }
+
+    /**
+     * Returns the cached value for the given key or <code>null</code> if no (unexpired) value is cached.
+     * @param key - The key to look up
+     */
+    public V get(K key) {
+        if ( !this.isEnabled() || key == null ) { return null; }
+        V value = this.getSegment(key).get(key, System.nanoTime());
+        if ( value == null ) { this.missCount.increment(); }
+        else { this.hitCount.increment(); }
+        return value;
+    }
+
+    /**
+     * Caches the given value for the given key.
+     * <code>null</code> keys and values are ignored.
+     * @param key - The key
+     * @param value - The value to cache
+     */
+    public void put(K key, V value) {
+        if ( !this.isEnabled() || key == null || value == null ) { return; }
+        this.getSegment(key).put(key, value, System.nanoTime());
+    }
+
+    /**
+     * Removes the cached value for the given key.
+     * @param key - The key to remove
+     */
+    public void invalidate(K key) {
+        if ( !this.isEnabled() || key == null ) { return; }
+        this.getSegment(key).remove(key);
+    }
+
+    /**
+     * Removes all cached values, for which the given predicate returns <code>true</code>.
+     * @param predicate - The predicate to test keys and values with
+     */
+    public void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        for (Segment segment: this.segments) { segment.removeIf(predicate); }
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void invalidateAll() {
+        for (Segment segment: this.segments) { segment.clear(); }
+    }
+
+    /**
+     * Returns the number of cached entries, including entries that have expired but not been removed yet.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment: this.segments) { size += segment.size(); }
+        return size;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public CacheEvictionPolicy getEvictionPolicy() {
+        return this.evictionPolicy;
+    }
+
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "[cache: " + this.size() + "/" + this.capacity + " entries, "
+            + this.getHitCount() + " hits, " + this.getMissCount() + " misses, " + this.getEvictionCount() + " evictions]";
+    }
+
+    /**
+     * Returns the segment responsible for the given key.
+     * @param key - The key
+     */
+    private Segment getSegment(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return this.segments.get(hash & (this.segments.size() - 1));
+    }
+
+    /**
+     * Entry of the cache, holding the value, the expiry time and the usage frequency.
+     */
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiryNanos;
+        private int frequency = 1;
+
+        private Entry(V value, long expiryNanos) {
+            this.value = value;
+            this.expiryNanos = expiryNanos;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return nowNanos - this.expiryNanos >= 0;
+        }
+
+    }
+
+    /**
+     * Segment of the cache, i.e. a linked hash map guarded by its own lock.
+     * With policy LRU the map is kept in access order, otherwise in insertion order.
+     */
+    private final class Segment {
+
+        private final int segmentCapacity;
+        private final LinkedHashMap<K, Entry<V>> map;
+
+        private Segment(int segmentCapacity) {
+            this.segmentCapacity = segmentCapacity;
+            boolean accessOrder = BoundedCache.this.evictionPolicy.equals(CacheEvictionPolicy.LRU);
+            this.map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, accessOrder);
+        }
+
+        private synchronized V get(K key, long nowNanos) {
+            Entry<V> entry = this.map.get(key);
+            if ( entry == null ) { return null; }
+            // remove expired entry
+            if ( entry.isExpired(nowNanos) ) {
+                this.map.remove(key);
+                BoundedCache.this.evictionCount.increment();
+                return null;
+            }
+            if ( entry.frequency < Integer.MAX_VALUE ) { entry.frequency++; }
+            return entry.value;
+        }
+
+        private synchronized void put(K key, V value, long nowNanos) {
+            // comparisons of nano times are overflow safe, so a time to live of Long.MAX_VALUE never expires in practice
+            this.map.put(key, new Entry<V>(value, nowNanos + BoundedCache.this.timeToLiveNanos));
+            while ( this.map.size() > this.segmentCapacity ) { this.evict(nowNanos); }
+        }
+
+        private synchronized void remove(K key) {
+            this.map.remove(key);
+        }
+
+        private synchronized void removeIf(BiPredicate<? super K, ? super V> predicate) {
+            this.map.entrySet().removeIf((Map.Entry<K, Entry<V>> mapEntry) ->
+                predicate.test(mapEntry.getKey(), mapEntry.getValue().value));
+        }
+
+        private synchronized void clear() {
+            this.map.clear();
+        }
+
+        private synchronized int size() {
+            return this.map.size();
+        }
+
+        /**
+         * Evicts a single entry according to the eviction policy.
+         * Expired entries found on the way are evicted first.
+         */
+        private void evict(long nowNanos) {
+            Iterator<Map.Entry<K, Entry<V>>> iterator = this.map.entrySet().iterator();
+            // LRU: eldest entry of the access ordered map is the least recently used one
+            if ( BoundedCache.this.evictionPolicy.equals(CacheEvictionPolicy.LRU) ) {
+                iterator.next();
+                iterator.remove();
+                BoundedCache.this.evictionCount.increment();
+                return;
+            }
+            // LFU: evict least frequently used entry of a sample of the oldest entries
+            K leastFrequentKey = null;
+            int leastFrequency = Integer.MAX_VALUE;
+            for (int i = 0; i < LFU_SAMPLE_SIZE && iterator.hasNext(); i++) {
+                Map.Entry<K, Entry<V>> mapEntry = iterator.next();
+                Entry<V> entry = mapEntry.getValue();
+                if ( entry.isExpired(nowNanos) ) {
+                    iterator.remove();
+                    BoundedCache.this.evictionCount.increment();
+                    return;
+                }
+                if ( entry.frequency < leastFrequency ) {
+                    leastFrequency = entry.frequency;
+                    leastFrequentKey = mapEntry.getKey();
+                }
+                // age frequencies of sampled entries
+                entry.frequency = Math.max(1, entry.frequency / 2);
+            }
+            this.map.remove(leastFrequentKey);
+            BoundedCache.this.evictionCount.increment();
+        }
+
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.vmax.vmax_core.api_helper;
+
+/**
+ * Enum for the eviction policies of a {@link com.vmax.vmax_core.api_helper.BoundedCache <code>BoundedCache</code>}.
+ */
+public enum CacheEvictionPolicy {
+
+    // options
+    /** Least recently used entries are evicted first */
+    LRU,
+    /** Least frequently used entries are evicted first */
+    LFU;
+
+}
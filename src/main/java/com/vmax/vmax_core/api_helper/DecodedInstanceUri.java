@@ -0,0 +1,46 @@
+package com.vmax.vmax_core.api_helper;
+
+import com.vmax.vmax_core.api_elements.ApiClass;
+
+/**
+ * <p>
+ * Class for the parts of an instance URI, as decoded by 
+ * {@link com.vmax.vmax_core.api_helper.ApiHelper#decodeInstanceUri(String) <code>ApiHelper.decodeInstanceUri(String)</code>}.
+ * </p>
+ * <p>
+ * It contains the {@link com.vmax.vmax_core.api_elements.ApiClass <code>ApiClass</code>} that the instance directly implements
+ * and optionally an ID, that the class can use to look up the instance
+ * (see {@link com.vmax.vmax_core.api_elements.ApiClass#findImplementingInstanceAsObjectById(String) <code>ApiClass.findImplementingInstanceAsObjectById(String)</code>}).
+ * </p>
+ */
+public class DecodedInstanceUri {
+
+    /** The class of the instance */
+    private final ApiClass apiClass;
+    /** The ID of the instance, <code>null</code> if the URI contains no ID */
+    private final String instanceId;
+
+    /**
+     * @param apiClass - The class of the instance, must not be <code>null</code>
+     * @param instanceId - The ID of the instance, may be <code>null</code>
+     */
+    public DecodedInstanceUri(ApiClass apiClass, String instanceId) {
+        if ( apiClass == null ) { throw new IllegalArgumentException("class of decoded instance uri can't be null"); }
+        this.apiClass = apiClass;
+        this.instanceId = instanceId;
+    }
+
+    public ApiClass getApiClass() {
+        return this.apiClass;
+    }
+
+    public String getInstanceId() {
+        return this.instanceId;
+    }
+
+    @Override
+    public String toString() {
+        return "[decoded instance uri: " + this.apiClass + " " + this.instanceId + "]";
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.vmax.vmax_core.api_helper;
+
+import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.api_elements.ApiInstance;
+
+/**
+ * <p>
+ * Class for a change of the model of the tool, 
+ * passed to all {@link com.vmax.vmax_core.api_helper.ModelChangeListener <code>ModelChangeListeners</code>} of an
+ * {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper</code>}.
+ * </p>
+ * <p>
+ * Each event carries the model version after the change, which is incremented by one for each change.
+ * Depending on the {@link com.vmax.vmax_core.api_helper.ModelChangeType <code>ModelChangeType</code>},
+ * the event additionally holds the changed instance and attribute:
+ * <ul>
+ * <li>{@link ModelChangeType#INSTANCE_CREATED <code>INSTANCE_CREATED</code>} and 
+ * {@link ModelChangeType#INSTANCE_DELETED <code>INSTANCE_DELETED</code>} hold the instance.</li>
+ * <li>{@link ModelChangeType#ATTRIBUTE_VALUE_CHANGED <code>ATTRIBUTE_VALUE_CHANGED</code>} holds the instance and the attribute.</li>
+ * <li>{@link ModelChangeType#MODEL_CHANGED <code>MODEL_CHANGED</code>} holds neither.</li>
+ * </ul>
+ * </p>
+ */
+public class ModelChangeEvent {
+
+    private final ModelChangeType modelChangeType;
+    private final long modelVersion;
+    private final ApiInstance apiInstance;
+    private final ApiAttribute apiAttribute;
+
+    public ModelChangeEvent(ModelChangeType modelChangeType, long modelVersion, ApiInstance apiInstance, ApiAttribute apiAttribute) {
+        if ( modelChangeType == null ) { throw new IllegalArgumentException("type of a model change can't be null"); }
+        if ( apiInstance == null && modelChangeType != ModelChangeType.MODEL_CHANGED ) 
+            { throw new IllegalArgumentException("instance of a model change of type " + modelChangeType + " can't be null"); }
+        if ( apiAttribute == null && modelChangeType == ModelChangeType.ATTRIBUTE_VALUE_CHANGED ) 
+            { throw new IllegalArgumentException("attribute of a model change of type " + modelChangeType + " can't be null"); }
+        this.modelChangeType = modelChangeType;
+        this.modelVersion = modelVersion;
+        this.apiInstance = apiInstance;
+        this.apiAttribute = apiAttribute;
+    }
+
+    public ModelChangeType getModelChangeType() {
+        return this.modelChangeType;
+    }
+
+    /**
+     * Returns the model version after the change.
+     */
+    public long getModelVersion() {
+        return this.modelVersion;
+    }
+
+    /**
+     * Returns the created, deleted or changed instance, 
+     * <code>null</code> for a change of type {@link ModelChangeType#MODEL_CHANGED <code>MODEL_CHANGED</code>}.
+     */
+    public ApiInstance getApiInstance() {
+        return this.apiInstance;
+    }
+
+    /**
+     * Returns the changed attribute, 
+     * <code>null</code> unless the change is of type {@link ModelChangeType#ATTRIBUTE_VALUE_CHANGED <code>ATTRIBUTE_VALUE_CHANGED</code>}.
+     */
+    public ApiAttribute getApiAttribute() {
+        return this.apiAttribute;
+    }
+
+    @Override
+    public String toString() {
+        return "[model change " + this.modelVersion + ": " + this.modelChangeType
+            + ( this.apiInstance != null ? " " + this.apiInstance : "" )
+            + ( this.apiAttribute != null ? " " + this.apiAttribute : "" ) + "]";
+    }
+
+}
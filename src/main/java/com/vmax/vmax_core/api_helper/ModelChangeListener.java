@@ -0,0 +1,21 @@
+package com.vmax.vmax_core.api_helper;
+
+/**
+ * <p>
+ * Interface for listeners to changes of the model of the tool, e.g. caches and indexes of VMAX.
+ * </p>
+ * <p>
+ * Listeners are registered by {@link com.vmax.vmax_core.api_helper.ApiHelper#addModelChangeListener(ModelChangeListener) <code>ApiHelper.addModelChangeListener(ModelChangeListener)</code>}
+ * and notified in the thread of the tool specific implementation reporting the change, 
+ * so they should only evict affected entries and return quickly.
+ * </p>
+ */
+public interface ModelChangeListener {
+
+    /**
+     * Called after the model of the tool was changed.
+     * @param modelChangeEvent - The change of the model
+     */
+    public void modelChanged(ModelChangeEvent modelChangeEvent);
+
+}
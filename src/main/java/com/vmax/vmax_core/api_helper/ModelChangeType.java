@@ -0,0 +1,18 @@
+package com.vmax.vmax_core.api_helper;
+
+/**
+ * Enum for the types of a {@link com.vmax.vmax_core.api_helper.ModelChangeEvent <code>ModelChangeEvent</code>}.
+ */
+public enum ModelChangeType {
+
+    // options
+    /** An instance was created */
+    INSTANCE_CREATED,
+    /** An instance was deleted */
+    INSTANCE_DELETED,
+    /** The value of an attribute of an instance was changed */
+    ATTRIBUTE_VALUE_CHANGED,
+    /** Any part of the model may have changed */
+    MODEL_CHANGED;
+
+}
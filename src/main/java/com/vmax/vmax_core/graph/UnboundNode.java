@@ -39,5 +39,20 @@ public class UnboundNode implements Node {
     public String toString() {
         return "<?>";
     }
-    
+
+    /**
+     * All unbound nodes are equal, so that triple patterns with the same bound nodes are equal
+     * (e.g. to use triple patterns as keys of a cache).
+     */
+    @Override
+    public boolean equals(Object other) {
+        if ( other == this ) { return true; }
+        return other instanceof UnboundNode;
+    }
+
+    @Override
+    public int hashCode() {
+        return 0;
+    }
+
 }
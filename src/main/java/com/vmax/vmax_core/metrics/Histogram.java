@@ -0,0 +1,102 @@
+package com.vmax.vmax_core.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Class for a histogram of non-negative values, e.g. latencies in nanoseconds or numbers of results.
+ * </p>
+ * <p>
+ * Values are counted in buckets with power of two bounds:
+ * bucket <code>0</code> counts the value <code>0</code>, bucket <code>i</code> counts values from <code>2^(i-1)</code> to <code>2^i - 1</code>.
+ * All counters are striped {@link java.util.concurrent.atomic.LongAdder <code>LongAdders</code>},
+ * so many threads can record values concurrently without contending on a single counter,
+ * and recording a value does not allocate any objects.
+ * Percentiles are therefore approximated by the upper bound of the bucket containing them.
+ * </p>
+ */
+public class Histogram {
+
+    /** Number of buckets, enough for all non-negative <code>long</code> values */
+    public static final int BUCKET_COUNT = 64;
+
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public Histogram() {
+        this.buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) { this.buckets[i] = new LongAdder(); }
+    }
+
+    /**
+     * Records a value. Negative values are recorded as <code>0</code>.
+     * @param value - The value to record
+     */
+    public void record(long value) {
+        if ( value < 0 ) { value = 0; }
+        // index of the highest set bit plus one, 0 for the value 0
+        this.buckets[Long.SIZE - Long.numberOfLeadingZeros(value)].increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    /**
+     * Resets all counters.
+     * Values recorded concurrently might be partially reset.
+     */
+    public void reset() {
+        for (LongAdder bucket: this.buckets) { bucket.reset(); }
+        this.sum.reset();
+        this.max.reset();
+    }
+
+    /**
+     * Returns an immutable summary of the recorded values.
+     * The counters are read one after another, so values recorded concurrently might only be partially included.
+     */
+    public HistogramSummary summarize() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long totalCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = this.buckets[i].sum();
+            totalCount += bucketCounts[i];
+        }
+        long maxValue = this.max.get();
+        return new HistogramSummary(
+            totalCount,
+            this.sum.sum(),
+            maxValue,
+            Histogram.percentile(bucketCounts, totalCount, maxValue, 0.5),
+            Histogram.percentile(bucketCounts, totalCount, maxValue, 0.9),
+            Histogram.percentile(bucketCounts, totalCount, maxValue, 0.99));
+    }
+
+    /**
+     * Returns the number of recorded values.
+     */
+    public long getCount() {
+        long totalCount = 0;
+        for (LongAdder bucket: this.buckets) { totalCount += bucket.sum(); }
+        return totalCount;
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the given quantile, at most the maximum value.
+     */
+    private static long percentile(long[] bucketCounts, long totalCount, long maxValue, double quantile) {
+        if ( totalCount == 0 ) { return 0; }
+        long rank = (long) Math.ceil(quantile * totalCount);
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulativeCount += bucketCounts[i];
+            if ( cumulativeCount >= rank ) {
+                long upperBound = ( i == 0 ) ? 0 : ( i == BUCKET_COUNT - 1 ) ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.min(upperBound, maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+}
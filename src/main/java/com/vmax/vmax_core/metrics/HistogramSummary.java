@@ -0,0 +1,86 @@
+package com.vmax.vmax_core.metrics;
+
+import org.json.JSONObject;
+
+/**
+ * <p>
+ * Immutable summary of the values recorded by a {@link com.vmax.vmax_core.metrics.Histogram <code>Histogram</code>}.
+ * </p>
+ * <p>
+ * The getters are exposed as attributes of the {@link com.vmax.vmax_core.metrics.VmaxMetricsMXBean <code>VmaxMetricsMXBean</code>},
+ * the JSON representation is returned by the metrics endpoints of the servers.
+ * </p>
+ */
+public class HistogramSummary {
+
+    private final long count;
+    private final long sum;
+    private final long max;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+
+    public HistogramSummary(long count, long sum, long max, long p50, long p90, long p99) {
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getSum() {
+        return this.sum;
+    }
+
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns the mean of all recorded values, <code>0</code> if no values have been recorded.
+     */
+    public double getMean() {
+        return ( this.count == 0 ) ? 0 : (double) this.sum / this.count;
+    }
+
+    /**
+     * Returns the approximated median.
+     */
+    public long getP50() {
+        return this.p50;
+    }
+
+    /**
+     * Returns the approximated 90th percentile.
+     */
+    public long getP90() {
+        return this.p90;
+    }
+
+    /**
+     * Returns the approximated 99th percentile.
+     */
+    public long getP99() {
+        return this.p99;
+    }
+
+    /**
+     * Returns the summary as a JSON object.
+     */
+    public JSONObject toJson() {
+        return new JSONObject()
+            .put("count", this.count)
+            .put("sum", this.sum)
+            .put("max", this.max)
+            .put("mean", this.getMean())
+            .put("p50", this.p50)
+            .put("p90", this.p90)
+            .put("p99", this.p99);
+    }
+
+}
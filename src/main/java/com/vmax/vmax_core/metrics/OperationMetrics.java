@@ -0,0 +1,68 @@
+package com.vmax.vmax_core.metrics;
+
+import org.json.JSONObject;
+
+/**
+ * <p>
+ * Class for the metrics of a single kind of operation, e.g. the evaluation of a triple template or a call of an attribute.
+ * </p>
+ * <p>
+ * Records the latency in nanoseconds and the number of results of each operation in a
+ * {@link com.vmax.vmax_core.metrics.Histogram <code>Histogram</code>}.
+ * Recording does not allocate any objects, so it can be used on hot paths.
+ * </p>
+ */
+public class OperationMetrics {
+
+    private final Histogram latencyNanos = new Histogram();
+    private final Histogram resultSizes = new Histogram();
+
+    /**
+     * Records an operation, that started at the given time and ended now.
+     * @param startTime - The start time of the operation, from {@link java.lang.System#nanoTime() <code>System.nanoTime()</code>}
+     * @param resultSize - The number of results of the operation
+     */
+    public void record(long startTime, long resultSize) {
+        this.record(startTime, System.nanoTime(), resultSize);
+    }
+
+    /**
+     * Records an operation with the given start and end time.
+     * @param startTime - The start time of the operation, from {@link java.lang.System#nanoTime() <code>System.nanoTime()</code>}
+     * @param endTime - The end time of the operation, from {@link java.lang.System#nanoTime() <code>System.nanoTime()</code>}
+     * @param resultSize - The number of results of the operation
+     */
+    public void record(long startTime, long endTime, long resultSize) {
+        this.latencyNanos.record(endTime - startTime);
+        this.resultSizes.record(resultSize);
+    }
+
+    /**
+     * Returns the histogram of latencies in nanoseconds.
+     */
+    public Histogram getLatencyNanos() {
+        return this.latencyNanos;
+    }
+
+    /**
+     * Returns the histogram of numbers of results.
+     */
+    public Histogram getResultSizes() {
+        return this.resultSizes;
+    }
+
+    public void reset() {
+        this.latencyNanos.reset();
+        this.resultSizes.reset();
+    }
+
+    /**
+     * Returns the summaries of both histograms as a JSON object.
+     */
+    public JSONObject toJson() {
+        return new JSONObject()
+            .put("latencyNanos", this.latencyNanos.summarize().toJson())
+            .put("resultSize", this.resultSizes.summarize().toJson());
+    }
+
+}
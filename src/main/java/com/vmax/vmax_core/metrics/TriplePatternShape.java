@@ -0,0 +1,54 @@
+package com.vmax.vmax_core.metrics;
+
+import com.vmax.vmax_core.graph.NodeType;
+import com.vmax.vmax_core.graph.TriplePattern;
+
+/**
+ * <p>
+ * Enum for the shapes of triple patterns, i.e. the combinations of bound and unbound nodes.
+ * </p>
+ * <p>
+ * The name of each shape lists the bound nodes of the triple pattern,
+ * e.g. {@link #SUBJECT_PREDICATE <code>SUBJECT_PREDICATE</code>} for triple patterns of type <code>&lt;s p ?o&gt;</code>.
+ * </p>
+ */
+public enum TriplePatternShape {
+
+    SUBJECT_PREDICATE_OBJECT("<s p o>"),
+    SUBJECT_PREDICATE("<s p ?o>"),
+    SUBJECT_OBJECT("<s ?p o>"),
+    SUBJECT("<s ?p ?o>"),
+    PREDICATE_OBJECT("<?s p o>"),
+    PREDICATE("<?s p ?o>"),
+    OBJECT("<?s ?p o>"),
+    NONE("<?s ?p ?o>");
+
+    /** All shapes, indexed by the bit mask of unbound nodes (subject 4, predicate 2, object 1) */
+    private static final TriplePatternShape[] SHAPES_BY_UNBOUND_MASK = TriplePatternShape.values();
+
+    private final String patternString;
+
+    TriplePatternShape(String patternString) {
+        this.patternString = patternString;
+    }
+
+    /**
+     * Returns the shape as a triple pattern, e.g. <code>&lt;?s p ?o&gt;</code>.
+     */
+    public String getPatternString() {
+        return this.patternString;
+    }
+
+    /**
+     * Returns the shape of the given triple pattern.
+     * @param triplePattern - The triple pattern
+     */
+    public static TriplePatternShape of(TriplePattern triplePattern) {
+        int unboundMask = 0;
+        if ( triplePattern.getSubject().getNodeType() == NodeType.UNBOUND ) { unboundMask |= 4; }
+        if ( triplePattern.getPredicate().getNodeType() == NodeType.UNBOUND ) { unboundMask |= 2; }
+        if ( triplePattern.getObject().getNodeType() == NodeType.UNBOUND ) { unboundMask |= 1; }
+        return SHAPES_BY_UNBOUND_MASK[unboundMask];
+    }
+
+}
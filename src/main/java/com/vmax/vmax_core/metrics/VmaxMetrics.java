@@ -0,0 +1,228 @@
+package com.vmax.vmax_core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.json.JSONObject;
+
+import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.triple_templates.TripleTemplate;
+
+/**
+ * <p>
+ * Class for the metrics of a {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>}.
+ * </p>
+ * <p>
+ * Collects the {@link com.vmax.vmax_core.metrics.OperationMetrics <code>OperationMetrics</code>}
+ * (latencies and numbers of results) on three levels:
+ * </p>
+ * <ul>
+ * <li>per {@link com.vmax.vmax_core.metrics.TriplePatternShape <code>TriplePatternShape</code>}, recorded by the triple finder for each evaluated triple pattern</li>
+ * <li>per {@link com.vmax.vmax_core.triple_templates.TripleTemplate <code>TripleTemplate</code>}, recorded by the triple template for each lookup</li>
+ * <li>per {@link com.vmax.vmax_core.api_elements.ApiAttribute <code>ApiAttribute</code>}, recorded by the attribute for each call to the API</li>
+ * </ul>
+ * <p>
+ * The metrics of triple templates and attributes are kept by the triple templates and attributes themselves,
+ * so recording a sample neither looks up nor allocates anything.
+ * The metrics are exposed via JMX (see {@link #registerMBean(String) <code>registerMBean(String)</code>})
+ * and as JSON (see {@link #toJson() <code>toJson()</code>}), e.g. by the /metrics routes of the servers.
+ * </p>
+ */
+public class VmaxMetrics implements VmaxMetricsMXBean {
+
+    /** Domain of the object names of registered MBeans */
+    public static final String MBEAN_DOMAIN = "com.vmax.vmax_core";
+
+    /** Metrics per triple pattern shape, indexed by ordinal of the shape */
+    private final OperationMetrics[] triplePatternMetrics;
+    /** Metrics per triple template, by name of the triple template */
+    private final Map<String, OperationMetrics> tripleTemplateMetrics;
+    /** Metrics per attribute, by URI of the attribute */
+    private final Map<String, OperationMetrics> attributeMetrics;
+    /** Object name of the registered MBean, <code>null</code> if not registered */
+    private ObjectName registeredObjectName;
+
+    /**
+     * Creates the metrics for the given triple templates and attributes.
+     * @param tripleTemplates - The triple templates of the triple finder
+     * @param apiAttributes - The attributes of the API
+     */
+    public VmaxMetrics(List<TripleTemplate> tripleTemplates, List<ApiAttribute> apiAttributes) {
+        this.triplePatternMetrics = new OperationMetrics[TriplePatternShape.values().length];
+        for (int i = 0; i < this.triplePatternMetrics.length; i++) { this.triplePatternMetrics[i] = new OperationMetrics(); }
+        // name triple templates by class and predicate, e.g. "TT12_InstanceAttributeEntity <http://...>"
+        Map<String, OperationMetrics> tripleTemplateMetrics = new LinkedHashMap<String, OperationMetrics>();
+        for (TripleTemplate tripleTemplate: tripleTemplates) {
+            String name = tripleTemplate.getClass().getSimpleName() + " " + tripleTemplate.getPredicate().toString();
+            VmaxMetrics.putUnique(tripleTemplateMetrics, name, tripleTemplate.getMetrics());
+        }
+        this.tripleTemplateMetrics = Collections.unmodifiableMap(tripleTemplateMetrics);
+        Map<String, OperationMetrics> attributeMetrics = new LinkedHashMap<String, OperationMetrics>();
+        for (ApiAttribute apiAttribute: apiAttributes) {
+            VmaxMetrics.putUnique(attributeMetrics, apiAttribute.getUri(), apiAttribute.getMetrics());
+        }
+        this.attributeMetrics = Collections.unmodifiableMap(attributeMetrics);
+    }
+
+    /**
+     * Records an evaluated triple pattern.
+     * @param triplePattern - The triple pattern
+     * @param startTime - The start time of the evaluation, from {@link java.lang.System#nanoTime() <code>System.nanoTime()</code>}
+     * @param endTime - The end time of the evaluation, from {@link java.lang.System#nanoTime() <code>System.nanoTime()</code>}
+     * @param resultSize - The number of matching triples
+     */
+    public void recordTriplePattern(TriplePattern triplePattern, long startTime, long endTime, long resultSize) {
+        this.triplePatternMetrics[TriplePatternShape.of(triplePattern).ordinal()].record(startTime, endTime, resultSize);
+    }
+
+    /**
+     * Returns the metrics of all triple patterns of the given shape.
+     * @param triplePatternShape - The shape of the triple patterns
+     */
+    public OperationMetrics getTriplePatternMetrics(TriplePatternShape triplePatternShape) {
+        return this.triplePatternMetrics[triplePatternShape.ordinal()];
+    }
+
+    /**
+     * Returns an unmodifiable map of the metrics of all triple templates, by name of the triple template.
+     */
+    public Map<String, OperationMetrics> getTripleTemplateMetrics() {
+        return this.tripleTemplateMetrics;
+    }
+
+    /**
+     * Returns an unmodifiable map of the metrics of all attributes, by URI of the attribute.
+     */
+    public Map<String, OperationMetrics> getAttributeMetrics() {
+        return this.attributeMetrics;
+    }
+
+    @Override
+    public Map<String, HistogramSummary> getTriplePatternLatencyNanos() {
+        return VmaxMetrics.summarize(this.getTriplePatternMetricsByShape(), OperationMetrics::getLatencyNanos);
+    }
+
+    @Override
+    public Map<String, HistogramSummary> getTriplePatternResultSizes() {
+        return VmaxMetrics.summarize(this.getTriplePatternMetricsByShape(), OperationMetrics::getResultSizes);
+    }
+
+    @Override
+    public Map<String, HistogramSummary> getTripleTemplateLatencyNanos() {
+        return VmaxMetrics.summarize(this.tripleTemplateMetrics, OperationMetrics::getLatencyNanos);
+    }
+
+    @Override
+    public Map<String, HistogramSummary> getTripleTemplateResultSizes() {
+        return VmaxMetrics.summarize(this.tripleTemplateMetrics, OperationMetrics::getResultSizes);
+    }
+
+    @Override
+    public Map<String, HistogramSummary> getAttributeLatencyNanos() {
+        return VmaxMetrics.summarize(this.attributeMetrics, OperationMetrics::getLatencyNanos);
+    }
+
+    @Override
+    public Map<String, HistogramSummary> getAttributeResultSizes() {
+        return VmaxMetrics.summarize(this.attributeMetrics, OperationMetrics::getResultSizes);
+    }
+
+    @Override
+    public void reset() {
+        for (OperationMetrics operationMetrics: this.triplePatternMetrics) { operationMetrics.reset(); }
+        this.tripleTemplateMetrics.values().forEach(OperationMetrics::reset);
+        this.attributeMetrics.values().forEach(OperationMetrics::reset);
+    }
+
+    /**
+     * <p>
+     * Returns all metrics as a JSON object, e.g.:
+     * </p>
+     * <p>
+     * <code>
+     * {"triplePatterns": {"&lt;?s p ?o&gt;": {"latencyNanos": {...}, "resultSize": {...}}, ...}, "tripleTemplates": {...}, "attributes": {...}}
+     * </code>
+     * </p>
+     * <p>
+     * Triple templates and attributes without any recorded operations are omitted.
+     * </p>
+     */
+    public JSONObject toJson() {
+        return new JSONObject()
+            .put("triplePatterns", VmaxMetrics.toJson(this.getTriplePatternMetricsByShape()))
+            .put("tripleTemplates", VmaxMetrics.toJson(this.tripleTemplateMetrics))
+            .put("attributes", VmaxMetrics.toJson(this.attributeMetrics));
+    }
+
+    /**
+     * Registers the metrics as an MBean at the platform MBean server,
+     * with the object name <code>com.vmax.vmax_core:type=VmaxMetrics,name=&lt;name&gt;</code>.
+     * A previous registration of these metrics is removed first.
+     * @param name - The name of the MBean, e.g. the name of the server
+     * @return The object name of the registered MBean
+     * @throws JMException if the MBean could not be registered, e.g. because the name is already taken
+     */
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+        this.unregisterMBean();
+        ObjectName objectName = new ObjectName(VmaxMetrics.MBEAN_DOMAIN + ":type=VmaxMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.registeredObjectName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes the MBean registered by {@link #registerMBean(String) <code>registerMBean(String)</code>}, if any.
+     */
+    public synchronized void unregisterMBean() {
+        if ( this.registeredObjectName == null ) { return; }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if ( mBeanServer.isRegistered(this.registeredObjectName) ) { mBeanServer.unregisterMBean(this.registeredObjectName); }
+        } catch (JMException e) {
+            // nothing left to clean up, if the MBean has already been removed
+        }
+        this.registeredObjectName = null;
+    }
+
+    private Map<String, OperationMetrics> getTriplePatternMetricsByShape() {
+        Map<String, OperationMetrics> metricsByShape = new LinkedHashMap<String, OperationMetrics>();
+        for (TriplePatternShape triplePatternShape: TriplePatternShape.values()) {
+            metricsByShape.put(triplePatternShape.getPatternString(), this.getTriplePatternMetrics(triplePatternShape));
+        }
+        return metricsByShape;
+    }
+
+    private static Map<String, HistogramSummary> summarize(Map<String, OperationMetrics> metricsByName, Function<OperationMetrics, Histogram> histogramGetter) {
+        Map<String, HistogramSummary> summaries = new LinkedHashMap<String, HistogramSummary>();
+        metricsByName.forEach((String name, OperationMetrics operationMetrics) ->
+            summaries.put(name, histogramGetter.apply(operationMetrics).summarize()));
+        return summaries;
+    }
+
+    private static JSONObject toJson(Map<String, OperationMetrics> metricsByName) {
+        JSONObject metricsAsJson = new JSONObject();
+        metricsByName.forEach((String name, OperationMetrics operationMetrics) -> {
+            if ( operationMetrics.getLatencyNanos().getCount() > 0 ) { metricsAsJson.put(name, operationMetrics.toJson()); }
+        });
+        return metricsAsJson;
+    }
+
+    /**
+     * Adds the metrics under the given name, appending a number if the name is already taken.
+     */
+    private static void putUnique(Map<String, OperationMetrics> metricsByName, String name, OperationMetrics operationMetrics) {
+        String uniqueName = name;
+        for (int i = 2; metricsByName.containsKey(uniqueName); i++) { uniqueName = name + " #" + i; }
+        metricsByName.put(uniqueName, operationMetrics);
+    }
+
+}
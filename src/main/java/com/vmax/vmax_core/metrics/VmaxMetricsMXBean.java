@@ -0,0 +1,34 @@
+package com.vmax.vmax_core.metrics;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Management interface of the {@link com.vmax.vmax_core.metrics.VmaxMetrics <code>VmaxMetrics</code>},
+ * exposed via JMX (e.g. in JConsole or VisualVM).
+ * </p>
+ * <p>
+ * Each attribute maps the name of a triple pattern shape, triple template or attribute
+ * to the summary of its latencies in nanoseconds or numbers of results.
+ * </p>
+ */
+public interface VmaxMetricsMXBean {
+
+    public Map<String, HistogramSummary> getTriplePatternLatencyNanos();
+
+    public Map<String, HistogramSummary> getTriplePatternResultSizes();
+
+    public Map<String, HistogramSummary> getTripleTemplateLatencyNanos();
+
+    public Map<String, HistogramSummary> getTripleTemplateResultSizes();
+
+    public Map<String, HistogramSummary> getAttributeLatencyNanos();
+
+    public Map<String, HistogramSummary> getAttributeResultSizes();
+
+    /**
+     * Resets all metrics.
+     */
+    public void reset();
+
+}
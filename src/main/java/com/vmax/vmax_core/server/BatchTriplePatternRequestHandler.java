@@ -0,0 +1,185 @@
+package com.vmax.vmax_core.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.vmax.vmax_core.api_helper.ApiHelper;
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.triple_finder.TripleFinder;
+
+/**
+ * <p>
+ * Class for a batch triple pattern request handler.
+ * </p>
+ * <p>
+ * Handles incoming POST requests with a JSON array of triple patterns in the body,
+ * each formatted as for the {@link com.vmax.vmax_core.server.TriplePatternRequestHandler <code>TriplePatternRequestHandler</code>}.
+ * All triple patterns are evaluated by the {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>},
+ * so a client only needs a single request for many triple patterns.
+ * </p>
+ * <p>
+ * The response is a JSON array with one JSON object per triple pattern, in the order of the request.
+ * Each object contains the index of the triple pattern in the request and the array of matching triples, e.g.:
+ * </p>
+ * <p>
+ * <code>
+ * [{"index": 0, "triples": [...]}, {"index": 1, "triples": [...]}]
+ * </code>
+ * </p>
+ * <p>
+ * Triple patterns with URIs unknown to the API match no triples.
+ * If the body is not a JSON array of valid triple patterns, the request is rejected with code 400.
+ * If the evaluation of a triple pattern fails, the request is answered with code 500 and the error message
+ * in a JSON object, e.g. <code>{"error": "..."}</code>.
+ * If an executor is passed to the constructor, the triple patterns of a request are evaluated concurrently on it.
+ * </p>
+ */
+public class BatchTriplePatternRequestHandler implements HttpHandler {
+
+    public static final String JSON_INDEX_KEY = "index";
+    public static final String JSON_TRIPLES_KEY = "triples";
+    public static final String JSON_ERROR_KEY = "error";
+
+    private final TripleFinder tripleFinder;
+    private final JsonInterface jsonInterface;
+    /** Executor to evaluate the triple patterns of a request concurrently, <code>null</code> to evaluate them sequentially */
+    private final Executor batchExecutor;
+
+    /**
+     * Creates a request handler evaluating the triple patterns of a request sequentially.
+     * @param apiHelper - The API helper to convert JSON nodes
+     * @param tripleFinder - The triple finder to redirect triple pattern requests to
+     */
+    public BatchTriplePatternRequestHandler(ApiHelper apiHelper, TripleFinder tripleFinder) {
+        this(apiHelper, tripleFinder, null);
+    }
+
+    /**
+     * Creates a request handler evaluating the triple patterns of a request on the given executor.
+     * @param apiHelper - The API helper to convert JSON nodes
+     * @param tripleFinder - The triple finder to redirect triple pattern requests to
+     * @param batchExecutor - The executor to evaluate the triple patterns on, <code>null</code> to evaluate them sequentially
+     */
+    public BatchTriplePatternRequestHandler(ApiHelper apiHelper, TripleFinder tripleFinder, Executor batchExecutor) {
+        this.tripleFinder = tripleFinder;
+        this.jsonInterface = new JsonInterface(apiHelper);
+        this.batchExecutor = batchExecutor;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        // reject (code 405) if any other method than POST is chosen
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        // read input stream to get request as string
+        String requestString = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        exchange.getRequestBody().close();
+        // convert request to list of triple patterns, reject (code 400) if not possible
+        List<TriplePattern> requestTriplePatterns = new ArrayList<TriplePattern>();
+        try {
+            JSONArray requestAsJson = new JSONArray(requestString);
+            for (int i = 0; i < requestAsJson.length(); i++) {
+                // null if the triple pattern contains an unknown URI
+                requestTriplePatterns.add(this.jsonInterface.createTriplePatternFromJsonData(requestAsJson.getJSONObject(i)));
+            }
+        } catch (JSONException | IllegalArgumentException e) {
+            exchange.sendResponseHeaders(400, -1);
+            exchange.close();
+            return;
+        }
+        // get matching triples of all triple patterns from triple finder
+        // if the evaluation of any triple pattern fails, reject (code 500) with the error in the body
+        List<List<Triple>> responseTriples;
+        try {
+            responseTriples = this.findAll(requestTriplePatterns);
+        } catch (CompletionException e) {
+            BatchTriplePatternRequestHandler.sendError(exchange, ( e.getCause() == null ) ? e : e.getCause());
+            return;
+        } catch (RuntimeException e) {
+            BatchTriplePatternRequestHandler.sendError(exchange, e);
+            return;
+        }
+        // convert triples to JSON array, grouped by index of the triple pattern
+        JSONArray responseAsJson = new JSONArray();
+        for (int i = 0; i < responseTriples.size(); i++) {
+            JSONArray triplesAsJson = new JSONArray();
+            for (Triple responseTriple: responseTriples.get(i)) {
+                triplesAsJson.put(responseTriple.toJson());
+            }
+            responseAsJson.put(new JSONObject()
+                .put(BatchTriplePatternRequestHandler.JSON_INDEX_KEY, i)
+                .put(BatchTriplePatternRequestHandler.JSON_TRIPLES_KEY, triplesAsJson));
+        }
+        byte[] responseBytes = responseAsJson.toString().getBytes(StandardCharsets.UTF_8);
+        // send response with code 200
+        exchange.sendResponseHeaders(200, responseBytes.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(responseBytes);
+        output.flush();
+        exchange.close();
+    }
+
+    /**
+     * Sends a response with code 500 and a JSON object with the message of the given error in the body.
+     * Also used by the {@link com.vmax.vmax_core.server.TriplePatternRequestHandler <code>TriplePatternRequestHandler</code>}
+     * for errors before its response is started.
+     * @param exchange - The exchange to answer
+     * @param error - The error that occurred while evaluating the request
+     */
+    static void sendError(HttpExchange exchange, Throwable error) throws IOException {
+        String message = ( error.getMessage() == null ) ? error.getClass().getName() : error.getMessage();
+        byte[] responseBytes = new JSONObject()
+            .put(BatchTriplePatternRequestHandler.JSON_ERROR_KEY, message)
+            .toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(500, responseBytes.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(responseBytes);
+        output.flush();
+        exchange.close();
+    }
+
+    /**
+     * Returns the matching triples for each of the given triple patterns, in the order of the triple patterns.
+     * If a batch executor is set, the triple patterns are evaluated concurrently 
+     * and a {@link java.util.concurrent.CompletionException <code>CompletionException</code>} is thrown if any evaluation fails.
+     * @param triplePatterns - The triple patterns, <code>null</code> for triple patterns that cannot match any triples
+     */
+    private List<List<Triple>> findAll(List<TriplePattern> triplePatterns) {
+        List<List<Triple>> results = new ArrayList<List<Triple>>();
+        // evaluate sequentially
+        if ( this.batchExecutor == null || triplePatterns.size() < 2 ) {
+            for (TriplePattern triplePattern: triplePatterns) { results.add(this.find(triplePattern)); }
+            return results;
+        }
+        // else, evaluate concurrently and collect results in the order of the triple patterns
+        List<CompletableFuture<List<Triple>>> futures = new ArrayList<CompletableFuture<List<Triple>>>();
+        for (TriplePattern triplePattern: triplePatterns) {
+            futures.add(CompletableFuture.supplyAsync(() -> this.find(triplePattern), this.batchExecutor));
+        }
+        for (CompletableFuture<List<Triple>> future: futures) { results.add(future.join()); }
+        return results;
+    }
+
+    private List<Triple> find(TriplePattern triplePattern) {
+        if ( triplePattern == null ) { return List.of(); }
+        return this.tripleFinder.find(triplePattern);
+    }
+
+}
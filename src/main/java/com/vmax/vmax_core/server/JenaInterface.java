@@ -47,10 +47,10 @@ public class JenaInterface {
     /**
      * Converts a Jena node ({@link org.apache.jena.graph.Node Node}) 
      * to a VMAX node ({@link com.vmax.vmax_core.graph.Node Node}).
+     * Returns <code>null</code> if the node cannot be converted, e.g. for URIs unknown to the API.
      * @param jenaNode - The Jena node to be converted.
-     * @return
      */
-    private Node getNodeFromJenaNode(org.apache.jena.graph.Node jenaNode) {
+    public Node getNodeFromJenaNode(org.apache.jena.graph.Node jenaNode) {
         // if unbound, return unbound node
         // check if jenaNode is insatance of ANY
         if (jenaNode.getClass() == Node_ANY.class) {
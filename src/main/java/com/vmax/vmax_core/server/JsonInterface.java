@@ -1,11 +1,16 @@
 package com.vmax.vmax_core.server;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.vmax.vmax_core.api_elements.ApiDataType;
 import com.vmax.vmax_core.api_helper.ApiDataTypeList;
 import com.vmax.vmax_core.api_helper.ApiHelper;
 import com.vmax.vmax_core.graph.Node;
+import com.vmax.vmax_core.graph.NodeType;
 import com.vmax.vmax_core.graph.TriplePattern;
 import com.vmax.vmax_core.graph.UnboundNode;
 
@@ -34,6 +39,12 @@ public class JsonInterface {
     public static final String JSON_URI_KEY = "uri";
     /** keys for JSON Objects to indicate the nodes of a triple pattern */
     public static final String[] JSON_NODE_KEYS = {"subject", "predicate", "object"};
+    /** key for JSON Objects to indicate the solution bindings restricting a triple pattern */
+    public static final String JSON_BINDINGS_KEY = "bindings";
+    /** key for JSON Objects to indicate the number of triples to skip */
+    public static final String JSON_OFFSET_KEY = "offset";
+    /** key for JSON Objects to indicate the maximum number of triples to return */
+    public static final String JSON_LIMIT_KEY = "limit";
 
     /** Instance of ApiHelper to interact with specific elements of the API */
     private ApiHelper apiHelper;
@@ -64,6 +75,52 @@ public class JsonInterface {
         return new TriplePattern(nodes[0], nodes[1], nodes[2]);
     }
 
+    /**
+     * <p>
+     * Creates one triple pattern for each solution binding of a {@link org.json.JSONArray <code>JSONArray</code>},
+     * by replacing the unbound nodes of the given triple pattern with the nodes of the binding.
+     * </p>
+     * <p>
+     * Each binding is a JSON object, which binds unbound nodes of the triple pattern by their position,
+     * using the keys <code>subject</code>, <code>predicate</code> and <code>object</code>, e.g.:
+     * </p>
+     * <p>
+     * <code>
+     * {"subject": {"type": "URI", "uri": "..."}}
+     * </code>
+     * </p>
+     * <p>
+     * Positions not contained in a binding stay unbound.
+     * Bindings containing a node unknown to the API cannot match any triple and are skipped.
+     * </p>
+     * @param triplePattern - The triple pattern to restrict
+     * @param bindingsAsJson - The {@link org.json.JSONArray <code>JSONArray</code>} of solution bindings
+     * @throws IllegalArgumentException if a binding cannot be handled or binds a node that is already bound
+     */
+    public List<TriplePattern> createTriplePatternsFromJsonBindings(TriplePattern triplePattern, JSONArray bindingsAsJson) {
+        Node[] patternNodes = { triplePattern.getSubject(), triplePattern.getPredicate(), triplePattern.getObject() };
+        List<TriplePattern> triplePatterns = new ArrayList<TriplePattern>();
+        for (int i = 0; i < bindingsAsJson.length(); i++) {
+            JSONObject bindingAsJson;
+            try { bindingAsJson = bindingsAsJson.getJSONObject(i); }
+            catch (Exception e) { throw new IllegalArgumentException("binding from json cannot be handled"); }
+            Node[] nodes = patternNodes.clone();
+            boolean unknownNode = false;
+            // replace each bound position of the binding
+            for (int j = 0; j < 3; j++) {
+                if ( !bindingAsJson.has(JsonInterface.JSON_NODE_KEYS[j]) ) { continue; }
+                if ( nodes[j].getNodeType() != NodeType.UNBOUND ) {
+                    throw new IllegalArgumentException("binding for bound " + JsonInterface.JSON_NODE_KEYS[j] + " cannot be handled");
+                }
+                try { nodes[j] = this.getNodeFromJsonData(bindingAsJson.getJSONObject(JsonInterface.JSON_NODE_KEYS[j])); }
+                catch (Exception e) { throw new IllegalArgumentException("binding from json cannot be handled"); }
+                if ( nodes[j] == null ) { unknownNode = true; }
+            }
+            if ( !unknownNode ) { triplePatterns.add(new TriplePattern(nodes[0], nodes[1], nodes[2])); }
+        }
+        return triplePatterns;
+    }
+
     /**
      * Converts a {@link org.json.JSONObject <code>JSONObject</code>} representing a node
      * to a VMAX node ({@link com.vmax.vmax_core.graph.Node <code>Node</code>}).
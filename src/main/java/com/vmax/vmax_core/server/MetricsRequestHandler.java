@@ -0,0 +1,52 @@
+package com.vmax.vmax_core.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.vmax.vmax_core.metrics.VmaxMetrics;
+
+/**
+ * <p>
+ * Class for a metrics request handler.
+ * </p>
+ * <p>
+ * Handles incoming GET requests and responds with the current 
+ * {@link com.vmax.vmax_core.metrics.VmaxMetrics <code>VmaxMetrics</code>} of a triple finder as a JSON object
+ * (see {@link com.vmax.vmax_core.metrics.VmaxMetrics#toJson() <code>VmaxMetrics.toJson()</code>}).
+ * </p>
+ */
+public class MetricsRequestHandler implements HttpHandler {
+
+    private final VmaxMetrics metrics;
+
+    /**
+     * Creates a request handler for the given metrics.
+     * @param metrics - The metrics to respond with
+     */
+    public MetricsRequestHandler(VmaxMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        // reject (code 405) if any other method than GET is chosen
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getRequestBody().close();
+        byte[] responseBytes = this.metrics.toJson().toString().getBytes(StandardCharsets.UTF_8);
+        // send response with code 200
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, responseBytes.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(responseBytes);
+        output.flush();
+        exchange.close();
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.vmax.vmax_core.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.vmax.vmax_core.metrics.VmaxMetrics;
+
+/**
+ * <p>
+ * Class for a servlet responding to GET requests with the current 
+ * {@link com.vmax.vmax_core.metrics.VmaxMetrics <code>VmaxMetrics</code>} of a triple finder as a JSON object.
+ * </p>
+ * <p>
+ * Counterpart of the {@link com.vmax.vmax_core.server.MetricsRequestHandler <code>MetricsRequestHandler</code>}
+ * for the Fuseki server of the {@link com.vmax.vmax_core.server.SparqlServer <code>SparqlServer</code>}.
+ * </p>
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient VmaxMetrics metrics;
+
+    /**
+     * Creates a servlet for the given metrics.
+     * @param metrics - The metrics to respond with
+     */
+    public MetricsServlet(VmaxMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        byte[] responseBytes = this.metrics.toJson().toString().getBytes(StandardCharsets.UTF_8);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/json");
+        response.setContentLength(responseBytes.length);
+        response.getOutputStream().write(responseBytes);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.vmax.vmax_core.server;
+
+/**
+ * Enum for the modes of executing requests of the {@link com.vmax.vmax_core.server.TriplePatternServer <code>TriplePatternServer</code>}.
+ */
+public enum ServerExecutorMode {
+
+    // options
+    /** All requests are executed one after another on the dispatcher thread of the server */
+    SINGLE_THREAD,
+    /** Requests are executed concurrently on a bounded pool of platform threads */
+    THREAD_POOL,
+    /**
+     * Each request is executed on its own virtual thread, if the Java runtime supports virtual threads (Java 21 or later).
+     * Otherwise, each request is executed on a thread of an unbounded pool of platform threads.
+     */
+    THREAD_PER_REQUEST;
+
+}
@@ -1,7 +1,10 @@
 package com.vmax.vmax_core.server;
 
+import java.time.Duration;
+
 import org.apache.jena.fuseki.main.FusekiServer;
 import org.apache.jena.fuseki.system.FusekiLogging;
+import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.DatasetGraphFactory;
 
 import com.vmax.vmax_core.api_helper.ApiHelper;
@@ -14,6 +17,13 @@ import com.vmax.vmax_core.api_helper.ApiHelper;
  * SPARQL query logic is realized by the Apache Jena Query Engine.
  * The queried graph is a {@link com.vmax.vmax_core.server.VirtualGraph <code>VirtualGraph</code>}, 
  * which redirects triple pattern queries to {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>}.
+ * Basic graph patterns are evaluated by a {@link com.vmax.vmax_core.server.VirtualGraphStageGenerator <code>VirtualGraphStageGenerator</code>}
+ * using batched bound joins, after the triple patterns have been reordered by their estimated cardinality.
+ * </p>
+ * <p>
+ * The metrics of the triple finder (see {@link com.vmax.vmax_core.metrics.VmaxMetrics <code>VmaxMetrics</code>}) 
+ * can be requested as JSON using the GET method on the /metrics route (e.g http://localhost:3030/metrics).
+ * While the server is active, they are also registered as an MBean named <code>SparqlServer-&lt;port&gt;</code>.
  * </p>
  * <p>
  * To instantiate the server, pass an implementation of the abstract class 
@@ -34,10 +44,12 @@ public class SparqlServer extends VmaxServer {
 
 	private final VirtualGraph graph;
 	private FusekiServer server;
+	/** Interval to refresh the statistics used to reorder triple patterns, <code>null</code> to create them only once */
+	private Duration statisticsRefreshInterval = null;
 
     public SparqlServer(ApiHelper apiHelper) {
 		super(apiHelper);
-		this.graph = new VirtualGraph(this.apiHelper);
+		this.graph = new VirtualGraph(this.apiHelper, this.tripleFinder);
     }
 
     /**
@@ -49,6 +61,15 @@ public class SparqlServer extends VmaxServer {
         try {
             // set logging
             FusekiLogging.setLogging();
+            // create dataset for the virtual graph and register the stage generator for batched bound joins
+            DatasetGraph datasetGraph = DatasetGraphFactory.wrap(this.graph);
+            VirtualGraphStageGenerator.register(datasetGraph.getContext());
+            // create statistics before the server is started, so the first query is not delayed by it,
+            // and refresh them periodically, if enabled
+            this.tripleFinder.getStatistics().refresh();
+            if (this.statisticsRefreshInterval != null) {
+                this.tripleFinder.getStatistics().startPeriodicRefresh(this.statisticsRefreshInterval);
+            }
             // create and build server     
 			this.server = FusekiServer
 					.create()
@@ -56,11 +77,18 @@ public class SparqlServer extends VmaxServer {
 					.loopback(true)
 					.verbose(false)
 					.enablePing(true)
-					.add("/data", DatasetGraphFactory.wrap(graph))
+					.add("/data", datasetGraph)
+					.addServlet("/metrics", new MetricsServlet(this.tripleFinder.getMetrics()))
 					.build();
-            // start server
+            // register metrics via JMX and start server
+			this.tripleFinder.getMetrics().registerMBean("SparqlServer-" + this.port);
 			this.server.start();	
 		} catch (Exception e) {
+			// release everything acquired so far, so the server can be activated again
+			if (this.server != null) { this.server.stop(); }
+			this.server = null;
+			this.tripleFinder.getMetrics().unregisterMBean();
+			this.tripleFinder.close();
 			throw new Exception("error trying to start the server", e);	
 		}
     };
@@ -71,6 +99,22 @@ public class SparqlServer extends VmaxServer {
 	@Override
     public void deactivate() {
         this.server.stop();
+        this.tripleFinder.close();
+        this.tripleFinder.getMetrics().unregisterMBean();
+    }
+
+    public Duration getStatisticsRefreshInterval() {
+        return this.statisticsRefreshInterval;
+    }
+
+    /**
+     * Sets the interval to refresh the statistics used to reorder triple patterns in the background.
+     * Only enable periodic refreshes if the API of the tool is thread-safe.
+     * Has to be set before the server is activated.
+     * @param statisticsRefreshInterval - The interval, <code>null</code> to create the statistics only once when the server is activated (default)
+     */
+    public void setStatisticsRefreshInterval(Duration statisticsRefreshInterval) {
+        this.statisticsRefreshInterval = statisticsRefreshInterval;
     }
 
 }
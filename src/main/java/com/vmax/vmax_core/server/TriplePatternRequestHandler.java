@@ -1,12 +1,15 @@
 package com.vmax.vmax_core.server;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
-import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.sun.net.httpserver.HttpExchange;
@@ -15,6 +18,7 @@ import com.vmax.vmax_core.api_helper.ApiHelper;
 import com.vmax.vmax_core.graph.Triple;
 import com.vmax.vmax_core.graph.TriplePattern;
 import com.vmax.vmax_core.triple_finder.TripleFinder;
+import com.vmax.vmax_core.triple_finder.TripleIterator;
 
 /**
  * <p>
@@ -24,6 +28,29 @@ import com.vmax.vmax_core.triple_finder.TripleFinder;
  * Handles incoming POST requests.
  * Converts the incoming stream to a JSON object, and redirects it to the {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>}.
  * </p>
+ * <p>
+ * The JSON object may contain a list of solution bindings for the unbound nodes of the triple pattern
+ * under the key <code>bindings</code> (see {@link com.vmax.vmax_core.server.JsonInterface#createTriplePatternsFromJsonBindings 
+ * <code>JsonInterface.createTriplePatternsFromJsonBindings</code>}).
+ * In this case, only the triples compatible with any of the bindings are returned,
+ * so a client evaluating a join needs a single request instead of one request per binding, e.g.:
+ * </p>
+ * <p>
+ * <code>
+ * {"subject": {"type": "UNBOUND"}, "predicate": {"type": "URI", "uri": "..."}, "object": {"type": "UNBOUND"},
+ * "bindings": [{"subject": {"type": "URI", "uri": "..."}}, {"subject": {"type": "URI", "uri": "..."}}]}
+ * </code>
+ * </p>
+ * <p>
+ * The matching triples are streamed to the client as a JSON array using chunked transfer encoding,
+ * while they are retrieved lazily from the API, so the server does not hold the whole response in memory.
+ * Large results can be fetched page by page using the optional keys <code>offset</code> (number of triples to skip)
+ * and <code>limit</code> (maximum number of triples to return) of the JSON object.
+ * Once the limit is reached, no more triples are requested from the API.
+ * Invalid requests, including an <code>offset</code> or <code>limit</code> that is not a non-negative integer, are rejected with code 400.
+ * If the evaluation fails before the first triple is sent, the request is rejected with code 500 and the error in the body,
+ * as by the {@link com.vmax.vmax_core.server.BatchTriplePatternRequestHandler <code>BatchTriplePatternRequestHandler</code>}.
+ * </p>
  */
 public class TriplePatternRequestHandler implements HttpHandler {
 
@@ -31,7 +58,16 @@ public class TriplePatternRequestHandler implements HttpHandler {
     private final JsonInterface jsonInterface;
 
     public TriplePatternRequestHandler(ApiHelper apiHelper) {
-        this.tripleFinder = new TripleFinder(apiHelper);
+        this(apiHelper, new TripleFinder(apiHelper));
+    }
+
+    /**
+     * Creates a request handler using an existing triple finder, e.g. a triple finder in materialized mode.
+     * @param apiHelper - The API helper to convert JSON nodes
+     * @param tripleFinder - The triple finder to redirect triple pattern requests to
+     */
+    public TriplePatternRequestHandler(ApiHelper apiHelper, TripleFinder tripleFinder) {
+        this.tripleFinder = tripleFinder;
         this.jsonInterface = new JsonInterface(apiHelper);
     }
 
@@ -41,43 +77,92 @@ public class TriplePatternRequestHandler implements HttpHandler {
         if (!"POST".equals(exchange.getRequestMethod())) {
             exchange.sendResponseHeaders(405, -1);
             exchange.close();
+            return;
         }
         // read input stream to get request as string
-        InputStreamReader inputStreamReader =  new InputStreamReader(exchange.getRequestBody(),"utf-8");
-        BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
-        int b;
-        StringBuilder stringBuilder = new StringBuilder(512);
-        while ((b = bufferedReader.read()) != -1) 
-            { stringBuilder.append((char) b); }
-        String requestString = stringBuilder.toString();
-        // close 
-        bufferedReader.close();
-        inputStreamReader.close();
-        // convert request to JSON object
-        JSONObject requestAsJson = new JSONObject(requestString);
-        // convert JSON object to triple pattern
-        TriplePattern requestTriplePattern = this.jsonInterface.createTriplePatternFromJsonData(requestAsJson);
+        String requestString = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        exchange.getRequestBody().close();
+        // convert request to JSON object and triple pattern, reject (code 400) if not possible
+        JSONObject requestAsJson;
+        TriplePattern requestTriplePattern;
+        long offset, limit;
+        try {
+            requestAsJson = new JSONObject(requestString);
+            requestTriplePattern = this.jsonInterface.createTriplePatternFromJsonData(requestAsJson);
+            // get paging parameters
+            offset = TriplePatternRequestHandler.getPagingParameter(requestAsJson, JsonInterface.JSON_OFFSET_KEY, 0);
+            limit = TriplePatternRequestHandler.getPagingParameter(requestAsJson, JsonInterface.JSON_LIMIT_KEY, Long.MAX_VALUE);
+        } catch (JSONException | IllegalArgumentException e) {
+            exchange.sendResponseHeaders(400, -1);
+            exchange.close();
+            return;
+        }
         // get matching triples from triple finder
-        List<Triple> responseTriples = this.tripleFinder.find(requestTriplePattern);
-        // convert triples to JSON array
-        JSONArray responseAsJson = new JSONArray();
-        String responseString;
-        // check if response is not null and not empty
-        // if so, convert each triple to JSON and put it on response array
-        if ( responseTriples != null && !responseTriples.isEmpty() ) {
-            for (Triple responseTriple : responseTriples) { 
-                responseAsJson.put(responseTriple.toJson()); 
+        Iterator<Triple> responseTriples;
+        if ( requestTriplePattern == null ) {
+            // triple pattern contains a node unknown to the API, so no triples can match
+            responseTriples = Collections.emptyIterator();
+        } else if ( requestAsJson.has(JsonInterface.JSON_BINDINGS_KEY) ) {
+            // if solution bindings are given, only get triples compatible with any of the bindings
+            List<TriplePattern> boundTriplePatterns;
+            try {
+                boundTriplePatterns = this.jsonInterface.createTriplePatternsFromJsonBindings(
+                    requestTriplePattern, requestAsJson.getJSONArray(JsonInterface.JSON_BINDINGS_KEY));
+            } catch (JSONException | IllegalArgumentException e) {
+                exchange.sendResponseHeaders(400, -1);
+                exchange.close();
+                return;
             }
-            responseString = responseAsJson.toString();
-        // if empty or null, set responseString to "[]" to return an empty JSON array
+            // evaluate the bound triple patterns lazily, so no more triple patterns are evaluated once the limit is reached
+            responseTriples = this.tripleFinder.findAllLazily(boundTriplePatterns);
         } else {
-            responseString = "[]";
+            // find triples lazily
+            responseTriples = this.tripleFinder.findLazily(requestTriplePattern);
+        }
+        // skip the offset and evaluate up to the first triple before the response is started,
+        // so that a failure of the API can still be rejected (code 500) with the error in the body
+        try {
+            if ( responseTriples instanceof TripleIterator ) { ((TripleIterator) responseTriples).skip(offset); }
+            if ( limit > 0 ) { responseTriples.hasNext(); }
+        } catch (RuntimeException e) {
+            ((TripleIterator) responseTriples).close();
+            BatchTriplePatternRequestHandler.sendError(exchange, e);
+            return;
+        }
+        // send response with code 200 and chunked transfer encoding (response length 0),
+        // and stream triples to the response as a JSON array, until the limit is reached
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            writer.write('[');
+            long tripleCount = 0;
+            while ( tripleCount < limit && responseTriples.hasNext() ) {
+                if ( tripleCount > 0 ) { writer.write(','); }
+                responseTriples.next().toJson().write(writer);
+                tripleCount++;
+            }
+            writer.write(']');
+        } finally {
+            // close lazy iterator, so no more triples are requested from the API after the limit is reached
+            if ( responseTriples instanceof TripleIterator ) { ((TripleIterator) responseTriples).close(); }
+            exchange.close();
         }
-        // send response with code 200
-        exchange.sendResponseHeaders(200, responseString.getBytes().length);
-        OutputStream output = exchange.getResponseBody();
-        output.write(responseString.getBytes());
-        output.flush();
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns the value of a paging parameter of the request, or the given default value if the parameter is missing.
+     * Throws an {@link java.lang.IllegalArgumentException <code>IllegalArgumentException</code>} 
+     * if the value is not a non-negative integer.
+     * @param requestAsJson - The request
+     * @param key - The key of the paging parameter
+     * @param defaultValue - The value if the parameter is missing
+     */
+    private static long getPagingParameter(JSONObject requestAsJson, String key, long defaultValue) {
+        if ( !requestAsJson.has(key) ) { return defaultValue; }
+        Object value = requestAsJson.get(key);
+        if ( !(value instanceof Integer || value instanceof Long) ) { throw new IllegalArgumentException(key + " must be an integer"); }
+        long longValue = ((Number) value).longValue();
+        if ( longValue < 0 ) { throw new IllegalArgumentException(key + " can't be negative"); }
+        return longValue;
+    }
+
+}
@@ -1,7 +1,15 @@
 package com.vmax.vmax_core.server;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
 
 import com.sun.net.httpserver.HttpServer;
 import com.vmax.vmax_core.api_helper.ApiHelper;
@@ -15,18 +23,51 @@ import com.vmax.vmax_core.api_helper.ApiHelper;
  * {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper<c/ode>} to the constructor.
  * </p>
  * <p>
- * The default port is <code>8080</code> and can be changed in the {@link #port <code>port</code>} field.
+ * The default port is <code>8080</code> and can be changed using {@link #setPort(int) <code>setPort(int)</code>}.
  * Queries can be sent using the POST method to the /triple route (e.g http://localhost:8080/triple), 
  * with the triple pattern formatted as a JSON object in the body of the request.
  * See {@link com.vmax.vmax_core.server.TriplePatternRequestHandler <code>TriplePatternRequestHandler</code>} for 
  * more details on the JSON format.
  * </p>
+ * <p>
+ * Multiple triple patterns can be sent at once as a JSON array using the POST method to the /batch route
+ * (e.g http://localhost:8080/batch).
+ * See {@link com.vmax.vmax_core.server.BatchTriplePatternRequestHandler <code>BatchTriplePatternRequestHandler</code>} for 
+ * more details on the JSON format.
+ * The triple patterns of a batch are evaluated sequentially, unless a batch parallelism greater than <code>1</code>
+ * is set using {@link #setBatchParallelism(int) <code>setBatchParallelism(int)</code>}.
+ * </p>
+ * <p>
+ * The metrics of the triple finder (see {@link com.vmax.vmax_core.metrics.VmaxMetrics <code>VmaxMetrics</code>}) 
+ * can be requested as JSON using the GET method on the /metrics route (e.g http://localhost:8080/metrics).
+ * While the server is active, they are also registered as an MBean named <code>TriplePatternServer-&lt;port&gt;</code>.
+ * </p>
+ * <p>
+ * By default, all requests are executed one after another on the dispatcher thread of the server.
+ * To execute requests concurrently, choose another {@link com.vmax.vmax_core.server.ServerExecutorMode <code>ServerExecutorMode</code>}
+ * using {@link #setExecutorMode(ServerExecutorMode) <code>setExecutorMode(ServerExecutorMode)</code>}.
+ * Only do so if the API of the tool is thread-safe.
+ * All settings have to be made before the server is activated.
+ * </p>
  */
 public class TriplePatternServer extends VmaxServer {
 
-    private final int port = 8080;
+    /** Default number of threads in mode {@link ServerExecutorMode#THREAD_POOL <code>THREAD_POOL</code>} */
+    public static final int DEFAULT_THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private int port = 8080;
+    /** Maximum number of queued incoming connections, <code>0</code> for the default of the system */
+    private int backlog = 0;
+    /** Address to bind the server to, <code>null</code> for the wildcard address */
+    private InetAddress bindAddress = null;
+    private ServerExecutorMode executorMode = ServerExecutorMode.SINGLE_THREAD;
+    private int threadPoolSize = DEFAULT_THREAD_POOL_SIZE;
+    /** Number of triple patterns of a batch evaluated concurrently, <code>1</code> to evaluate them sequentially */
+    private int batchParallelism = 1;
 
     private HttpServer httpServer;
+    private ExecutorService executorService;
+    private ForkJoinPool batchPool;
     private final TriplePatternRequestHandler vmaxRequestHandler;
 
     /**
@@ -37,7 +78,7 @@ public class TriplePatternServer extends VmaxServer {
      */
     public TriplePatternServer(ApiHelper apiHelper) {
         super(apiHelper);  
-        this.vmaxRequestHandler = new TriplePatternRequestHandler(this.apiHelper);
+        this.vmaxRequestHandler = new TriplePatternRequestHandler(this.apiHelper, this.tripleFinder);
     }
 
     /**
@@ -47,12 +88,28 @@ public class TriplePatternServer extends VmaxServer {
     @Override
     public void activate() throws IOException {
         // create server
-        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        InetSocketAddress socketAddress = ( this.bindAddress == null )
+            ? new InetSocketAddress(this.port) : new InetSocketAddress(this.bindAddress, this.port);
+        this.httpServer = HttpServer.create(socketAddress, this.backlog);
         // create POST route to request triple patterns
-        httpServer.createContext("/triple", this.vmaxRequestHandler);
-        // create a default executor and start server
-        httpServer.setExecutor(null); 
-        httpServer.start();
+        this.httpServer.createContext("/triple", this.vmaxRequestHandler);
+        // create POST route to request batches of triple patterns
+        this.batchPool = ( this.batchParallelism > 1 ) ? new ForkJoinPool(this.batchParallelism) : null;
+        this.httpServer.createContext("/batch", new BatchTriplePatternRequestHandler(this.apiHelper, this.tripleFinder, this.batchPool));
+        // create GET route to request metrics
+        this.httpServer.createContext("/metrics", new MetricsRequestHandler(this.tripleFinder.getMetrics()));
+        // create executor according to the executor mode and start server
+        this.executorService = this.createExecutorService();
+        this.httpServer.setExecutor(this.executorService);
+        this.httpServer.start();
+        // register metrics via JMX, stop the server again if not possible
+        // (the server is started first, as the socket of a server, which has never been started, is not released by stopping it)
+        try { 
+            this.tripleFinder.getMetrics().registerMBean("TriplePatternServer-" + this.httpServer.getAddress().getPort()); 
+        } catch (JMException e) {
+            this.deactivate();
+            throw new IOException("metrics could not be registered via JMX", e);
+        }
     };
 
     /**
@@ -61,6 +118,116 @@ public class TriplePatternServer extends VmaxServer {
     @Override
     public void deactivate() {
         this.httpServer.stop(0);
+        this.tripleFinder.getMetrics().unregisterMBean();
+        this.tripleFinder.close();
+        if ( this.executorService != null ) { this.executorService.shutdownNow(); }
+        this.executorService = null;
+        if ( this.batchPool != null ) { this.batchPool.shutdownNow(); }
+        this.batchPool = null;
+    }
+
+    /**
+     * Creates the executor for the executor mode.
+     * Returns <code>null</code> in mode {@link ServerExecutorMode#SINGLE_THREAD <code>SINGLE_THREAD</code>},
+     * so the dispatcher thread of the server is used.
+     */
+    private ExecutorService createExecutorService() {
+        switch (this.executorMode) {
+            case SINGLE_THREAD:
+                return null;
+            case THREAD_POOL:
+                return Executors.newFixedThreadPool(this.threadPoolSize, TriplePatternServer.createThreadFactory());
+            case THREAD_PER_REQUEST:
+                // virtual threads are only available in Java 21 or later, so they are created via reflection
+                try {
+                    return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    return Executors.newCachedThreadPool(TriplePatternServer.createThreadFactory());
+                }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a factory for named daemon threads, so that worker threads do not prevent the tool from exiting.
+     */
+    private static ThreadFactory createThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return (Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "vmax-triple-pattern-server-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public int getPort() {
+        return this.port;
+    }
+
+    public void setPort(int port) {
+        if ( port < 0 || port > 65535 ) { throw new IllegalArgumentException("port must be between 0 and 65535"); }
+        this.port = port;
+    }
+
+    public int getBacklog() {
+        return this.backlog;
+    }
+
+    /**
+     * Sets the maximum number of queued incoming connections.
+     * @param backlog - The backlog, <code>0</code> for the default of the system
+     */
+    public void setBacklog(int backlog) {
+        if ( backlog < 0 ) { throw new IllegalArgumentException("backlog can't be negative"); }
+        this.backlog = backlog;
+    }
+
+    public InetAddress getBindAddress() {
+        return this.bindAddress;
+    }
+
+    /**
+     * Sets the address to bind the server to, e.g. the loopback address to only accept local connections.
+     * @param bindAddress - The address, <code>null</code> for the wildcard address
+     */
+    public void setBindAddress(InetAddress bindAddress) {
+        this.bindAddress = bindAddress;
+    }
+
+    public ServerExecutorMode getExecutorMode() {
+        return this.executorMode;
+    }
+
+    public void setExecutorMode(ServerExecutorMode executorMode) {
+        if ( executorMode == null ) { throw new IllegalArgumentException("executor mode can't be null"); }
+        this.executorMode = executorMode;
+    }
+
+    public int getThreadPoolSize() {
+        return this.threadPoolSize;
+    }
+
+    /**
+     * Sets the number of threads in mode {@link ServerExecutorMode#THREAD_POOL <code>THREAD_POOL</code>}.
+     * @param threadPoolSize - The number of threads
+     */
+    public void setThreadPoolSize(int threadPoolSize) {
+        if ( threadPoolSize < 1 ) { throw new IllegalArgumentException("thread pool size must be at least 1"); }
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    public int getBatchParallelism() {
+        return this.batchParallelism;
+    }
+
+    /**
+     * Sets the number of triple patterns of a batch evaluated concurrently.
+     * Only set a value greater than <code>1</code> if the API of the tool is thread-safe.
+     * @param batchParallelism - The parallelism, <code>1</code> to evaluate triple patterns sequentially
+     */
+    public void setBatchParallelism(int batchParallelism) {
+        if ( batchParallelism < 1 ) { throw new IllegalArgumentException("batch parallelism must be at least 1"); }
+        this.batchParallelism = batchParallelism;
     }
 
 }
\ No newline at end of file
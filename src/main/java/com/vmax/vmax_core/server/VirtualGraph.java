@@ -1,16 +1,25 @@
 package com.vmax.vmax_core.server;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.apache.jena.graph.impl.GraphBase;
 import org.apache.jena.util.iterator.ExtendedIterator;
-import org.apache.jena.util.iterator.WrappedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
+import org.apache.jena.util.iterator.NullIterator;
 
 import com.vmax.vmax_core.api_helper.ApiHelper;
+import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.graph.Node;
 import com.vmax.vmax_core.graph.Triple;
 import com.vmax.vmax_core.graph.TriplePattern;
 import com.vmax.vmax_core.triple_finder.TripleFinder;
+import com.vmax.vmax_core.triple_finder.TripleIterator;
+import com.vmax.vmax_core.triple_finder.TripleStatistics;
 
 /**
  * <p>
@@ -21,6 +30,8 @@ import com.vmax.vmax_core.triple_finder.TripleFinder;
  * by overriding the {@link #graphBaseFind <code>graphBaseFind</code>}, which is a method that retrieves triples from the graph based on a triple pattern.
  * The overriding method redirects the triple pattern queries to a {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>}, 
  * which retrieves data from the API.
+ * Triples are retrieved lazily, i.e. the API is only called while ARQ consumes the returned iterator.
+ * </p>
  */
 public class VirtualGraph extends GraphBase {
 
@@ -28,7 +39,16 @@ public class VirtualGraph extends GraphBase {
     private final JenaInterface jenaInterface;
 
     public VirtualGraph(ApiHelper apiHelper) {
-        this.tripleFinder = new TripleFinder(apiHelper);
+        this(apiHelper, new TripleFinder(apiHelper));
+    }
+
+    /**
+     * Creates a virtual graph using an existing triple finder, e.g. a triple finder in materialized mode.
+     * @param apiHelper - The API helper to convert Jena nodes
+     * @param tripleFinder - The triple finder to redirect triple pattern queries to
+     */
+    public VirtualGraph(ApiHelper apiHelper, TripleFinder tripleFinder) {
+        this.tripleFinder = tripleFinder;
         this.jenaInterface = new JenaInterface(apiHelper);
     }
 
@@ -36,25 +56,165 @@ public class VirtualGraph extends GraphBase {
     protected ExtendedIterator<org.apache.jena.graph.Triple> graphBaseFind(org.apache.jena.graph.Triple jenaTriplePattern) {
         // convert incoming jena triple to vmax triple pattern
         TriplePattern requestTriplePattern = this.jenaInterface.createTriplePatternFromJenaTriple(jenaTriplePattern);
-        // find triples using the triple finder
-        List<Triple> responseTriples = this.tripleFinder.find(requestTriplePattern);
-        // init empty list of jena triples
-        List<org.apache.jena.graph.Triple> responseJenaTriples = new ArrayList<org.apache.jena.graph.Triple>();
-        // if list of response triples is null or empty, no triples were found
-        if (responseTriples == null || responseTriples.isEmpty()) {
-            // in this case, just continue, so the initial empty list is wrapped and returned
-        } else {
-            // convert vmax triples to jena triples
-            for (Triple responseTriple : responseTriples) {
-                org.apache.jena.graph.Triple jenaTriple = responseTriple.toJenaTriple();
-                if (jenaTriple == null) {
-                    continue;
+        // if the triple pattern cannot be converted (e.g. unknown URI), no triples can match
+        if (requestTriplePattern == null) { return NullIterator.instance(); }
+        // find triples lazily using the triple finder and convert them while they are consumed
+        return new JenaTripleIterator(this.tripleFinder.findLazily(requestTriplePattern));
+    }
+
+    /**
+     * Checks if the graph contains a triple matching the given Jena triple pattern.
+     * Overridden, so that the triple finder stops at the first match instead of converting all matching triples
+     * (see {@link com.vmax.vmax_core.triple_finder.TripleFinder#contains <code>TripleFinder.contains</code>}).
+     */
+    @Override
+    protected boolean graphBaseContains(org.apache.jena.graph.Triple jenaTriplePattern) {
+        // convert incoming jena triple to vmax triple pattern
+        TriplePattern requestTriplePattern = this.jenaInterface.createTriplePatternFromJenaTriple(jenaTriplePattern);
+        // if the triple pattern cannot be converted (e.g. unknown URI), no triples can match
+        if (requestTriplePattern == null) { return false; }
+        return this.tripleFinder.contains(requestTriplePattern);
+    }
+
+    /**
+     * Returns the number of triples of the graph.
+     * Overridden, so that the triples are counted by the triple finder instead of iterating over all triples
+     * (see {@link com.vmax.vmax_core.triple_finder.TripleFinder#count <code>TripleFinder.count</code>}).
+     */
+    @Override
+    protected int graphBaseSize() {
+        return (int) Math.min(Integer.MAX_VALUE, this.tripleFinder.count());
+    }
+
+    /**
+     * <p>
+     * Returns the estimated number of triples matching a triple pattern with the given bound and unbound nodes,
+     * based on the {@link com.vmax.vmax_core.triple_finder.TripleStatistics <code>TripleStatistics</code>} of the triple finder.
+     * </p>
+     * <p>
+     * The predicate is either a concrete node, {@link org.apache.jena.graph.Node#ANY <code>Node.ANY</code>} for a predicate that will be bound
+     * to an unknown node (the average of all predicates is estimated) or <code>null</code> for an unbound predicate.
+     * Predicates unknown to the API match no triples.
+     * </p>
+     * @param subjectBound - <code>true</code> if the subject of the triple pattern is bound
+     * @param predicate - The predicate of the triple pattern
+     * @param objectBound - <code>true</code> if the object of the triple pattern is bound
+     */
+    public long estimateTripleCount(boolean subjectBound, org.apache.jena.graph.Node predicate, boolean objectBound) {
+        TripleStatistics tripleStatistics = this.tripleFinder.getStatistics();
+        // unbound predicate
+        if (predicate == null) { return tripleStatistics.estimateTripleCount(subjectBound, null, objectBound); }
+        // predicate bound to an unknown node
+        if (predicate.equals(org.apache.jena.graph.Node.ANY)) {
+            long allPredicatesEstimate = tripleStatistics.estimateTripleCount(subjectBound, null, objectBound);
+            return allPredicatesEstimate / Math.max(1, tripleStatistics.getPredicateCount());
+        }
+        // concrete predicate
+        Node vmaxPredicate = this.jenaInterface.getNodeFromJenaNode(predicate);
+        if (!(vmaxPredicate instanceof BoundNode)) { return 0; }
+        return tripleStatistics.estimateTripleCount(subjectBound, (BoundNode) vmaxPredicate, objectBound);
+    }
+
+    /**
+     * Returns the triple finder of the virtual graph.
+     */
+    public TripleFinder getTripleFinder() {
+        return this.tripleFinder;
+    }
+
+    /**
+     * Closes the graph and unregisters the statistics of its triple finder from the API helper
+     * (see {@link com.vmax.vmax_core.triple_finder.TripleFinder#close <code>TripleFinder.close</code>}).
+     */
+    @Override
+    public void close() {
+        super.close();
+        this.tripleFinder.close();
+    }
+
+    /**
+     * <p>
+     * Returns the Jena triples matching each of the given Jena triple patterns, mapped by triple pattern.
+     * </p>
+     * <p>
+     * In contrast to calling {@link #find(org.apache.jena.graph.Triple) <code>find(Triple)</code>} for each triple pattern,
+     * the triple patterns are passed to the triple finder at once,
+     * so duplicates are evaluated only once and the triple patterns are evaluated grouped by predicate
+     * (see {@link com.vmax.vmax_core.triple_finder.TripleFinder#findEach <code>TripleFinder.findEach</code>}).
+     * Triple patterns that cannot be converted (e.g. unknown URI) are mapped to an empty list.
+     * </p>
+     * @param jenaTriplePatterns - The distinct Jena triple patterns, using {@link org.apache.jena.graph.Node#ANY <code>Node.ANY</code>} for unbound nodes
+     */
+    public Map<org.apache.jena.graph.Triple, List<org.apache.jena.graph.Triple>> findEach(Collection<org.apache.jena.graph.Triple> jenaTriplePatterns) {
+        // convert all jena triple patterns to vmax triple patterns
+        Map<org.apache.jena.graph.Triple, TriplePattern> requestTriplePatterns = new LinkedHashMap<org.apache.jena.graph.Triple, TriplePattern>();
+        for (org.apache.jena.graph.Triple jenaTriplePattern: jenaTriplePatterns) {
+            requestTriplePatterns.put(jenaTriplePattern, this.jenaInterface.createTriplePatternFromJenaTriple(jenaTriplePattern));
+        }
+        // find triples of all convertible triple patterns at once
+        List<TriplePattern> convertibleTriplePatterns = new ArrayList<TriplePattern>();
+        for (TriplePattern requestTriplePattern: requestTriplePatterns.values()) {
+            if (requestTriplePattern != null) { convertibleTriplePatterns.add(requestTriplePattern); }
+        }
+        Map<TriplePattern, List<Triple>> responseTriples = this.tripleFinder.findEach(convertibleTriplePatterns);
+        // convert resulting triples to jena triples
+        Map<org.apache.jena.graph.Triple, List<org.apache.jena.graph.Triple>> jenaTriples = new LinkedHashMap<org.apache.jena.graph.Triple, List<org.apache.jena.graph.Triple>>();
+        for (Map.Entry<org.apache.jena.graph.Triple, TriplePattern> entry: requestTriplePatterns.entrySet()) {
+            List<org.apache.jena.graph.Triple> convertedTriples = new ArrayList<org.apache.jena.graph.Triple>();
+            if (entry.getValue() != null) {
+                for (Triple responseTriple: responseTriples.get(entry.getValue())) {
+                    org.apache.jena.graph.Triple jenaTriple = responseTriple.toJenaTriple();
+                    if (jenaTriple != null) { convertedTriples.add(jenaTriple); }
                 }
-                responseJenaTriples.add(jenaTriple);
             }
+            jenaTriples.put(entry.getKey(), convertedTriples);
+        }
+        return jenaTriples;
+    }
+
+    /**
+     * <p>
+     * Iterator converting the VMAX triples of a {@link com.vmax.vmax_core.triple_finder.TripleIterator <code>TripleIterator</code>}
+     * to Jena triples while they are consumed.
+     * </p>
+     * <p>
+     * Triples that cannot be converted are skipped.
+     * Closing this iterator (e.g. by ARQ when a query does not need further results) closes the underlying
+     * {@link com.vmax.vmax_core.triple_finder.TripleIterator <code>TripleIterator</code>}, so no more calls to the API are made.
+     * </p>
+     */
+    private static class JenaTripleIterator extends NiceIterator<org.apache.jena.graph.Triple> {
+
+        private final TripleIterator tripleIterator;
+        private org.apache.jena.graph.Triple nextJenaTriple;
+
+        private JenaTripleIterator(TripleIterator tripleIterator) {
+            this.tripleIterator = tripleIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // convert triples until a convertible triple is found or the triple iterator is exhausted
+            while (this.nextJenaTriple == null && this.tripleIterator.hasNext()) {
+                this.nextJenaTriple = this.tripleIterator.next().toJenaTriple();
+            }
+            return this.nextJenaTriple != null;
         }
-        // wrap list as iterator and return
-        return WrappedIterator.create(responseJenaTriples.iterator());
+
+        @Override
+        public org.apache.jena.graph.Triple next() {
+            if (!this.hasNext()) { throw new NoSuchElementException("virtual graph iterator is exhausted"); }
+            org.apache.jena.graph.Triple jenaTriple = this.nextJenaTriple;
+            this.nextJenaTriple = null;
+            return jenaTriple;
+        }
+
+        @Override
+        public void close() {
+            this.nextJenaTriple = null;
+            this.tripleIterator.close();
+        }
+
     }
 
 }
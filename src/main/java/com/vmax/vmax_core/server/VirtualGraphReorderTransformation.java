@@ -0,0 +1,56 @@
+package com.vmax.vmax_core.server;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.engine.optimizer.reorder.PatternElements;
+import org.apache.jena.sparql.engine.optimizer.reorder.PatternTriple;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformationSubstitution;
+import org.apache.jena.sparql.sse.Item;
+
+/**
+ * <p>
+ * Class for a reordering of the triple patterns of a basic graph pattern on a
+ * {@link com.vmax.vmax_core.server.VirtualGraph <code>VirtualGraph</code>} by their estimated cardinality.
+ * </p>
+ * <p>
+ * The triple pattern with the smallest estimated number of triples is evaluated first.
+ * Afterwards, its variables are considered bound for the remaining triple patterns, which are then weighted again.
+ * The estimates are taken from the {@link com.vmax.vmax_core.triple_finder.TripleStatistics <code>TripleStatistics</code>}
+ * of the triple finder of the virtual graph (see {@link com.vmax.vmax_core.server.VirtualGraph#estimateTripleCount
+ * <code>VirtualGraph.estimateTripleCount</code>}).
+ * </p>
+ */
+public class VirtualGraphReorderTransformation extends ReorderTransformationSubstitution {
+
+    private final VirtualGraph virtualGraph;
+
+    public VirtualGraphReorderTransformation(VirtualGraph virtualGraph) {
+        this.virtualGraph = virtualGraph;
+    }
+
+    @Override
+    protected double weight(PatternTriple patternTriple) {
+        boolean subjectBound = VirtualGraphReorderTransformation.isBound(patternTriple.subject);
+        boolean objectBound = VirtualGraphReorderTransformation.isBound(patternTriple.object);
+        // concrete predicates are estimated individually,
+        // predicates bound by a previous triple pattern are estimated by the average of all predicates
+        Node predicate = null;
+        if ( VirtualGraphReorderTransformation.isConcrete(patternTriple.predicate) ) { predicate = patternTriple.predicate.getNode(); }
+        else if ( VirtualGraphReorderTransformation.isBound(patternTriple.predicate) ) { predicate = Node.ANY; }
+        return this.virtualGraph.estimateTripleCount(subjectBound, predicate, objectBound);
+    }
+
+    /**
+     * Returns <code>true</code> if the item is a concrete node or a variable bound by a previous triple pattern.
+     */
+    private static boolean isBound(Item item) {
+        return PatternElements.isAnyTerm(item) || VirtualGraphReorderTransformation.isConcrete(item);
+    }
+
+    /**
+     * Returns <code>true</code> if the item is a concrete node, i.e. not a variable or placeholder.
+     */
+    private static boolean isConcrete(Item item) {
+        return item.isNode() && !item.isVar() && item.getNode().isConcrete();
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.vmax.vmax_core.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Substitute;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingBuilder;
+import org.apache.jena.sparql.engine.iterator.QueryIter1;
+import org.apache.jena.sparql.engine.main.StageBuilder;
+import org.apache.jena.sparql.engine.main.StageGenerator;
+import org.apache.jena.sparql.engine.optimizer.reorder.ReorderTransformation;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * <p>
+ * Class for a stage generator of the Apache Jena Query Engine (ARQ), which evaluates basic graph patterns on a
+ * {@link com.vmax.vmax_core.server.VirtualGraph <code>VirtualGraph</code>} using batched bound joins.
+ * </p>
+ * <p>
+ * The standard stage generator of ARQ calls {@link org.apache.jena.graph.Graph#find <code>find</code>} of the graph
+ * once per triple pattern and incoming solution binding.
+ * This stage generator instead collects batches of incoming bindings for each triple pattern of the basic graph pattern,
+ * substitutes the bindings into the triple pattern and passes all distinct substituted triple patterns of a batch
+ * to {@link com.vmax.vmax_core.server.VirtualGraph#findEach <code>VirtualGraph.findEach</code>} at once.
+ * Bindings binding the same nodes of the triple pattern therefore share a single evaluation,
+ * and the evaluation is grouped by predicate, so join-heavy queries make far fewer calls to the API.
+ * The resulting triples are joined with the bindings of the batch.
+ * </p>
+ * <p>
+ * Before the evaluation, the triple patterns are reordered by their estimated cardinality using a 
+ * {@link com.vmax.vmax_core.server.VirtualGraphReorderTransformation <code>VirtualGraphReorderTransformation</code>},
+ * so that selective triple patterns drive the joins instead of full scans.
+ * </p>
+ * <p>
+ * Basic graph patterns on other graphs are passed to the stage generator that was registered before.
+ * </p>
+ */
+public class VirtualGraphStageGenerator implements StageGenerator {
+
+    /** Default maximum number of bindings evaluated in one batch */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final StageGenerator fallbackStageGenerator;
+    private final int batchSize;
+
+    /**
+     * Creates a new stage generator.
+     * @param fallbackStageGenerator - The stage generator for basic graph patterns on other graphs
+     * @param batchSize - The maximum number of bindings evaluated in one batch
+     */
+    public VirtualGraphStageGenerator(StageGenerator fallbackStageGenerator, int batchSize) {
+        if ( batchSize < 1 ) { throw new IllegalArgumentException("batch size must be at least 1"); }
+        this.fallbackStageGenerator = fallbackStageGenerator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Registers a new stage generator with the default batch size in the given context,
+     * e.g. the context of the dataset containing the virtual graph.
+     * The stage generator previously chosen for the context is used for basic graph patterns on other graphs.
+     * @param context - The context to register the stage generator in
+     */
+    public static void register(Context context) {
+        StageGenerator fallbackStageGenerator = StageBuilder.chooseStageGenerator(context);
+        StageBuilder.setGenerator(context, new VirtualGraphStageGenerator(fallbackStageGenerator, DEFAULT_BATCH_SIZE));
+    }
+
+    @Override
+    public QueryIterator execute(BasicPattern pattern, QueryIterator input, ExecutionContext execCxt) {
+        Graph activeGraph = execCxt.getActiveGraph();
+        if ( !(activeGraph instanceof VirtualGraph) ) {
+            return this.fallbackStageGenerator.execute(pattern, input, execCxt);
+        }
+        // reorder triple patterns by their estimated cardinality and chain one batched bound join per triple pattern
+        ReorderTransformation reorderTransformation = new VirtualGraphReorderTransformation((VirtualGraph) activeGraph);
+        BasicPattern reorderedPattern = ( pattern.size() >= 2 ) ? reorderTransformation.reorder(pattern) : pattern;
+        QueryIterator chain = input;
+        for (Triple triplePattern: reorderedPattern) {
+            chain = new BatchedBoundJoinIterator(chain, triplePattern, (VirtualGraph) activeGraph, this.batchSize, execCxt);
+        }
+        return chain;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * <p>
+     * Iterator joining the bindings of an input iterator with the triples matching a single triple pattern.
+     * </p>
+     * <p>
+     * The input bindings are read in batches.
+     * For each batch, the distinct triple patterns created by substituting the bindings are evaluated at once,
+     * then the resulting triples are joined with the bindings of the batch.
+     * </p>
+     */
+    private static class BatchedBoundJoinIterator extends QueryIter1 {
+
+        private final Triple triplePattern;
+        private final VirtualGraph virtualGraph;
+        private final int batchSize;
+        /** Joined bindings of the current batch, which have not been returned yet */
+        private Iterator<Binding> outputBindings = Collections.emptyIterator();
+
+        private BatchedBoundJoinIterator(QueryIterator input, Triple triplePattern, VirtualGraph virtualGraph, int batchSize, ExecutionContext execCxt) {
+            super(input, execCxt);
+            this.triplePattern = triplePattern;
+            this.virtualGraph = virtualGraph;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected boolean hasNextBinding() {
+            // evaluate batches until a batch produces joined bindings or the input is exhausted
+            while ( !this.outputBindings.hasNext() ) {
+                if ( !this.getInput().hasNext() ) { return false; }
+                this.outputBindings = this.evaluateNextBatch().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        protected Binding moveToNextBinding() {
+            return this.outputBindings.next();
+        }
+
+        @Override
+        protected void closeSubIterator() {
+            this.outputBindings = Collections.emptyIterator();
+        }
+
+        @Override
+        protected void requestSubCancel() { }
+
+        /**
+         * Reads the next batch of input bindings, evaluates it and returns the joined bindings.
+         */
+        private List<Binding> evaluateNextBatch() {
+            // read batch of bindings and substitute them into the triple pattern
+            List<Binding> inputBindings = new ArrayList<Binding>();
+            List<Triple> boundTriplePatterns = new ArrayList<Triple>();
+            while ( inputBindings.size() < this.batchSize && this.getInput().hasNext() ) {
+                Binding inputBinding = this.getInput().next();
+                inputBindings.add(inputBinding);
+                boundTriplePatterns.add(BatchedBoundJoinIterator.toMatchPattern(Substitute.substitute(this.triplePattern, inputBinding)));
+            }
+            // evaluate distinct triple patterns of the batch at once
+            Map<Triple, List<Triple>> matchingTriples = this.virtualGraph.findEach(new LinkedHashSet<Triple>(boundTriplePatterns));
+            // join bindings with matching triples
+            List<Binding> outputBindings = new ArrayList<Binding>();
+            for (int i = 0; i < inputBindings.size(); i++) {
+                for (Triple matchingTriple: matchingTriples.get(boundTriplePatterns.get(i))) {
+                    Binding outputBinding = this.join(inputBindings.get(i), matchingTriple);
+                    if ( outputBinding != null ) { outputBindings.add(outputBinding); }
+                }
+            }
+            return outputBindings;
+        }
+
+        /**
+         * Returns the binding extended by the variables of the triple pattern bound to the nodes of the given triple,
+         * or <code>null</code> if a variable occurring more than once in the triple pattern is bound to different nodes.
+         */
+        private Binding join(Binding inputBinding, Triple triple) {
+            BindingBuilder bindingBuilder = BindingBuilder.create(inputBinding);
+            Node[] patternNodes = { this.triplePattern.getSubject(), this.triplePattern.getPredicate(), this.triplePattern.getObject() };
+            Node[] tripleNodes = { triple.getSubject(), triple.getPredicate(), triple.getObject() };
+            for (int i = 0; i < 3; i++) {
+                if ( !Var.isVar(patternNodes[i]) ) { continue; }
+                Var var = Var.alloc(patternNodes[i]);
+                // variables bound by the input binding have already been substituted
+                if ( inputBinding.contains(var) ) { continue; }
+                Node boundNode = bindingBuilder.get(var);
+                if ( boundNode == null ) { bindingBuilder.add(var, tripleNodes[i]); }
+                else if ( !boundNode.equals(tripleNodes[i]) ) { return null; }
+            }
+            return bindingBuilder.build();
+        }
+
+        /**
+         * Replaces all variables of a triple pattern by {@link org.apache.jena.graph.Node#ANY <code>Node.ANY</code>}.
+         */
+        private static Triple toMatchPattern(Triple triplePattern) {
+            return Triple.create(
+                BatchedBoundJoinIterator.toMatchNode(triplePattern.getSubject()),
+                BatchedBoundJoinIterator.toMatchNode(triplePattern.getPredicate()),
+                BatchedBoundJoinIterator.toMatchNode(triplePattern.getObject()));
+        }
+
+        private static Node toMatchNode(Node node) {
+            return Var.isVar(node) ? Node.ANY : node;
+        }
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.vmax.vmax_core.server;
 
 import com.vmax.vmax_core.api_helper.ApiHelper;
+import com.vmax.vmax_core.triple_finder.TripleFinder;
 
 /**
  * Abstract class for a Vmax server.
@@ -9,9 +10,19 @@ import com.vmax.vmax_core.api_helper.ApiHelper;
 public abstract class VmaxServer {
     
     protected final ApiHelper apiHelper;
+    /** Triple finder shared by all handlers of the server, e.g. to switch all of them to the materialized mode at once */
+    protected final TripleFinder tripleFinder;
 
     public VmaxServer(ApiHelper apiHelper) {
         this.apiHelper = apiHelper;
+        this.tripleFinder = new TripleFinder(apiHelper);
+    }
+
+    /**
+     * Returns the triple finder used by the server.
+     */
+    public TripleFinder getTripleFinder() {
+        return this.tripleFinder;
     }
 
     /**
@@ -0,0 +1,35 @@
+package com.vmax.vmax_core.triple_finder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import com.vmax.vmax_core.graph.Triple;
+
+/**
+ * Iterator over a list of triples, which have already been computed,
+ * e.g. by a {@link com.vmax.vmax_core.triple_finder.ParallelTripleScanner <code>ParallelTripleScanner</code>}
+ * or a {@link com.vmax.vmax_core.triple_finder.TriplePatternCache <code>TriplePatternCache</code>}.
+ */
+final class ListTripleIterator extends TripleIterator {
+
+    private List<Triple> triples;
+    private int index = 0;
+
+    ListTripleIterator(List<Triple> triples, IntConsumer finishAction) {
+        super(finishAction);
+        this.triples = triples;
+    }
+
+    @Override
+    protected Triple computeNext() {
+        if ( this.index >= this.triples.size() ) { return null; }
+        return this.triples.get(this.index++);
+    }
+
+    @Override
+    protected void release() {
+        this.triples = Collections.emptyList();
+    }
+
+}
@@ -0,0 +1,483 @@
+package com.vmax.vmax_core.triple_finder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
+import com.vmax.vmax_core.api_helper.ModelChangeEvent;
+import com.vmax.vmax_core.api_helper.ModelChangeListener;
+import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.graph.Node;
+import com.vmax.vmax_core.graph.NodeType;
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.triple_templates.TripleTemplate;
+
+/**
+ * <p>
+ * Class for an in-memory, materialized snapshot of all triples of the graph.
+ * </p>
+ * <p>
+ * The snapshot is created by walking all {@link com.vmax.vmax_core.triple_templates.TripleTemplate <code>TripleTemplates</code>} once.
+ * Every node is interned into a dictionary, which assigns an integer ID to each node.
+ * The triples are stored as primitive <code>int[]</code> columns, sorted in SPO, POS and OSP order.
+ * Every triple pattern is answered by binary search and a range scan on the index,
+ * whose order starts with the bound nodes of the triple pattern:
+ * </p>
+ * <ul>
+ * <li><code>&lt;?s ?p ?o&gt;</code>, <code>&lt;s ?p ?o&gt;</code>, <code>&lt;s p ?o&gt;</code> and <code>&lt;s p o&gt;</code> use SPO</li>
+ * <li><code>&lt;?s p ?o&gt;</code> and <code>&lt;?s p o&gt;</code> use POS</li>
+ * <li><code>&lt;?s ?p o&gt;</code> and <code>&lt;s ?p o&gt;</code> use OSP</li>
+ * </ul>
+ * <p>
+ * The snapshot does not reflect changes of the model of the tool until it is refreshed.
+ * {@link #refreshAsync() <code>refreshAsync()</code>} builds a new snapshot in the background
+ * and swaps it in atomically, so queries are answered from the previous snapshot in the meantime.
+ * </p>
+ * <p>
+ * The store is a {@link com.vmax.vmax_core.api_helper.ModelChangeListener <code>ModelChangeListener</code>}
+ * and is registered at the {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper</code>} by the triple finder.
+ * Any reported change of the model marks the snapshot as stale and starts a background refresh.
+ * Changes reported while a background refresh is running trigger another refresh after it.
+ * </p>
+ */
+public class MaterializedTripleStore implements ModelChangeListener {
+
+    private final TripleFinderHelper tripleFinderHelper;
+    /** The current snapshot, replaced atomically on refresh */
+    private volatile Snapshot snapshot;
+    /** Executor for background refreshes, created on the first background refresh */
+    private ExecutorService refreshExecutor;
+    /** The currently running background refresh */
+    private CompletableFuture<Void> runningRefresh;
+    /** <code>true</code> while a background refresh is running, guarded by the lock of the store */
+    private boolean refreshRunning = false;
+    /** <code>true</code> if a change of the model was reported after the creation of the current snapshot started */
+    private volatile boolean stale = false;
+
+    public MaterializedTripleStore(TripleFinderHelper tripleFinderHelper) {
+        this.tripleFinderHelper = tripleFinderHelper;
+    }
+
+    /**
+     * Builds a new snapshot in the calling thread and swaps it in.
+     */
+    public void refresh() {
+        this.stale = false;
+        this.snapshot = Snapshot.build(this.tripleFinderHelper.getTripleTemplates());
+    }
+
+    /**
+     * <p>
+     * Builds a new snapshot in the background and swaps it in when it is complete.
+     * </p>
+     * <p>
+     * If a background refresh is already running, no new refresh is started and the running refresh is returned.
+     * The running refresh builds another snapshot, if the snapshot has become stale while it was built.
+     * </p>
+     */
+    public synchronized CompletableFuture<Void> refreshAsync() {
+        if ( this.refreshRunning ) { return this.runningRefresh; }
+        if ( this.refreshExecutor == null ) {
+            this.refreshExecutor = Executors.newSingleThreadExecutor((Runnable runnable) -> {
+                Thread thread = new Thread(runnable, "vmax-materialized-triple-store-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.refreshRunning = true;
+        try {
+            this.runningRefresh = CompletableFuture.runAsync(this::refreshUntilCurrent, this.refreshExecutor);
+        } catch (RuntimeException e) {
+            this.refreshRunning = false;
+            throw e;
+        }
+        return this.runningRefresh;
+    }
+
+    /**
+     * Builds new snapshots until no change of the model was reported while the last snapshot was built.
+     */
+    private void refreshUntilCurrent() {
+        try {
+            while (true) {
+                this.refresh();
+                // the check and the end of the refresh are atomic, so a change reported afterwards starts a new refresh
+                synchronized (this) {
+                    if ( !this.stale ) { 
+                        this.refreshRunning = false;
+                        return; 
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) { this.refreshRunning = false; }
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the snapshot as stale and starts a background refresh (see {@link #refreshAsync() <code>refreshAsync()</code>}).
+     * @param modelChangeEvent - The change of the model
+     */
+    @Override
+    public void modelChanged(ModelChangeEvent modelChangeEvent) {
+        synchronized (this) {
+            this.stale = true;
+            // a running background refresh builds another snapshot, a store that has not been built yet needs no refresh
+            if ( this.refreshRunning || this.snapshot == null ) { return; }
+        }
+        this.refreshAsync();
+    }
+
+    /**
+     * Returns <code>true</code> if a change of the model was reported after the creation of the current snapshot started.
+     */
+    public boolean isStale() {
+        return this.stale;
+    }
+
+    /**
+     * Stops the executor used for background refreshes.
+     * The current snapshot stays available.
+     */
+    public synchronized void shutdown() {
+        if ( this.refreshExecutor != null ) { this.refreshExecutor.shutdownNow(); }
+        this.refreshExecutor = null;
+        this.refreshRunning = false;
+    }
+
+    /**
+     * Returns <code>true</code> if a snapshot has been built.
+     */
+    public boolean isAvailable() {
+        return this.snapshot != null;
+    }
+
+    /**
+     * Returns the number of (distinct) triples of the current snapshot.
+     */
+    public int getTripleCount() {
+        return this.getSnapshot().tripleCount;
+    }
+
+    /**
+     * Returns the number of distinct nodes in the dictionary of the current snapshot.
+     */
+    public int getDictionarySize() {
+        return this.getSnapshot().nodes.length;
+    }
+
+    /**
+     * Returns the time, at which the creation of the current snapshot started.
+     */
+    public Instant getSnapshotTime() {
+        return this.getSnapshot().snapshotTime;
+    }
+
+    /**
+     * Returns a lazy iterator over all triples of the current snapshot matching the given triple pattern.
+     * @param triplePattern - The triple pattern to match
+     * @param finishAction - Action executed with the number of returned triples, when the iterator is exhausted or closed
+     */
+    public TripleIterator find(TriplePattern triplePattern, IntConsumer finishAction) {
+        return this.getSnapshot().find(triplePattern, finishAction);
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot currentSnapshot = this.snapshot;
+        if ( currentSnapshot == null ) { throw new IllegalStateException("materialized triple store has not been built yet"); }
+        return currentSnapshot;
+    }
+
+    /**
+     * <p>
+     * Immutable snapshot of all triples, i.e. the dictionary and the three sorted indexes.
+     * </p>
+     * <p>
+     * Each index consists of three columns, e.g. the SPO index of the columns subject, predicate and object.
+     * Row <code>i</code> of the columns is triple <code>i</code> of the index.
+     * </p>
+     */
+    private static final class Snapshot {
+
+        private final Instant snapshotTime;
+        private final BoundNode[] nodes;
+        private final Map<BoundNode, Integer> idsByNode;
+        private final int tripleCount;
+        private final int[][] spo;
+        private final int[][] pos;
+        private final int[][] osp;
+
+        private Snapshot(Instant snapshotTime, BoundNode[] nodes, Map<BoundNode, Integer> idsByNode, int[][] spo, int[][] pos, int[][] osp) {
+            this.snapshotTime = snapshotTime;
+            this.nodes = nodes;
+            this.idsByNode = idsByNode;
+            this.tripleCount = spo[0].length;
+            this.spo = spo;
+            this.pos = pos;
+            this.osp = osp;
+        }
+
+        /**
+         * Builds a snapshot by walking all triple templates once.
+         * @param tripleTemplates - All triple templates of the graph
+         */
+        private static Snapshot build(List<TripleTemplate> tripleTemplates) {
+            Instant snapshotTime = Instant.now();
+            // dictionary of all nodes
+            Map<BoundNode, Integer> idsByNode = new HashMap<BoundNode, Integer>();
+            List<BoundNode> nodes = new ArrayList<BoundNode>();
+            // columns of all (not yet distinct) triples
+            IntColumn subjects = new IntColumn();
+            IntColumn predicates = new IntColumn();
+            IntColumn objects = new IntColumn();
+            // walk all triple templates
+            for (TripleTemplate tripleTemplate: tripleTemplates) {
+                int predicateId = Snapshot.intern(tripleTemplate.getPredicate(), idsByNode, nodes);
+                List<? extends BoundNode> tripleTemplateSubjects = tripleTemplate.getAllSubjects();
+                if ( tripleTemplateSubjects == null ) { continue; }
+                // request the objects in batches of subjects, so the API is called once per batch instead of once per subject
+                for (int from = 0; from < tripleTemplateSubjects.size(); from += TripleTemplate.SUBJECT_BATCH_SIZE) {
+                    List<? extends BoundNode> subjectBatch = tripleTemplateSubjects.subList(
+                        from, Math.min(from + TripleTemplate.SUBJECT_BATCH_SIZE, tripleTemplateSubjects.size()));
+                    List<List<? extends BoundNode>> objectsList = tripleTemplate.getAllObjectsForSubjects(subjectBatch);
+                    for (int i = 0; i < subjectBatch.size(); i++) {
+                        List<? extends BoundNode> tripleTemplateObjects = objectsList.get(i);
+                        if ( tripleTemplateObjects == null ) { continue; }
+                        int subjectId = Snapshot.intern(subjectBatch.get(i), idsByNode, nodes);
+                        for (BoundNode object: tripleTemplateObjects) {
+                            subjects.add(subjectId);
+                            predicates.add(predicateId);
+                            objects.add(Snapshot.intern(object, idsByNode, nodes));
+                        }
+                    }
+                }
+            }
+            int dictionarySize = nodes.size();
+            int[] s = subjects.toArray();
+            int[] p = predicates.toArray();
+            int[] o = objects.toArray();
+            // sort in SPO order and remove duplicates
+            int[] permutation = Snapshot.sort(s, p, o, dictionarySize);
+            int[][] spo = Snapshot.distinctColumns(permutation, s, p, o);
+            // sort distinct triples in POS and OSP order
+            s = spo[0]; p = spo[1]; o = spo[2];
+            int[][] pos = Snapshot.columns(Snapshot.sort(p, o, s, dictionarySize), p, o, s);
+            int[][] osp = Snapshot.columns(Snapshot.sort(o, s, p, dictionarySize), o, s, p);
+            return new Snapshot(snapshotTime, nodes.toArray(new BoundNode[0]), idsByNode, spo, pos, osp);
+        }
+
+        /**
+         * Returns the ID of a node and adds it to the dictionary if it is not part of it yet.
+         */
+        private static int intern(BoundNode node, Map<BoundNode, Integer> idsByNode, List<BoundNode> nodes) {
+            Integer id = idsByNode.get(node);
+            if ( id != null ) { return id; }
+            id = nodes.size();
+            idsByNode.put(node, id);
+            nodes.add(node);
+            return id;
+        }
+
+        /**
+         * <p>
+         * Returns the permutation sorting the triples given as three columns by first, then second, then third column.
+         * </p>
+         * <p>
+         * Uses a least significant digit radix sort with one stable counting sort per column,
+         * which runs in linear time as all IDs are smaller than the dictionary size.
+         * </p>
+         */
+        private static int[] sort(int[] first, int[] second, int[] third, int dictionarySize) {
+            int[] permutation = new int[first.length];
+            for (int i = 0; i < permutation.length; i++) { permutation[i] = i; }
+            permutation = Snapshot.countingSort(permutation, third, dictionarySize);
+            permutation = Snapshot.countingSort(permutation, second, dictionarySize);
+            return Snapshot.countingSort(permutation, first, dictionarySize);
+        }
+
+        /**
+         * Stable counting sort of a permutation by the given column.
+         */
+        private static int[] countingSort(int[] permutation, int[] column, int dictionarySize) {
+            int[] offsets = new int[dictionarySize + 1];
+            for (int row: permutation) { offsets[column[row] + 1]++; }
+            for (int i = 0; i < dictionarySize; i++) { offsets[i + 1] += offsets[i]; }
+            int[] sorted = new int[permutation.length];
+            for (int row: permutation) { sorted[offsets[column[row]]++] = row; }
+            return sorted;
+        }
+
+        /**
+         * Returns the columns in the order of the given permutation.
+         */
+        private static int[][] columns(int[] permutation, int[] first, int[] second, int[] third) {
+            int[][] columns = new int[3][permutation.length];
+            for (int i = 0; i < permutation.length; i++) {
+                columns[0][i] = first[permutation[i]];
+                columns[1][i] = second[permutation[i]];
+                columns[2][i] = third[permutation[i]];
+            }
+            return columns;
+        }
+
+        /**
+         * Returns the columns in the order of the given (sorting) permutation without duplicate rows.
+         */
+        private static int[][] distinctColumns(int[] permutation, int[] first, int[] second, int[] third) {
+            IntColumn distinctFirst = new IntColumn();
+            IntColumn distinctSecond = new IntColumn();
+            IntColumn distinctThird = new IntColumn();
+            for (int i = 0; i < permutation.length; i++) {
+                int row = permutation[i];
+                // as rows are sorted, duplicates are adjacent
+                if ( i > 0 ) {
+                    int previousRow = permutation[i - 1];
+                    if ( first[row] == first[previousRow] && second[row] == second[previousRow] && third[row] == third[previousRow] ) { continue; }
+                }
+                distinctFirst.add(first[row]);
+                distinctSecond.add(second[row]);
+                distinctThird.add(third[row]);
+            }
+            return new int[][] { distinctFirst.toArray(), distinctSecond.toArray(), distinctThird.toArray() };
+        }
+
+        /**
+         * Returns a lazy iterator over all triples matching the given triple pattern.
+         */
+        private TripleIterator find(TriplePattern triplePattern, IntConsumer finishAction) {
+            // get IDs of bound nodes, -1 for unbound nodes
+            int subjectId = this.getId(triplePattern.getSubject());
+            int predicateId = this.getId(triplePattern.getPredicate());
+            int objectId = this.getId(triplePattern.getObject());
+            // if any bound node is not part of the dictionary, no triple can match
+            if ( subjectId == Integer.MIN_VALUE || predicateId == Integer.MIN_VALUE || objectId == Integer.MIN_VALUE ) {
+                return new RangeTripleIterator(this, this.spo, 0, 0, 0, 1, 2, finishAction);
+            }
+            // choose the index starting with the bound nodes and scan the range matching the bound nodes
+            if ( subjectId >= 0 ) {
+                if ( predicateId < 0 && objectId >= 0 ) {
+                    // <s ?p o>
+                    int[] range = Snapshot.range(this.osp, objectId, subjectId, -1);
+                    return new RangeTripleIterator(this, this.osp, range[0], range[1], 1, 2, 0, finishAction);
+                }
+                // <s ?p ?o>, <s p ?o>, <s p o>
+                int[] range = Snapshot.range(this.spo, subjectId, predicateId, predicateId >= 0 ? objectId : -1);
+                return new RangeTripleIterator(this, this.spo, range[0], range[1], 0, 1, 2, finishAction);
+            }
+            if ( predicateId >= 0 ) {
+                // <?s p ?o>, <?s p o>
+                int[] range = Snapshot.range(this.pos, predicateId, objectId, -1);
+                return new RangeTripleIterator(this, this.pos, range[0], range[1], 2, 0, 1, finishAction);
+            }
+            if ( objectId >= 0 ) {
+                // <?s ?p o>
+                int[] range = Snapshot.range(this.osp, objectId, -1, -1);
+                return new RangeTripleIterator(this, this.osp, range[0], range[1], 1, 2, 0, finishAction);
+            }
+            // <?s ?p ?o>
+            return new RangeTripleIterator(this, this.spo, 0, this.tripleCount, 0, 1, 2, finishAction);
+        }
+
+        /**
+         * Returns the ID of a node, <code>-1</code> for unbound nodes
+         * and <code>Integer.MIN_VALUE</code> for bound nodes that are not part of the dictionary.
+         */
+        private int getId(Node node) {
+            if ( node.getNodeType() == NodeType.UNBOUND ) { return -1; }
+            Integer id = this.idsByNode.get(node);
+            return ( id == null ) ? Integer.MIN_VALUE : id;
+        }
+
+        /**
+         * Returns the range <code>[from, to)</code> of rows of an index matching the given prefix of IDs.
+         * The prefix ends with the first negative ID.
+         */
+        private static int[] range(int[][] index, int firstId, int secondId, int thirdId) {
+            int[] prefix = { firstId, secondId, thirdId };
+            int from = 0;
+            int to = index[0].length;
+            for (int column = 0; column < 3 && prefix[column] >= 0; column++) {
+                int newFrom = Snapshot.lowerBound(index[column], from, to, prefix[column]);
+                to = Snapshot.lowerBound(index[column], newFrom, to, prefix[column] + 1);
+                from = newFrom;
+            }
+            return new int[] { from, to };
+        }
+
+        /**
+         * Returns the first row in <code>[from, to)</code> of a sorted column with a value not smaller than the given value.
+         */
+        private static int lowerBound(int[] column, int from, int to, int value) {
+            while ( from < to ) {
+                int middle = (from + to) >>> 1;
+                if ( column[middle] < value ) { from = middle + 1; }
+                else { to = middle; }
+            }
+            return from;
+        }
+
+    }
+
+    /**
+     * Iterator over a range of rows of an index of a snapshot.
+     * The positions of the subject, predicate and object columns within the index are passed to the constructor.
+     */
+    private static final class RangeTripleIterator extends TripleIterator {
+
+        private final BoundNode[] nodes;
+        private final int[] subjects;
+        private final int[] predicates;
+        private final int[] objects;
+        private final int to;
+        private int row;
+
+        private RangeTripleIterator(Snapshot snapshot, int[][] index, int from, int to,
+                int subjectColumn, int predicateColumn, int objectColumn, IntConsumer finishAction) {
+            super(finishAction);
+            this.nodes = snapshot.nodes;
+            this.subjects = index[subjectColumn];
+            this.predicates = index[predicateColumn];
+            this.objects = index[objectColumn];
+            this.row = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Triple computeNext() {
+            if ( this.row >= this.to ) { return null; }
+            Triple triple = new Triple(this.nodes[this.subjects[this.row]], this.nodes[this.predicates[this.row]], this.nodes[this.objects[this.row]]);
+            this.row++;
+            return triple;
+        }
+
+    }
+
+    /**
+     * Growable column of primitive <code>int</code> values.
+     */
+    private static final class IntColumn {
+
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        private void add(int value) {
+            if ( this.size == this.values.length ) { this.values = Arrays.copyOf(this.values, this.size * 2); }
+            this.values[this.size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.vmax.vmax_core.triple_finder;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.graph.TriplePattern;
+
+/**
+ * <p>
+ * Iterator over the distinct triples matching any of a list of triple patterns.
+ * </p>
+ * <p>
+ * The triple patterns are evaluated chunk by chunk, when the iterator is advanced,
+ * so that a chunk of triple patterns can be evaluated together 
+ * (see {@link com.vmax.vmax_core.triple_finder.TripleFinder#findEach <code>TripleFinder.findEach</code>}),
+ * but no more triple patterns are evaluated once the iterator is closed.
+ * Only the returned triples are kept in memory to remove duplicates.
+ * </p>
+ */
+final class MultiPatternTripleIterator extends TripleIterator {
+
+    private final List<TriplePattern> triplePatterns;
+    private final Function<List<TriplePattern>, Map<TriplePattern, List<Triple>>> chunkEvaluation;
+    private final int chunkSize;
+    // index of the first triple pattern of the next chunk, triples of the current chunk and all returned triples
+    private int nextChunkIndex = 0;
+    private Iterator<List<Triple>> currentChunkIterator = Collections.emptyIterator();
+    private Iterator<Triple> currentTripleIterator = Collections.emptyIterator();
+    private Set<Triple> returnedTriples = new HashSet<Triple>();
+
+    /**
+     * @param triplePatterns - The distinct triple patterns, in the order they should be evaluated
+     * @param chunkEvaluation - Function returning the triples of each triple pattern of a chunk
+     * @param chunkSize - The maximum number of triple patterns of a chunk
+     * @param finishAction - Action executed with the number of returned triples, when the iterator is exhausted or closed
+     */
+    MultiPatternTripleIterator(List<TriplePattern> triplePatterns, 
+            Function<List<TriplePattern>, Map<TriplePattern, List<Triple>>> chunkEvaluation, 
+            int chunkSize, IntConsumer finishAction) {
+        super(finishAction);
+        if ( chunkSize < 1 ) { throw new IllegalArgumentException("chunk size must be at least 1"); }
+        this.triplePatterns = triplePatterns;
+        this.chunkEvaluation = chunkEvaluation;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected Triple computeNext() {
+        while (true) {
+            // return next triple of current triple pattern, that has not been returned yet
+            while ( this.currentTripleIterator.hasNext() ) {
+                Triple triple = this.currentTripleIterator.next();
+                if ( this.returnedTriples.add(triple) ) { return triple; }
+            }
+            // else, continue with triples of next triple pattern of current chunk
+            if ( this.currentChunkIterator.hasNext() ) {
+                this.currentTripleIterator = this.currentChunkIterator.next().iterator();
+                continue;
+            }
+            // else, evaluate next chunk of triple patterns
+            if ( this.nextChunkIndex < this.triplePatterns.size() ) {
+                int toIndex = Math.min(this.nextChunkIndex + this.chunkSize, this.triplePatterns.size());
+                List<TriplePattern> chunk = this.triplePatterns.subList(this.nextChunkIndex, toIndex);
+                this.currentChunkIterator = this.chunkEvaluation.apply(chunk).values().iterator();
+                this.nextChunkIndex = toIndex;
+                continue;
+            }
+            // all triple patterns are evaluated
+            return null;
+        }
+    }
+
+    @Override
+    protected void release() {
+        this.currentChunkIterator = Collections.emptyIterator();
+        this.currentTripleIterator = Collections.emptyIterator();
+        this.returnedTriples = Collections.emptySet();
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.vmax.vmax_core.triple_finder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.graph.Triple;
+
+/**
+ * <p>
+ * Class for a lazy iterator over the {@link com.vmax.vmax_core.graph.Triple <code>Triples</code>} matching a triple pattern,
+ * which requests the triples from the triple templates.
+ * </p>
+ * <p>
+ * The iterator mirrors the nested predicate/subject/object loops of the
+ * {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>},
+ * but only requests the subjects of a predicate and the objects of a subject when the iterator is advanced.
+ * Each of the eight triple pattern types can be expressed by passing a list of predicates,
+ * a function returning the subjects for a predicate and a function returning the objects for a predicate and a subject.
+ * Duplicates are removed on each level of the nested loops, so every triple is returned only once
+ * without keeping all returned triples in memory.
+ * </p>
+ * <p>
+ * Optionally, the objects are requested for batches of subjects instead of single subjects,
+ * so that scans over many subjects need fewer calls to the API.
+ * The objects of the next batch of subjects are only requested once all triples of the current batch have been returned.
+ * </p>
+ */
+public class NestedLoopTripleIterator extends TripleIterator {
+
+    /** Iterator over the (distinct) predicates of the triple pattern */
+    private final Iterator<? extends BoundNode> predicateIterator;
+    /** Function returning all subjects for a given predicate */
+    private final Function<BoundNode, List<? extends BoundNode>> subjectFunction;
+    /** Function returning all objects for a given predicate and each subject of a batch of subjects */
+    private final BiFunction<BoundNode, List<BoundNode>, ? extends List<? extends List<? extends BoundNode>>> objectBatchFunction;
+    /** Maximum number of subjects of a batch */
+    private final int subjectBatchSize;
+    // state of the nested loops
+    private BoundNode currentPredicate;
+    private BoundNode currentSubject;
+    private Iterator<? extends BoundNode> currentSubjectIterator = Collections.emptyIterator();
+    private Iterator<? extends BoundNode> currentObjectIterator = Collections.emptyIterator();
+    // current batch of subjects, their objects and the index of the next subject of the batch
+    private List<BoundNode> currentSubjectBatch = Collections.emptyList();
+    private List<? extends List<? extends BoundNode>> currentObjectBatch = Collections.emptyList();
+    private int currentSubjectBatchIndex = 0;
+
+    /**
+     * Creates an iterator requesting the objects for each subject separately.
+     * @param predicates - The predicates of the triple pattern
+     * @param subjectFunction - Function returning all subjects for a given predicate
+     * @param objectFunction - Function returning all objects for a given predicate and subject
+     * @param finishAction - Action executed with the number of returned triples, when the iterator is exhausted or closed
+     */
+    public NestedLoopTripleIterator(List<? extends BoundNode> predicates,
+            Function<BoundNode, List<? extends BoundNode>> subjectFunction,
+            BiFunction<BoundNode, BoundNode, List<? extends BoundNode>> objectFunction,
+            IntConsumer finishAction) {
+        this(predicates, subjectFunction, 
+            (BoundNode predicate, List<BoundNode> subjects) -> Collections.singletonList(objectFunction.apply(predicate, subjects.get(0))), 
+            1, finishAction);
+    }
+
+    /**
+     * Creates an iterator requesting the objects for batches of subjects.
+     * @param predicates - The predicates of the triple pattern
+     * @param subjectFunction - Function returning all subjects for a given predicate
+     * @param objectBatchFunction - Function returning all objects for a given predicate and each subject of a batch, in the same order as the subjects
+     * @param subjectBatchSize - The maximum number of subjects of a batch
+     * @param finishAction - Action executed with the number of returned triples, when the iterator is exhausted or closed
+     */
+    public NestedLoopTripleIterator(List<? extends BoundNode> predicates,
+            Function<BoundNode, List<? extends BoundNode>> subjectFunction,
+            BiFunction<BoundNode, List<BoundNode>, ? extends List<? extends List<? extends BoundNode>>> objectBatchFunction,
+            int subjectBatchSize, IntConsumer finishAction) {
+        super(finishAction);
+        if ( subjectBatchSize < 1 ) { throw new IllegalArgumentException("subject batch size must be at least 1"); }
+        this.predicateIterator = NestedLoopTripleIterator.distinctIterator(predicates);
+        this.subjectFunction = subjectFunction;
+        this.objectBatchFunction = objectBatchFunction;
+        this.subjectBatchSize = subjectBatchSize;
+    }
+
+    /**
+     * Advances the nested loops until the next triple is found.
+     * Returns <code>null</code> if all loops are exhausted.
+     */
+    @Override
+    protected Triple computeNext() {
+        while (true) {
+            // return next object of current subject and predicate
+            if ( this.currentObjectIterator.hasNext() ) {
+                return new Triple(this.currentSubject, this.currentPredicate, this.currentObjectIterator.next());
+            }
+            // else, continue with objects of next subject of current batch
+            if ( this.currentSubjectBatchIndex < this.currentSubjectBatch.size() ) {
+                this.currentSubject = this.currentSubjectBatch.get(this.currentSubjectBatchIndex);
+                this.currentObjectIterator = NestedLoopTripleIterator.distinctIterator(
+                    this.currentObjectBatch.get(this.currentSubjectBatchIndex));
+                this.currentSubjectBatchIndex++;
+                continue;
+            }
+            // else, get objects of next batch of subjects of current predicate
+            if ( this.currentSubjectIterator.hasNext() ) {
+                List<BoundNode> subjectBatch = new ArrayList<BoundNode>(Math.min(this.subjectBatchSize, 16));
+                while ( subjectBatch.size() < this.subjectBatchSize && this.currentSubjectIterator.hasNext() ) {
+                    subjectBatch.add(this.currentSubjectIterator.next());
+                }
+                this.currentObjectBatch = this.objectBatchFunction.apply(this.currentPredicate, subjectBatch);
+                this.currentSubjectBatch = subjectBatch;
+                this.currentSubjectBatchIndex = 0;
+                continue;
+            }
+            // else, get subjects of next predicate
+            if ( this.predicateIterator.hasNext() ) {
+                this.currentPredicate = this.predicateIterator.next();
+                this.currentSubjectIterator = NestedLoopTripleIterator.distinctIterator(
+                    this.subjectFunction.apply(this.currentPredicate));
+                continue;
+            }
+            // all loops are exhausted
+            return null;
+        }
+    }
+
+    /**
+     * Releases the state of the nested loops.
+     */
+    @Override
+    protected void release() {
+        this.currentSubjectIterator = Collections.emptyIterator();
+        this.currentObjectIterator = Collections.emptyIterator();
+        this.currentSubjectBatch = Collections.emptyList();
+        this.currentObjectBatch = Collections.emptyList();
+    }
+
+    /**
+     * Returns an iterator over the distinct nodes of a list.
+     * Returns an empty iterator if the list is <code>null</code>.
+     * @param nodes - The list of nodes, may contain duplicates
+     */
+    private static Iterator<? extends BoundNode> distinctIterator(List<? extends BoundNode> nodes) {
+        if ( nodes == null || nodes.isEmpty() ) { return Collections.emptyIterator(); }
+        if ( nodes.size() == 1 ) { return nodes.iterator(); }
+        return new LinkedHashSet<BoundNode>(nodes).iterator();
+    }
+
+}
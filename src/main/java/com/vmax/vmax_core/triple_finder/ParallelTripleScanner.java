@@ -0,0 +1,217 @@
+package com.vmax.vmax_core.triple_finder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+
+import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.triple_templates.TripleTemplate;
+
+/**
+ * <p>
+ * Class for the parallel evaluation of scans over all triples of one or more predicates,
+ * i.e. triple patterns of type <code>&lt;?s ?p ?o&gt;</code> and <code>&lt;?s p ?o&gt;</code>.
+ * </p>
+ * <p>
+ * The scan is split into tasks of a {@link java.util.concurrent.ForkJoinPool <code>ForkJoinPool</code>}:
+ * one task per predicate, one task per {@link com.vmax.vmax_core.triple_templates.TripleTemplate <code>TripleTemplate</code>}
+ * using that predicate and one task per batch of subjects of a triple template.
+ * Each task collects its triples in its own list, the lists are concatenated when the tasks are joined,
+ * so no lock is shared between the tasks.
+ * Triples of different triple templates using the same predicate are merged without duplicates.
+ * </p>
+ * <p>
+ * The API of the tool is called concurrently from the threads of the pool,
+ * so parallel scans must only be used with tool APIs that are thread-safe.
+ * In contrast to the sequential scans, all triples are collected before the first triple is returned.
+ * </p>
+ */
+public class ParallelTripleScanner {
+
+    /** Default maximum number of subjects evaluated by a single task */
+    public static final int DEFAULT_SUBJECT_BATCH_SIZE = 64;
+
+    private final TripleFinderHelper tripleFinderHelper;
+    private final ForkJoinPool forkJoinPool;
+    private final int subjectBatchSize;
+
+    /**
+     * Creates a new parallel scanner.
+     * @param tripleFinderHelper - The helper providing the triple templates
+     * @param forkJoinPool - The pool to run the tasks in
+     * @param subjectBatchSize - The maximum number of subjects evaluated by a single task
+     */
+    public ParallelTripleScanner(TripleFinderHelper tripleFinderHelper, ForkJoinPool forkJoinPool, int subjectBatchSize) {
+        if ( forkJoinPool == null ) { throw new IllegalArgumentException("fork join pool can't be null"); }
+        if ( subjectBatchSize < 1 ) { throw new IllegalArgumentException("subject batch size must be at least 1"); }
+        this.tripleFinderHelper = tripleFinderHelper;
+        this.forkJoinPool = forkJoinPool;
+        this.subjectBatchSize = subjectBatchSize;
+    }
+
+    /**
+     * Returns an iterator over all triples of the given predicates, which are computed in parallel before this method returns.
+     * @param predicates - The predicates to scan
+     * @param finishAction - Action executed with the number of returned triples, when the iterator is exhausted or closed
+     */
+    public TripleIterator scan(List<BoundNode> predicates, IntConsumer finishAction) {
+        List<Triple> triples = this.forkJoinPool.invoke(new PredicatesTask(predicates));
+        return new ListTripleIterator(triples, finishAction);
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return this.forkJoinPool;
+    }
+
+    public int getSubjectBatchSize() {
+        return this.subjectBatchSize;
+    }
+
+    /**
+     * Returns a list of the distinct nodes of a list, or an empty list if the list is <code>null</code>.
+     * @param nodes - The list of nodes, may contain duplicates
+     */
+    private static List<BoundNode> distinct(List<? extends BoundNode> nodes) {
+        if ( nodes == null || nodes.isEmpty() ) { return Collections.emptyList(); }
+        return new ArrayList<BoundNode>(new LinkedHashSet<BoundNode>(nodes));
+    }
+
+    /**
+     * Task scanning all triples of a list of predicates, forking one task per predicate.
+     */
+    private final class PredicatesTask extends RecursiveTask<List<Triple>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<BoundNode> predicates;
+
+        private PredicatesTask(List<BoundNode> predicates) {
+            this.predicates = predicates;
+        }
+
+        @Override
+        protected List<Triple> compute() {
+            List<PredicateTask> predicateTasks = new ArrayList<PredicateTask>();
+            for (BoundNode predicate: ParallelTripleScanner.distinct(this.predicates)) {
+                predicateTasks.add(new PredicateTask(predicate));
+            }
+            // fork all tasks and concatenate their results in the order of the predicates
+            List<Triple> triples = new ArrayList<Triple>();
+            for (PredicateTask predicateTask: ForkJoinTask.invokeAll(predicateTasks)) {
+                triples.addAll(predicateTask.join());
+            }
+            return triples;
+        }
+
+    }
+
+    /**
+     * Task scanning all triples of a single predicate, forking one task per triple template using the predicate.
+     */
+    private final class PredicateTask extends RecursiveTask<List<Triple>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BoundNode predicate;
+
+        private PredicateTask(BoundNode predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        protected List<Triple> compute() {
+            List<TripleTemplate> tripleTemplates = ParallelTripleScanner.this.tripleFinderHelper.getTripleTemplatesForPredicate(this.predicate);
+            List<TripleTemplateTask> tripleTemplateTasks = new ArrayList<TripleTemplateTask>();
+            for (TripleTemplate tripleTemplate: tripleTemplates) {
+                tripleTemplateTasks.add(new TripleTemplateTask(tripleTemplate));
+            }
+            ForkJoinTask.invokeAll(tripleTemplateTasks);
+            // a single triple template does not return duplicates, as subjects and objects are distinct
+            if ( tripleTemplateTasks.size() == 1 ) { return tripleTemplateTasks.get(0).join(); }
+            // else, merge triples of all triple templates without duplicates
+            LinkedHashSet<Triple> triples = new LinkedHashSet<Triple>();
+            for (TripleTemplateTask tripleTemplateTask: tripleTemplateTasks) {
+                triples.addAll(tripleTemplateTask.join());
+            }
+            return new ArrayList<Triple>(triples);
+        }
+
+    }
+
+    /**
+     * Task scanning all triples of a single triple template.
+     */
+    private final class TripleTemplateTask extends RecursiveTask<List<Triple>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TripleTemplate tripleTemplate;
+
+        private TripleTemplateTask(TripleTemplate tripleTemplate) {
+            this.tripleTemplate = tripleTemplate;
+        }
+
+        @Override
+        protected List<Triple> compute() {
+            List<BoundNode> subjects = ParallelTripleScanner.distinct(this.tripleTemplate.getAllSubjects());
+            return new SubjectBatchTask(this.tripleTemplate, subjects, 0, subjects.size()).compute();
+        }
+
+    }
+
+    /**
+     * Task scanning all triples of a triple template for a range of subjects.
+     * The range is split in halves until it does not exceed the subject batch size.
+     */
+    private final class SubjectBatchTask extends RecursiveTask<List<Triple>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TripleTemplate tripleTemplate;
+        private final List<BoundNode> subjects;
+        private final int from;
+        private final int to;
+
+        private SubjectBatchTask(TripleTemplate tripleTemplate, List<BoundNode> subjects, int from, int to) {
+            this.tripleTemplate = tripleTemplate;
+            this.subjects = subjects;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Triple> compute() {
+            // split range, fork the first half and compute the second half in the current thread
+            if ( this.to - this.from > ParallelTripleScanner.this.subjectBatchSize ) {
+                int middle = (this.from + this.to) >>> 1;
+                SubjectBatchTask firstHalf = new SubjectBatchTask(this.tripleTemplate, this.subjects, this.from, middle);
+                SubjectBatchTask secondHalf = new SubjectBatchTask(this.tripleTemplate, this.subjects, middle, this.to);
+                firstHalf.fork();
+                List<Triple> secondTriples = secondHalf.compute();
+                List<Triple> triples = firstHalf.join();
+                triples.addAll(secondTriples);
+                return triples;
+            }
+            // get all objects for all subjects of the range at once
+            List<Triple> triples = new ArrayList<Triple>();
+            BoundNode predicate = this.tripleTemplate.getPredicate();
+            List<BoundNode> subjectRange = this.subjects.subList(this.from, this.to);
+            List<List<? extends BoundNode>> objectsList = this.tripleTemplate.getAllObjectsForSubjects(subjectRange);
+            for (int i = 0; i < subjectRange.size(); i++) {
+                BoundNode subject = subjectRange.get(i);
+                for (BoundNode object: ParallelTripleScanner.distinct(objectsList.get(i))) {
+                    triples.add(new Triple(subject, predicate, object));
+                }
+            }
+            return triples;
+        }
+
+    }
+
+}
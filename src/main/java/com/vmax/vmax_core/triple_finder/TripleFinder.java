@@ -1,8 +1,14 @@
 package com.vmax.vmax_core.triple_finder;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
 
 import com.vmax.vmax_core.api_helper.ApiHelper;
 import com.vmax.vmax_core.graph.BoundNode;
@@ -10,6 +16,8 @@ import com.vmax.vmax_core.graph.Node;
 import com.vmax.vmax_core.graph.NodeType;
 import com.vmax.vmax_core.graph.Triple;
 import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.metrics.VmaxMetrics;
+import com.vmax.vmax_core.triple_templates.TripleTemplate;
 
 /**
  * <p>
@@ -23,17 +31,449 @@ import com.vmax.vmax_core.graph.TriplePattern;
  */
 public class TripleFinder {
     
+    private final ApiHelper apiHelper;
     private TripleFinderHelper tripleFinderHelper;
+    /** Materialized snapshot of all triples, <code>null</code> if triples are retrieved from the API directly */
+    private volatile MaterializedTripleStore materializedTripleStore;
+    /** Scanner for parallel scans, <code>null</code> if all triple patterns are evaluated sequentially */
+    private volatile ParallelTripleScanner parallelTripleScanner;
+    /** Cache of the triples of evaluated triple patterns, <code>null</code> if results are not cached */
+    private volatile TriplePatternCache resultCache;
+    /** Cardinality estimates of triple patterns, created on first use and refreshed in the background on changes of the model */
+    private final TripleStatistics tripleStatistics;
+    /** <code>true</code> while the statistics are registered as listener at the API helper */
+    private volatile boolean statisticsRegistered = false;
+    /** Latencies and numbers of results of triple patterns, triple templates and attributes */
+    private final VmaxMetrics metrics;
+    /** Boolean to determine if each triple pattern is additionally printed to the standard output */
+    private volatile boolean debugLoggingEnabled = false;
     
     public TripleFinder(ApiHelper apiHelper) {
+        this.apiHelper = apiHelper;
         this.tripleFinderHelper = new TripleFinderHelper(apiHelper);
+        this.tripleStatistics = new TripleStatistics(this.tripleFinderHelper, TripleStatistics.DEFAULT_SAMPLE_SIZE);
+        this.metrics = new VmaxMetrics(this.tripleFinderHelper.getTripleTemplates(), apiHelper.getAttributeList());
     }
 
+    /**
+     * Returns the metrics of the triple finder, its triple templates and the attributes of the API.
+     */
+    public VmaxMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    public boolean isDebugLoggingEnabled() {
+        return this.debugLoggingEnabled;
+    }
+
+    /**
+     * Enables or disables printing each evaluated triple pattern as a CSV line to the standard output.
+     * Printing is synchronized on the standard output, so it should only be enabled for debugging.
+     * Triple patterns are recorded in the {@link #getMetrics() <code>metrics</code>} either way.
+     * @param debugLoggingEnabled - <code>true</code> to print triple patterns, disabled by default
+     */
+    public void setDebugLoggingEnabled(boolean debugLoggingEnabled) {
+        this.debugLoggingEnabled = debugLoggingEnabled;
+    }
+
+    /**
+     * Returns the result cache or <code>null</code> if results of triple patterns are not cached.
+     */
+    public TriplePatternCache getResultCache() {
+        return this.resultCache;
+    }
+
+    /**
+     * <p>
+     * Sets the cache for the triples of evaluated triple patterns (see {@link com.vmax.vmax_core.triple_finder.TriplePatternCache <code>TriplePatternCache</code>}).
+     * </p>
+     * <p>
+     * The cache is not used in the materialized mode and for fully bound triple patterns checked by {@link #contains(TriplePattern) <code>contains(TriplePattern)</code>}.
+     * The cache is registered as {@link com.vmax.vmax_core.api_helper.ModelChangeListener <code>ModelChangeListener</code>} at the API helper,
+     * so changes of the model reported by the tool specific implementation evict the affected results.
+     * Pass <code>null</code> to disable caching again (default).
+     * </p>
+     * @param resultCache - The cache, or <code>null</code>
+     */
+    public synchronized void setResultCache(TriplePatternCache resultCache) {
+        TriplePatternCache previousCache = this.resultCache;
+        if ( previousCache != null ) { this.apiHelper.removeModelChangeListener(previousCache); }
+        if ( resultCache != null ) { this.apiHelper.addModelChangeListener(resultCache); }
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Returns the cardinality estimates of triple patterns.
+     * On first use, the statistics are registered as {@link com.vmax.vmax_core.api_helper.ModelChangeListener <code>ModelChangeListener</code>} at the API helper,
+     * so changes of the model reported by the tool specific implementation refresh them in the background.
+     * The registration is released by {@link #close() <code>close()</code>}.
+     */
+    public TripleStatistics getStatistics() {
+        if ( !this.statisticsRegistered ) {
+            synchronized (this) {
+                if ( !this.statisticsRegistered ) {
+                    this.apiHelper.addModelChangeListener(this.tripleStatistics);
+                    this.statisticsRegistered = true;
+                }
+            }
+        }
+        return this.tripleStatistics;
+    }
+
+    /**
+     * <p>
+     * Unregisters the statistics from the API helper and stops their periodic and background refreshes.
+     * </p>
+     * <p>
+     * The result cache and the materialized store stay registered, they are unregistered by 
+     * {@link #setResultCache(TriplePatternCache) <code>setResultCache(null)</code>} and {@link #dematerialize() <code>dematerialize()</code>}.
+     * The triple finder can still be used afterwards, the statistics are registered again on next use.
+     * </p>
+     */
+    public synchronized void close() {
+        if ( this.statisticsRegistered ) { this.apiHelper.removeModelChangeListener(this.tripleStatistics); }
+        this.statisticsRegistered = false;
+        this.tripleStatistics.shutdown();
+    }
+
+    /**
+     * <p>
+     * Switches the triple finder to the materialized mode.
+     * </p>
+     * <p>
+     * A {@link com.vmax.vmax_core.triple_finder.MaterializedTripleStore <code>MaterializedTripleStore</code>} is built 
+     * in the calling thread, afterwards all triple patterns are answered from its snapshot instead of the API.
+     * The snapshot can be refreshed using the returned store.
+     * The store is registered as {@link com.vmax.vmax_core.api_helper.ModelChangeListener <code>ModelChangeListener</code>} at the API helper,
+     * so changes of the model reported by the tool specific implementation refresh the snapshot in the background.
+     * If the triple finder is already in the materialized mode, the snapshot is rebuilt.
+     * </p>
+     */
+    public synchronized MaterializedTripleStore materialize() {
+        MaterializedTripleStore store = this.materializedTripleStore;
+        if ( store == null ) { store = new MaterializedTripleStore(this.tripleFinderHelper); }
+        store.refresh();
+        if ( this.materializedTripleStore == null ) { this.apiHelper.addModelChangeListener(store); }
+        this.materializedTripleStore = store;
+        return store;
+    }
+
+    /**
+     * Switches the triple finder back to retrieving triples from the API directly and discards the snapshot.
+     */
+    public synchronized void dematerialize() {
+        MaterializedTripleStore store = this.materializedTripleStore;
+        this.materializedTripleStore = null;
+        if ( store != null ) { 
+            this.apiHelper.removeModelChangeListener(store);
+            store.shutdown(); 
+        }
+    }
+
+    /**
+     * Returns the materialized triple store or <code>null</code> if the triple finder is not in the materialized mode.
+     */
+    public MaterializedTripleStore getMaterializedTripleStore() {
+        return this.materializedTripleStore;
+    }
+
+    /**
+     * <p>
+     * Enables the parallel evaluation of triple patterns of type <code>&lt;?s ?p ?o&gt;</code> and <code>&lt;?s p ?o&gt;</code>
+     * in the given pool, using the default subject batch size (see {@link com.vmax.vmax_core.triple_finder.ParallelTripleScanner <code>ParallelTripleScanner</code>}).
+     * </p>
+     * <p>
+     * Only enable parallel scans if the API of the tool is thread-safe.
+     * Pass <code>null</code> to evaluate all triple patterns sequentially again (default).
+     * </p>
+     * @param forkJoinPool - The pool to run parallel scans in, or <code>null</code>
+     */
+    public void setParallelScanPool(ForkJoinPool forkJoinPool) {
+        this.setParallelScanPool(forkJoinPool, ParallelTripleScanner.DEFAULT_SUBJECT_BATCH_SIZE);
+    }
+
+    /**
+     * Enables the parallel evaluation of triple patterns of type <code>&lt;?s ?p ?o&gt;</code> and <code>&lt;?s p ?o&gt;</code>
+     * in the given pool. Pass <code>null</code> to evaluate all triple patterns sequentially again (default).
+     * @param forkJoinPool - The pool to run parallel scans in, or <code>null</code>
+     * @param subjectBatchSize - The maximum number of subjects evaluated by a single task
+     */
+    public void setParallelScanPool(ForkJoinPool forkJoinPool, int subjectBatchSize) {
+        this.parallelTripleScanner = ( forkJoinPool == null ) ? null 
+            : new ParallelTripleScanner(this.tripleFinderHelper, forkJoinPool, subjectBatchSize);
+    }
+
+    /**
+     * Returns <code>true</code> if triple patterns of type <code>&lt;?s ?p ?o&gt;</code> and <code>&lt;?s p ?o&gt;</code> are evaluated in parallel.
+     */
+    public boolean isParallelScanEnabled() {
+        return this.parallelTripleScanner != null;
+    }
+
+    /**
+     * Returns a list of all {@link com.vmax.vmax_core.graph.Triple <code>Triples</code>} matching the given triple pattern.
+     * Collects all triples of {@link #findLazily(TriplePattern) <code>findLazily(TriplePattern)</code>}.
+     * @param inputTriplePattern - The triple pattern to match
+     */
     public List<Triple> find(TriplePattern inputTriplePattern) {
-        // start a timer
-        long startTime = System.nanoTime();
         // initialize empty list of resulting triples
         List<Triple> resultList = new ArrayList<Triple>();
+        // collect all triples of the lazy iterator
+        this.findLazily(inputTriplePattern).forEachRemaining(resultList::add);
+        return resultList;
+    }
+
+    /**
+     * <p>
+     * Returns <code>true</code> if at least one {@link com.vmax.vmax_core.graph.Triple <code>Triple</code>} 
+     * matches the given triple pattern.
+     * </p>
+     * <p>
+     * Fully bound triple patterns are checked directly on the triple templates of the predicate, without creating any triples.
+     * Other triple patterns are evaluated lazily (see {@link #findLazily(TriplePattern) <code>findLazily(TriplePattern)</code>})
+     * and the evaluation stops at the first matching triple.
+     * </p>
+     * @param inputTriplePattern - The triple pattern to match
+     */
+    public boolean contains(TriplePattern inputTriplePattern) {
+        Node inputSubject = inputTriplePattern.getSubject();
+        Node inputPredicate = inputTriplePattern.getPredicate();
+        Node inputObject = inputTriplePattern.getObject();
+        // check fully bound triple patterns on the triple templates, unless in materialized mode
+        if ( this.materializedTripleStore == null
+            && inputSubject.getNodeType() != NodeType.UNBOUND
+            && inputPredicate.getNodeType() != NodeType.UNBOUND
+            && inputObject.getNodeType() != NodeType.UNBOUND ) {
+            long startTime = System.nanoTime();
+            boolean contained = this.tripleFinderHelper.containsTriple((BoundNode) inputSubject, (BoundNode) inputPredicate, (BoundNode) inputObject);
+            this.logTriplePattern(inputTriplePattern, contained ? 1 : 0, startTime, System.nanoTime());
+            return contained;
+        }
+        // else, stop lazy evaluation at the first matching triple
+        TripleIterator tripleIterator = this.findLazily(inputTriplePattern);
+        boolean contained = tripleIterator.hasNext();
+        tripleIterator.close();
+        return contained;
+    }
+
+    /**
+     * <p>
+     * Returns the number of distinct {@link com.vmax.vmax_core.graph.Triple <code>Triples</code>} of all triple templates.
+     * </p>
+     * <p>
+     * The triples are counted per triple template without creating them, 
+     * unless several triple templates of a predicate may define the same triple
+     * (see {@link com.vmax.vmax_core.triple_finder.TripleFinderHelper#countTriples() <code>TripleFinderHelper.countTriples()</code>}).
+     * In the materialized mode (see {@link #materialize() <code>materialize()</code>}), 
+     * the number of distinct triples of the snapshot is returned instead.
+     * </p>
+     */
+    public long count() {
+        MaterializedTripleStore store = this.materializedTripleStore;
+        if ( store != null ) { return store.getTripleCount(); }
+        return this.tripleFinderHelper.countTriples();
+    }
+
+    /**
+     * <p>
+     * Returns a list of all distinct {@link com.vmax.vmax_core.graph.Triple <code>Triples</code>} matching any of the given triple patterns,
+     * e.g. the triple patterns created by restricting a triple pattern with a list of solution bindings.
+     * </p>
+     * <p>
+     * The triple patterns are evaluated as described in {@link #findEach(Collection) <code>findEach(Collection)</code>}.
+     * </p>
+     * @param inputTriplePatterns - The triple patterns to match
+     */
+    public List<Triple> findAll(List<TriplePattern> inputTriplePatterns) {
+        // evaluate all triple patterns and collect distinct triples
+        LinkedHashSet<Triple> resultSet = new LinkedHashSet<Triple>();
+        for (List<Triple> triples: this.findEach(inputTriplePatterns).values()) {
+            resultSet.addAll(triples);
+        }
+        return new ArrayList<Triple>(resultSet);
+    }
+
+    /**
+     * <p>
+     * Returns a lazy {@link com.vmax.vmax_core.triple_finder.TripleIterator <code>TripleIterator</code>} 
+     * over the same triples as {@link #findAll(List) <code>findAll(List)</code>}, in the same order.
+     * </p>
+     * <p>
+     * The triple patterns are grouped by predicate and evaluated in chunks of 
+     * {@link com.vmax.vmax_core.triple_templates.TripleTemplate#SUBJECT_BATCH_SIZE <code>TripleTemplate.SUBJECT_BATCH_SIZE</code>} 
+     * triple patterns using {@link #findEach(Collection) <code>findEach(Collection)</code>}, when the iterator is advanced.
+     * Once the iterator is closed, e.g. because enough triples have been returned, no more triple patterns are evaluated.
+     * </p>
+     * @param inputTriplePatterns - The triple patterns to match
+     */
+    public TripleIterator findAllLazily(List<TriplePattern> inputTriplePatterns) {
+        List<TriplePattern> groupedTriplePatterns = new ArrayList<TriplePattern>();
+        TripleFinder.groupByPredicate(inputTriplePatterns).values().forEach(groupedTriplePatterns::addAll);
+        return new MultiPatternTripleIterator(groupedTriplePatterns, this::findEach, TripleTemplate.SUBJECT_BATCH_SIZE, null);
+    }
+
+    /**
+     * <p>
+     * Returns the {@link com.vmax.vmax_core.graph.Triple <code>Triples</code>} matching each of the given triple patterns, 
+     * mapped by triple pattern, e.g. to join the triples with the solution bindings the triple patterns were created from.
+     * </p>
+     * <p>
+     * Duplicate triple patterns are evaluated only once.
+     * The triple patterns are grouped by predicate. 
+     * Within a group of a bound predicate, all triple patterns with a bound subject 
+     * (i.e. of type <code>&lt;s p ?o&gt;</code> and <code>&lt;s p o&gt;</code>) are evaluated together:
+     * each triple template of the predicate is asked for the objects of a whole batch of their subjects at once
+     * (see {@link com.vmax.vmax_core.triple_finder.TripleFinderHelper#getAllObjectsForPredicateAndSubjects(BoundNode, List) <code>TripleFinderHelper.getAllObjectsForPredicateAndSubjects(BoundNode, List)</code>}),
+     * instead of once per triple pattern.
+     * All other triple patterns are evaluated one by one using {@link #find(TriplePattern) <code>find(TriplePattern)</code>}.
+     * </p>
+     * @param inputTriplePatterns - The triple patterns to match
+     */
+    public Map<TriplePattern, List<Triple>> findEach(Collection<TriplePattern> inputTriplePatterns) {
+        Map<Object, LinkedHashSet<TriplePattern>> triplePatternsByPredicate = TripleFinder.groupByPredicate(inputTriplePatterns);
+        // evaluate each group of triple patterns
+        Map<TriplePattern, List<Triple>> resultMap = new LinkedHashMap<TriplePattern, List<Triple>>();
+        for (Map.Entry<Object, LinkedHashSet<TriplePattern>> group: triplePatternsByPredicate.entrySet()) {
+            // evaluate triple patterns with bound subject of a bound predicate together, 
+            // unless triples are read from the materialized snapshot anyway
+            Map<TriplePattern, List<Triple>> sharedResults = Collections.emptyMap();
+            if ( group.getKey() instanceof BoundNode && this.materializedTripleStore == null ) {
+                sharedResults = this.findEachForSubjects((BoundNode) group.getKey(), group.getValue());
+            }
+            // evaluate the remaining triple patterns one by one, keeping the order of the triple patterns
+            for (TriplePattern triplePattern: group.getValue()) {
+                List<Triple> sharedTriples = sharedResults.get(triplePattern);
+                resultMap.put(triplePattern, ( sharedTriples != null ) ? sharedTriples : this.find(triplePattern));
+            }
+        }
+        return resultMap;
+    }
+
+    /**
+     * Groups the distinct triple patterns by predicate, in the order of their first occurrence.
+     * Triple patterns with an unbound predicate are grouped by their node type.
+     * @param inputTriplePatterns - The triple patterns to group
+     */
+    private static Map<Object, LinkedHashSet<TriplePattern>> groupByPredicate(Collection<TriplePattern> inputTriplePatterns) {
+        Map<Object, LinkedHashSet<TriplePattern>> triplePatternsByPredicate = new LinkedHashMap<Object, LinkedHashSet<TriplePattern>>();
+        for (TriplePattern inputTriplePattern: inputTriplePatterns) {
+            Node predicate = inputTriplePattern.getPredicate();
+            Object groupKey = ( predicate.getNodeType() == NodeType.UNBOUND ) ? NodeType.UNBOUND : predicate;
+            triplePatternsByPredicate.computeIfAbsent(groupKey, (Object key) -> new LinkedHashSet<TriplePattern>()).add(inputTriplePattern);
+        }
+        return triplePatternsByPredicate;
+    }
+
+    /**
+     * <p>
+     * Evaluates all triple patterns of the given predicate with a bound subject together 
+     * and returns their triples mapped by triple pattern.
+     * Triple patterns with an unbound subject are not contained in the returned map.
+     * </p>
+     * <p>
+     * If a result cache is set, cached results are used and the new results are cached.
+     * If less than two triple patterns remain, nothing is evaluated, as there is nothing to share.
+     * </p>
+     * @param predicate - The bound predicate of all triple patterns
+     * @param triplePatterns - The distinct triple patterns of the predicate
+     */
+    private Map<TriplePattern, List<Triple>> findEachForSubjects(BoundNode predicate, Collection<TriplePattern> triplePatterns) {
+        Map<TriplePattern, List<Triple>> resultMap = new LinkedHashMap<TriplePattern, List<Triple>>();
+        TriplePatternCache cache = this.resultCache;
+        // remember the epoch and the number of changes before the evaluation starts
+        long evaluationEpoch = ( cache == null ) ? 0 : cache.getEpoch();
+        long evaluationChangeCount = ( cache == null ) ? 0 : cache.getChangeCount();
+        // collect the triple patterns to evaluate by their subject, using cached results where possible
+        Map<BoundNode, List<TriplePattern>> triplePatternsBySubject = new LinkedHashMap<BoundNode, List<TriplePattern>>();
+        int pendingCount = 0;
+        for (TriplePattern triplePattern: triplePatterns) {
+            if ( triplePattern.getSubject().getNodeType() == NodeType.UNBOUND ) { continue; }
+            List<Triple> cachedTriples = ( cache == null ) ? null : cache.get(triplePattern);
+            if ( cachedTriples != null ) {
+                long now = System.nanoTime();
+                this.logTriplePattern(triplePattern, cachedTriples.size(), now, now);
+                resultMap.put(triplePattern, cachedTriples); 
+                continue; 
+            }
+            triplePatternsBySubject.computeIfAbsent((BoundNode) triplePattern.getSubject(), (BoundNode key) -> new ArrayList<TriplePattern>()).add(triplePattern);
+            pendingCount++;
+        }
+        if ( pendingCount < 2 ) { return resultMap; }
+        // request the objects of batches of subjects from the triple templates of the predicate
+        List<BoundNode> subjects = new ArrayList<BoundNode>(triplePatternsBySubject.keySet());
+        for (int from = 0; from < subjects.size(); from += TripleTemplate.SUBJECT_BATCH_SIZE) {
+            long startTime = System.nanoTime();
+            List<BoundNode> subjectBatch = subjects.subList(from, Math.min(from + TripleTemplate.SUBJECT_BATCH_SIZE, subjects.size()));
+            List<List<BoundNode>> objectsList = this.tripleFinderHelper.getAllObjectsForPredicateAndSubjects(predicate, subjectBatch);
+            long endTime = System.nanoTime();
+            // create the triples of each triple pattern from the distinct objects of its subject
+            for (int i = 0; i < subjectBatch.size(); i++) {
+                BoundNode subject = subjectBatch.get(i);
+                List<BoundNode> objects = objectsList.get(i);
+                Collection<BoundNode> distinctObjects = ( objects == null ) ? Collections.emptyList() : new LinkedHashSet<BoundNode>(objects);
+                for (TriplePattern triplePattern: triplePatternsBySubject.get(subject)) {
+                    List<Triple> triples = new ArrayList<Triple>();
+                    Node inputObject = triplePattern.getObject();
+                    for (BoundNode object: distinctObjects) {
+                        if ( inputObject.getNodeType() != NodeType.UNBOUND && !inputObject.equals(object) ) { continue; }
+                        triples.add(new Triple(subject, predicate, object));
+                    }
+                    this.logTriplePattern(triplePattern, triples.size(), startTime, endTime);
+                    if ( cache != null ) { cache.put(triplePattern, triples, evaluationEpoch, evaluationChangeCount); }
+                    resultMap.put(triplePattern, triples);
+                }
+            }
+        }
+        return resultMap;
+    }
+
+    /**
+     * <p>
+     * Returns a lazy {@link com.vmax.vmax_core.triple_finder.TripleIterator <code>TripleIterator</code>} 
+     * over all {@link com.vmax.vmax_core.graph.Triple <code>Triples</code>} matching the given triple pattern.
+     * </p>
+     * <p>
+     * Only the first level of the nested loops (i.e. the predicates) is determined when calling this method.
+     * Subjects and objects are requested from the API when the iterator is advanced.
+     * The triple pattern is logged as soon as the iterator is exhausted or closed.
+     * </p>
+     * <p>
+     * In the materialized mode (see {@link #materialize() <code>materialize()</code>}), 
+     * the triples are read from the snapshot of the materialized triple store instead.
+     * If parallel scans are enabled (see {@link #setParallelScanPool(ForkJoinPool) <code>setParallelScanPool(ForkJoinPool)</code>}),
+     * triples of patterns of type <code>&lt;?s ?p ?o&gt;</code> and <code>&lt;?s p ?o&gt;</code> are computed in parallel 
+     * before the iterator is returned.
+     * If a result cache is set (see {@link #setResultCache(TriplePatternCache) <code>setResultCache(TriplePatternCache)</code>}),
+     * cached triples are returned without calling the API, 
+     * and the triples of a triple pattern are cached once the iterator is exhausted.
+     * </p>
+     * @param inputTriplePattern - The triple pattern to match
+     */
+    public TripleIterator findLazily(TriplePattern inputTriplePattern) {
+        // start a timer
+        long startTime = System.nanoTime();
+        // log triple pattern with number of results once the iterator is exhausted or closed
+        IntConsumer finishAction = (int tripleCount) -> 
+            this.logTriplePattern(inputTriplePattern, tripleCount, startTime, System.nanoTime());
+        // in materialized mode, scan the indexes of the snapshot
+        MaterializedTripleStore store = this.materializedTripleStore;
+        if ( store != null ) { return store.find(inputTriplePattern, finishAction); }
+        // if enabled, return cached triples or cache the triples once the triple pattern is evaluated completely
+        TriplePatternCache cache = this.resultCache;
+        if ( cache == null ) { return this.evaluate(inputTriplePattern, finishAction); }
+        List<Triple> cachedTriples = cache.get(inputTriplePattern);
+        if ( cachedTriples != null ) { return new ListTripleIterator(cachedTriples, finishAction); }
+        return cache.evaluateAndCache(inputTriplePattern, () -> this.evaluate(inputTriplePattern, null), finishAction);
+    }
+
+    /**
+     * Returns a lazy iterator over all triples matching the given triple pattern, retrieved from the API.
+     * @param inputTriplePattern - The triple pattern to match
+     * @param finishAction - Action executed with the number of returned triples, when the iterator is exhausted or closed
+     */
+    private TripleIterator evaluate(TriplePattern inputTriplePattern, IntConsumer finishAction) {
+        // if enabled, scans of type <?s ?p ?o> and <?s p ?o> are evaluated in parallel
+        ParallelTripleScanner scanner = this.parallelTripleScanner;
         // get nodes from triple
         Node inputSubject = inputTriplePattern.getSubject();
         Node inputPredicate = inputTriplePattern.getPredicate();
@@ -43,120 +483,113 @@ public class TripleFinder {
             if ( inputPredicate.getNodeType() == NodeType.UNBOUND) {
                 if ( inputObject.getNodeType() == NodeType.UNBOUND) {
                     // query logic for triples of type <?s ?p ?o>
-                    // get all predicates
-                    List<BoundNode> predicateList = this.tripleFinderHelper.getAllPredicates();
-                    if ( predicateList == null || predicateList.isEmpty() ) { return null; }
-                    // for each predicate, get all subjects
-                    for (BoundNode predicate: predicateList) {
-                        List<BoundNode> subjectList = this.tripleFinderHelper.getAllSubjectsForPredicate(predicate);
-                        if ( subjectList == null || subjectList.isEmpty() ) { continue; }
-                        // for each subject of each predicate, get all objects
-                        for (BoundNode subject: subjectList) {
-                            List<BoundNode> objectList = this.tripleFinderHelper.getAllObjectsForPredicateAndSubject(predicate, subject);
-                            if ( objectList == null || objectList.isEmpty() ) { continue; }
-                            for (BoundNode object: objectList) {
-                                resultList.add(new Triple(subject, predicate, object));
-                    }}}
+                    // get all predicates, for each predicate get all subjects, 
+                    // for each batch of subjects of each predicate, get all objects
+                    if ( scanner != null ) { return scanner.scan(this.tripleFinderHelper.getAllPredicates(), finishAction); }
+                    return new NestedLoopTripleIterator(
+                        this.tripleFinderHelper.getAllPredicates(),
+                        (BoundNode predicate) -> this.tripleFinderHelper.getAllSubjectsForPredicate(predicate),
+                        (BoundNode predicate, List<BoundNode> subjects) -> this.tripleFinderHelper.getAllObjectsForPredicateAndSubjects(predicate, subjects),
+                        TripleTemplate.SUBJECT_BATCH_SIZE, finishAction);
                 } else {
                     // query logic for triples of type <?s ?p o>
-                    // get all predicates for given object
-                    List<BoundNode> predicateList = this.tripleFinderHelper.getAllPredicatesForObject((BoundNode) inputObject);
-                    if ( predicateList == null || predicateList.isEmpty() ) { 
-                        return null; }
-                    // for each predicate for given object, get all subjects
-                    for (BoundNode predicate: predicateList) {
-                        List<BoundNode> subjectList = this.tripleFinderHelper.getAllSubjectsForPredicateAndObject(predicate, (BoundNode) inputObject);
-                        if ( subjectList == null || subjectList.isEmpty() ) { continue; }
-                        for (BoundNode subject: subjectList) {
-                            resultList.add(new Triple(subject, predicate, (BoundNode) inputObject));
-                    }}
+                    // get all predicates for given object, for each predicate get all subjects
+                    BoundNode object = (BoundNode) inputObject;
+                    return new NestedLoopTripleIterator(
+                        this.tripleFinderHelper.getAllPredicatesForObject(object),
+                        (BoundNode predicate) -> this.tripleFinderHelper.getAllSubjectsForPredicateAndObject(predicate, object),
+                        (BoundNode predicate, BoundNode subject) -> Collections.singletonList(object),
+                        finishAction);
                 }
             } else {
                 if ( inputObject.getNodeType() == NodeType.UNBOUND) {
                     // query logic for triples of type <?s p ?o>
-                    // get all subjects for given predicate
-                    List<BoundNode> subjectList = this.tripleFinderHelper.getAllSubjectsForPredicate((BoundNode) inputPredicate);
-                    if ( subjectList == null || subjectList.isEmpty() ) { return null; }
-                    // for each subject for given predicate, get all objects
-                    for (BoundNode subject: subjectList) {
-                        List<BoundNode> objectList = this.tripleFinderHelper.getAllObjectsForPredicateAndSubject((BoundNode) inputPredicate, subject);
-                        if ( objectList == null || objectList.isEmpty() ) { continue; }
-                        for (BoundNode object: objectList) {
-                            resultList.add(new Triple(subject, (BoundNode) inputPredicate, object));
-                    }}
+                    // get all subjects for given predicate, for each batch of subjects get all objects
+                    if ( scanner != null ) { return scanner.scan(Collections.singletonList((BoundNode) inputPredicate), finishAction); }
+                    return new NestedLoopTripleIterator(
+                        Collections.singletonList((BoundNode) inputPredicate),
+                        (BoundNode predicate) -> this.tripleFinderHelper.getAllSubjectsForPredicate(predicate),
+                        (BoundNode predicate, List<BoundNode> subjects) -> this.tripleFinderHelper.getAllObjectsForPredicateAndSubjects(predicate, subjects),
+                        TripleTemplate.SUBJECT_BATCH_SIZE, finishAction);
                 } else {
                     // query logic for triples of type <?s p o>
                     // get all subjects for given predicate and object
-                    List<BoundNode> subjectList = this.tripleFinderHelper.getAllSubjectsForPredicateAndObject((BoundNode) inputPredicate, (BoundNode) inputObject);
-                    if ( subjectList == null || subjectList.isEmpty() ) { return null; }
-                    for (BoundNode subject: subjectList) {
-                        resultList.add(new Triple(subject, (BoundNode) inputPredicate, (BoundNode) inputObject));
-                    }
+                    BoundNode object = (BoundNode) inputObject;
+                    return new NestedLoopTripleIterator(
+                        Collections.singletonList((BoundNode) inputPredicate),
+                        (BoundNode predicate) -> this.tripleFinderHelper.getAllSubjectsForPredicateAndObject(predicate, object),
+                        (BoundNode predicate, BoundNode subject) -> Collections.singletonList(object),
+                        finishAction);
                 }
             }
         } else {
+            BoundNode subject = (BoundNode) inputSubject;
             if ( inputPredicate.getNodeType() == NodeType.UNBOUND) {
                 if ( inputObject.getNodeType() == NodeType.UNBOUND) {
                     // query logic for triples of type <s ?p ?o>
-                    // get all predicates for given subject
-                    List<BoundNode> predicateList = this.tripleFinderHelper.getAllPredicatesForSubject((BoundNode) inputSubject);
-                    if ( predicateList == null || predicateList.isEmpty() ) { return null; }
-                    // for each predicate for given subject, get all objects
-                    for (BoundNode predicate: predicateList) {
-                        List<BoundNode> objectList = this.tripleFinderHelper.getAllObjectsForPredicateAndSubject(predicate, (BoundNode) inputSubject);
-                        if ( objectList == null || objectList.isEmpty() ) { continue; }
-                        for (BoundNode object: objectList) {
-                            resultList.add(new Triple((BoundNode) inputSubject, predicate, object));
-                    }}
+                    // get all predicates for given subject, for each predicate get all objects
+                    return new NestedLoopTripleIterator(
+                        this.tripleFinderHelper.getAllPredicatesForSubject(subject),
+                        (BoundNode predicate) -> Collections.singletonList(subject),
+                        (BoundNode predicate, BoundNode givenSubject) -> this.tripleFinderHelper.getAllObjectsForPredicateAndSubject(predicate, givenSubject),
+                        finishAction);
                 } else {
                     // query logic for triples of type <s ?p o>
                     // get all predicates for given subject and object
-                    List<BoundNode> predicateList = this.tripleFinderHelper.getAllPredicatesForSubjectAndObject((BoundNode) inputSubject, (BoundNode) inputObject);
-                    if ( predicateList == null || predicateList.isEmpty() ) { return null; }
-                    // for each predicate for given subject, get all objects
-                    // check if givenobject is in list of objects and add triple to result list if it is
-                    for (BoundNode predicate: predicateList) {
-                        List<BoundNode> objectList = this.tripleFinderHelper.getAllObjectsForPredicateAndSubject(predicate, (BoundNode) inputSubject);
-                        if ( objectList == null || objectList.isEmpty() ) { continue; }
-                        if ( objectList.contains((BoundNode) inputObject) ) {
-                            resultList.add(new Triple((BoundNode) inputSubject, predicate, (BoundNode) inputObject));
-                    }}
+                    // for each predicate, check if given object is in list of objects for given subject
+                    BoundNode object = (BoundNode) inputObject;
+                    return new NestedLoopTripleIterator(
+                        this.tripleFinderHelper.getAllPredicatesForSubjectAndObject(subject, object),
+                        (BoundNode predicate) -> Collections.singletonList(subject),
+                        (BoundNode predicate, BoundNode givenSubject) -> this.filterObject(
+                            this.tripleFinderHelper.getAllObjectsForPredicateAndSubject(predicate, givenSubject), object),
+                        finishAction);
                 }
             } else {
                 if ( inputObject.getNodeType() == NodeType.UNBOUND) {
                     // query logic for triples of type <s p ?o>
                     // get all objects for given predicate and subject
-                    List<BoundNode> objectList = this.tripleFinderHelper.getAllObjectsForPredicateAndSubject((BoundNode) inputPredicate, (BoundNode) inputSubject);
-                    if ( objectList == null || objectList.isEmpty() ) { return null; }
-                    for (BoundNode object: objectList) {
-                        resultList.add(new Triple((BoundNode) inputSubject, (BoundNode) inputPredicate, object));
-                    }
+                    return new NestedLoopTripleIterator(
+                        Collections.singletonList((BoundNode) inputPredicate),
+                        (BoundNode predicate) -> Collections.singletonList(subject),
+                        (BoundNode predicate, BoundNode givenSubject) -> this.tripleFinderHelper.getAllObjectsForPredicateAndSubject(predicate, givenSubject),
+                        finishAction);
                 } else {
                     // query logic for triples of type <s p o>
                     // get all objects for given predicate and subject
-                    // check if given object is in list of objects and add triple to result list if it is
-                    List<BoundNode> objectList = this.tripleFinderHelper.getAllObjectsForPredicateAndSubject((BoundNode) inputPredicate, (BoundNode) inputSubject);
-                    if ( objectList == null || objectList.isEmpty() ) { return null; }
-                    if ( objectList.contains((BoundNode) inputObject) ) {
-                        resultList.add(new Triple((BoundNode) inputSubject, (BoundNode) inputPredicate, (BoundNode) inputObject));
-                }}
+                    // check if given object is in list of objects
+                    BoundNode object = (BoundNode) inputObject;
+                    return new NestedLoopTripleIterator(
+                        Collections.singletonList((BoundNode) inputPredicate),
+                        (BoundNode predicate) -> Collections.singletonList(subject),
+                        (BoundNode predicate, BoundNode givenSubject) -> this.filterObject(
+                            this.tripleFinderHelper.getAllObjectsForPredicateAndSubject(predicate, givenSubject), object),
+                        finishAction);
+                }
             }
         }
-        // initialize empty list for clean result
-        List<Triple> cleanList = null; 
-        // make clean list null if no results were found
-        if ( resultList == null || resultList.isEmpty() ) { cleanList = null; }
-        // remove duplicates from result list
-        cleanList = resultList.stream().distinct().collect(Collectors.toList());
-        // stop the timer
-        long endTime = System.nanoTime();
-        // log start and end time and the triple
-        this.logTriplePattern(inputTriplePattern, cleanList, startTime, endTime);
-        // return clean list
-        return cleanList;     
-    }
-
-    private void logTriplePattern(TriplePattern requestTriplePattern, List<Triple> responseTriples, long startTime, long endTime) {
+    }
+
+    /**
+     * Returns a list containing only the given object if it is contained in the given list of objects.
+     * Returns <code>null</code> otherwise.
+     * @param objectList - The list of objects to check
+     * @param object - The object to look for
+     */
+    private List<BoundNode> filterObject(List<BoundNode> objectList, BoundNode object) {
+        if ( objectList == null || !objectList.contains(object) ) { return null; }
+        return Collections.singletonList(object);
+    }
+
+    /**
+     * Records an evaluated triple pattern in the metrics and, if enabled, prints it to the standard output.
+     */
+    private void logTriplePattern(TriplePattern requestTriplePattern, int resultNumber, long startTime, long endTime) {
+        this.metrics.recordTriplePattern(requestTriplePattern, startTime, endTime, resultNumber);
+        if ( this.debugLoggingEnabled ) { this.printTriplePattern(requestTriplePattern, resultNumber, startTime, endTime); }
+    }
+
+    private void printTriplePattern(TriplePattern requestTriplePattern, int resultNumber, long startTime, long endTime) {
         String delimter = ",";
         StringBuilder stringBuilder = new StringBuilder();
         // initialize strings, that will be changed if possible
@@ -171,7 +604,7 @@ public class TripleFinder {
         try { predicateString = requestTriplePattern.getPredicate().toString(); } catch (Exception e) { predicateString = "ERROR"; }
         try { objectString = requestTriplePattern.getObject().toString(); } catch (Exception e) { objectString = "ERROR"; }
         // try to get the number of results
-        try { resultNumberString = String.valueOf(responseTriples.size()); } catch (Exception e) { resultNumberString = "ERROR"; }
+        try { resultNumberString = String.valueOf(resultNumber); } catch (Exception e) { resultNumberString = "ERROR"; }
         // append the strings to the string builder
         stringBuilder
             .append("[VMAX DEBUG]").append(delimter)
@@ -1,11 +1,24 @@
 package com.vmax.vmax_core.triple_finder;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.api_elements.ApiElementType;
+import com.vmax.vmax_core.api_elements.ApiEntity;
+import com.vmax.vmax_core.api_elements.ApiType;
 import com.vmax.vmax_core.api_helper.ApiHelper;
 import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.graph.NodeType;
 import com.vmax.vmax_core.triple_templates.TT01_ClassTypeClass;
 import com.vmax.vmax_core.triple_templates.TT02_ClassTypeResource;
 import com.vmax.vmax_core.triple_templates.TT03_AttributeTypeProperty;
@@ -32,10 +45,28 @@ import com.vmax.vmax_core.triple_templates.TripleTemplate;
  * The core of this class is the list of {@link com.vmax.vmax_core.triple_templates.TripleTemplate <code>TripleTemplates</code>}
  * which is initialized in the constructor.
  * </p>
+ * <p>
+ * The triple templates are indexed in the constructor by their predicate
+ * and by the node types (or, for triple templates restricted to specific types, the direct types) 
+ * of their possible subjects and objects.
+ * The helper methods therefore only check candidate triple templates, 
+ * so that the cost of a lookup does not grow with the number of attributes of the API.
+ * </p>
  */
 public class TripleFinderHelper {
 
     private List<TripleTemplate> tripleTemplateList;
+    // distinct predicates of all triple templates
+    private final List<BoundNode> predicateList;
+    // triple templates indexed by predicate
+    private final Map<BoundNode, List<TripleTemplate>> tripleTemplatesByPredicate;
+    // triple templates indexed by the node type of possible subjects and objects
+    private final Map<NodeType, List<TripleTemplate>> tripleTemplatesBySubjectNodeType;
+    private final Map<NodeType, List<TripleTemplate>> tripleTemplatesByObjectNodeType;
+    // triple templates indexed by the direct type of possible subject and object entities
+    // each list also contains the triple templates indexed by the node type of the entities
+    private final Map<ApiType, List<TripleTemplate>> tripleTemplatesBySubjectDirectType;
+    private final Map<ApiType, List<TripleTemplate>> tripleTemplatesByObjectDirectType;
 
     public TripleFinderHelper(ApiHelper apiHelper) {
         // initialize list for all triple templates 
@@ -58,29 +89,124 @@ public class TripleFinderHelper {
         for (ApiAttribute  apiAttribute: allApiAttributes) {
             this.tripleTemplateList.add(new TT12_InstanceAttributeEntity(apiHelper, apiAttribute));
         }
+        // index triple templates by predicate
+        this.tripleTemplatesByPredicate = new LinkedHashMap<BoundNode, List<TripleTemplate>>();
+        for (TripleTemplate tripleTemplate: this.tripleTemplateList) {
+            this.tripleTemplatesByPredicate
+                .computeIfAbsent(tripleTemplate.getPredicate(), (BoundNode predicate) -> new ArrayList<TripleTemplate>())
+                .add(tripleTemplate);
+        }
+        this.predicateList = List.copyOf(this.tripleTemplatesByPredicate.keySet());
+        // index triple templates by node types and direct types of subjects and objects
+        this.tripleTemplatesBySubjectNodeType = new EnumMap<NodeType, List<TripleTemplate>>(NodeType.class);
+        this.tripleTemplatesBySubjectDirectType = new HashMap<ApiType, List<TripleTemplate>>();
+        this.indexTripleTemplates(this.tripleTemplatesBySubjectNodeType, this.tripleTemplatesBySubjectDirectType, 
+            TripleTemplate::getSubjectNodeTypes, TripleTemplate::getSubjectDirectTypes);
+        this.tripleTemplatesByObjectNodeType = new EnumMap<NodeType, List<TripleTemplate>>(NodeType.class);
+        this.tripleTemplatesByObjectDirectType = new HashMap<ApiType, List<TripleTemplate>>();
+        this.indexTripleTemplates(this.tripleTemplatesByObjectNodeType, this.tripleTemplatesByObjectDirectType, 
+            TripleTemplate::getObjectNodeTypes, TripleTemplate::getObjectDirectTypes);
     }
 
     /**
-     * Returns a list of all predicates by collecting the predicates of all triple templates.
+     * <p>
+     * Indexes all triple templates by the node types or direct types of their subjects or objects.
+     * </p>
+     * <p>
+     * Triple templates that are not restricted to specific types are indexed by node type.
+     * All other triple templates are indexed by direct type. 
+     * The lists of the direct type index additionally contain all triple templates 
+     * indexed by the node type of entities of that type, so a single lookup returns all candidates for an entity.
+     * </p>
+     * @param byNodeType - The (empty) node type index to fill
+     * @param byDirectType - The (empty) direct type index to fill
+     * @param nodeTypeFunction - Function returning the node types of subjects or objects of a triple template
+     * @param directTypeFunction - Function returning the direct types of subjects or objects of a triple template
      */
-    public List<BoundNode> getAllPredicates() {
-        List<BoundNode> predicates = new ArrayList<BoundNode>();
-        for (TripleTemplate tripleTemplate: tripleTemplateList) {
-            predicates.add(tripleTemplate.getPredicate()); 
+    private void indexTripleTemplates(Map<NodeType, List<TripleTemplate>> byNodeType, Map<ApiType, List<TripleTemplate>> byDirectType,
+            Function<TripleTemplate, Set<NodeType>> nodeTypeFunction, Function<TripleTemplate, List<? extends ApiType>> directTypeFunction) {
+        // first, index all triple templates that are not restricted to specific types by node type
+        for (TripleTemplate tripleTemplate: this.tripleTemplateList) {
+            if ( directTypeFunction.apply(tripleTemplate) != null ) { continue; }
+            for (NodeType nodeType: nodeTypeFunction.apply(tripleTemplate)) {
+                byNodeType.computeIfAbsent(nodeType, (NodeType key) -> new ArrayList<TripleTemplate>()).add(tripleTemplate);
+            }
         }
-        return predicates;
+        // then, index all other triple templates by direct type
+        // the list for each direct type starts with the triple templates indexed by the node type of its entities
+        for (TripleTemplate tripleTemplate: this.tripleTemplateList) {
+            List<? extends ApiType> directTypes = directTypeFunction.apply(tripleTemplate);
+            if ( directTypes == null ) { continue; }
+            for (ApiType directType: directTypes) {
+                byDirectType.computeIfAbsent(directType, (ApiType key) -> new ArrayList<TripleTemplate>(
+                    byNodeType.getOrDefault(TripleFinderHelper.getEntityNodeType(key), Collections.emptyList())))
+                    .add(tripleTemplate);
+            }
+        }
+    }
+
+    /**
+     * Returns the node type of entities implementing the given type,
+     * i.e. {@link NodeType#API_INSTANCE <code>API_INSTANCE</code>} for classes and 
+     * {@link NodeType#API_VARIABLE <code>API_VARIABLE</code>} for data types.
+     * @param apiType - The type of the entities
+     */
+    private static NodeType getEntityNodeType(ApiType apiType) {
+        if ( apiType.getApiElementType().equals(ApiElementType.CLASS) ) { return NodeType.API_INSTANCE; }
+        return NodeType.API_VARIABLE;
+    }
+
+    /**
+     * Returns all candidate triple templates for a given node from the given indexes.
+     * The candidates still have to be checked if they are applicable for the node.
+     * @param node - The node to get candidate triple templates for
+     * @param byNodeType - The node type index
+     * @param byDirectType - The direct type index
+     */
+    private static List<TripleTemplate> getCandidateTripleTemplates(BoundNode node, 
+            Map<NodeType, List<TripleTemplate>> byNodeType, Map<ApiType, List<TripleTemplate>> byDirectType) {
+        // for entities, use direct type index if possible
+        if ( node instanceof ApiEntity ) {
+            List<TripleTemplate> candidates = byDirectType.get(((ApiEntity) node).getDirectType());
+            if ( candidates != null ) { return candidates; }
+        }
+        // else, use node type index
+        return byNodeType.getOrDefault(node.getNodeType(), Collections.emptyList());
+    }
+
+    /**
+     * Returns all triple templates using the given predicate.
+     * @param predicate - The predicate of the triple templates
+     */
+    public List<TripleTemplate> getTripleTemplatesForPredicate(BoundNode predicate) {
+        return this.tripleTemplatesByPredicate.getOrDefault(predicate, Collections.emptyList());
+    }
+
+    /**
+     * Returns an unmodifiable list of all triple templates.
+     */
+    public List<TripleTemplate> getTripleTemplates() {
+        return Collections.unmodifiableList(this.tripleTemplateList);
+    }
+
+    /**
+     * Returns a list of all (distinct) predicates of all triple templates.
+     */
+    public List<BoundNode> getAllPredicates() {
+        return this.predicateList;
     }
 
     /**
      * Returns a list of all predicates based on a given subject.
-     * Each triple template is checked if it is applicable for the given subject.
+     * Each candidate triple template for the given subject is checked if it is applicable for the given subject.
      * The predicates of all applicable triple templates are collected.
      * @param subject - The subject to filter the predicates
      */
     public List<BoundNode> getAllPredicatesForSubject(BoundNode subject) {
         // initialize empty list of predicates
         List<BoundNode> predicates = new ArrayList<BoundNode>();
-        for (TripleTemplate tripleTemplate: tripleTemplateList) {
+        for (TripleTemplate tripleTemplate: TripleFinderHelper.getCandidateTripleTemplates(
+                subject, this.tripleTemplatesBySubjectNodeType, this.tripleTemplatesBySubjectDirectType)) {
             // evaluate if triple template is applicable for the given subject
             if (tripleTemplate.isApplicableForSubject(subject)) {
                 predicates.add(tripleTemplate.getPredicate()); 
@@ -93,14 +219,15 @@ public class TripleFinderHelper {
 
     /**
      * Returns a list of all predicates based on a given object.
-     * Each triple template is checked if it is applicable for the given object.
+     * Each candidate triple template for the given object is checked if it is applicable for the given object.
      * The predicates of all applicable triple templates are collected.
      * @param object - The object to filter the predicates
      */
     public List<BoundNode> getAllPredicatesForObject(BoundNode object) {
         // initialize empty list of predicates
         List<BoundNode> predicates = new ArrayList<BoundNode>();
-        for (TripleTemplate tripleTemplate: tripleTemplateList) {
+        for (TripleTemplate tripleTemplate: TripleFinderHelper.getCandidateTripleTemplates(
+                object, this.tripleTemplatesByObjectNodeType, this.tripleTemplatesByObjectDirectType)) {
             // evaluate if triple template is applicable for the given object
             if (tripleTemplate.isApplicableForObject(object)) {
                 predicates.add(tripleTemplate.getPredicate()); 
@@ -113,7 +240,7 @@ public class TripleFinderHelper {
 
     /**
      * Returns a list of all predicates based on a given subject and object.
-     * Each triple template is checked if it is applicable for the given subject and object.
+     * Each candidate triple template for the given subject is checked if it is applicable for the given subject and object.
      * The predicates of all applicable triple templates are collected.
      * @param subject - The subject to filter the predicates
      * @param object - The object to filter the predicates
@@ -121,7 +248,8 @@ public class TripleFinderHelper {
     public List<BoundNode> getAllPredicatesForSubjectAndObject(BoundNode subject, BoundNode object) {
         // initialize empty list of predicates
         List<BoundNode> predicates = new ArrayList<BoundNode>();
-        for (TripleTemplate tripleTemplate: tripleTemplateList) {
+        for (TripleTemplate tripleTemplate: TripleFinderHelper.getCandidateTripleTemplates(
+                subject, this.tripleTemplatesBySubjectNodeType, this.tripleTemplatesBySubjectDirectType)) {
             // evaluate if triple template is applicable for the given subject and object
             if (tripleTemplate.isApplicableForSubjectAndObject(subject, object)) {
                 predicates.add(tripleTemplate.getPredicate()); 
@@ -134,21 +262,17 @@ public class TripleFinderHelper {
         
     /**
      * Returns a list of all subjects based on a given predicate.
-     * Each triple template is checked if it uses the given predicate.
-     * If so, the subjects of that triple template are collected.
+     * The subjects of all triple templates using the given predicate are collected.
      * @param predicate - The predicate to filter the subjects
      */
     public List<BoundNode> getAllSubjectsForPredicate(BoundNode predicate) {
         // initialize empty list of subjects
         List<BoundNode> subjects = new ArrayList<BoundNode>();
-        for (TripleTemplate tripleTemplate: tripleTemplateList) {
-            // evaluate triple template if it uses the given predicate
-            if (tripleTemplate.getPredicate().equals(predicate)) { 
-                List<? extends BoundNode> tripleTemplateSubjects = tripleTemplate.getAllSubjects();
-                if (tripleTemplateSubjects != null && !tripleTemplateSubjects.isEmpty()) 
-                    { subjects.addAll(tripleTemplateSubjects); }
-            //else, skip triple template
-            } else { continue; }
+        // only evaluate triple templates using the given predicate
+        for (TripleTemplate tripleTemplate: this.getTripleTemplatesForPredicate(predicate)) {
+            List<? extends BoundNode> tripleTemplateSubjects = tripleTemplate.getAllSubjects();
+            if (tripleTemplateSubjects != null && !tripleTemplateSubjects.isEmpty()) 
+                { subjects.addAll(tripleTemplateSubjects); }
         }
         if (subjects.isEmpty()) { return null; }
         return subjects;
@@ -156,22 +280,18 @@ public class TripleFinderHelper {
 
     /**
      * Returns a list of all subjects based on a given predicate and object.
-     * Each triple template is checked if it uses the given predicate.
-     * If so, all subjects of the triple template matching the given object are collected.
+     * All subjects matching the given object of all triple templates using the given predicate are collected.
      * @param predicate - The predicate to filter the subjects
      * @param object - The object to filter the subjects
      */
     public List<BoundNode> getAllSubjectsForPredicateAndObject(BoundNode predicate, BoundNode object) {
         // initialize empty list of subjects
         List<BoundNode> subjects = new ArrayList<BoundNode>();
-        for (TripleTemplate tripleTemplate: tripleTemplateList) {
-            // evaluate triple template if it uses the given predicate
-            if (tripleTemplate.getPredicate().equals(predicate)) {
-                List<? extends BoundNode> tripleTemplateSubjects = tripleTemplate.getAllSubjectsForObject(object);
-                if (tripleTemplateSubjects != null && !tripleTemplateSubjects.isEmpty()) 
-                    { subjects.addAll(tripleTemplateSubjects); } 
-            //else, skip triple template
-            } else { continue; }
+        // only evaluate triple templates using the given predicate
+        for (TripleTemplate tripleTemplate: this.getTripleTemplatesForPredicate(predicate)) {
+            List<? extends BoundNode> tripleTemplateSubjects = tripleTemplate.getAllSubjectsForObject(object);
+            if (tripleTemplateSubjects != null && !tripleTemplateSubjects.isEmpty()) 
+                { subjects.addAll(tripleTemplateSubjects); } 
         }
         if (subjects.isEmpty()) { return null; }
         return subjects;
@@ -179,25 +299,122 @@ public class TripleFinderHelper {
 
     /**
      * Returns a list of all objects by based on a given subject.
-     * Each triple template is checked if it is applicable for the given subject.
-     * If so, all objects of the triple template matching the given subject are collected.
+     * All objects matching the given subject of all triple templates using the given predicate are collected.
      * @param predicate - The predicate to filter the objects
      * @param subject - The subject to filter the objects
      */
     public List<BoundNode> getAllObjectsForPredicateAndSubject(BoundNode predicate, BoundNode subject) {
         // initialize empty list of objects
         List<BoundNode> objects = new ArrayList<BoundNode>();
-        for (TripleTemplate tripleTemplate: tripleTemplateList) {
-            // evaluate triple template if it uses the given predicate
-            if (tripleTemplate.getPredicate().equals(predicate)) { 
-                List<? extends BoundNode> tripleTemplateObjects = tripleTemplate.getAllObjectsForSubject(subject);
-                if (tripleTemplateObjects != null && !tripleTemplateObjects.isEmpty()) 
-                    { objects.addAll(tripleTemplateObjects); }
-                //else, skip triple template
-            } else { continue; }
+        // only evaluate triple templates using the given predicate
+        for (TripleTemplate tripleTemplate: this.getTripleTemplatesForPredicate(predicate)) {
+            List<? extends BoundNode> tripleTemplateObjects = tripleTemplate.getAllObjectsForSubject(subject);
+            if (tripleTemplateObjects != null && !tripleTemplateObjects.isEmpty()) 
+                { objects.addAll(tripleTemplateObjects); }
         }
         if (objects.isEmpty()) { return null; }
         return objects;
     }
 
+    /**
+     * Returns a list of all objects for each of the given subjects, in the same order as the subjects.
+     * Each element is <code>null</code> if the subject has no objects.
+     * The objects of all subjects are requested from each triple template using the given predicate at once
+     * (see {@link com.vmax.vmax_core.triple_templates.TripleTemplate#getAllObjectsForSubjects(List) <code>TripleTemplate.getAllObjectsForSubjects(List)</code>}).
+     * @param predicate - The predicate to filter the objects
+     * @param subjects - The subjects to filter the objects
+     */
+    public List<List<BoundNode>> getAllObjectsForPredicateAndSubjects(BoundNode predicate, List<? extends BoundNode> subjects) {
+        // initialize list of objects for each subject
+        List<List<BoundNode>> objectsList = new ArrayList<List<BoundNode>>(subjects.size());
+        for (int i = 0; i < subjects.size(); i++) { objectsList.add(null); }
+        // only evaluate triple templates using the given predicate
+        for (TripleTemplate tripleTemplate: this.getTripleTemplatesForPredicate(predicate)) {
+            List<List<? extends BoundNode>> tripleTemplateObjectsList = tripleTemplate.getAllObjectsForSubjects(subjects);
+            for (int i = 0; i < subjects.size(); i++) {
+                List<? extends BoundNode> tripleTemplateObjects = tripleTemplateObjectsList.get(i);
+                if ( tripleTemplateObjects == null || tripleTemplateObjects.isEmpty() ) { continue; }
+                if ( objectsList.get(i) == null ) { objectsList.set(i, new ArrayList<BoundNode>()); }
+                objectsList.get(i).addAll(tripleTemplateObjects);
+            }
+        }
+        return objectsList;
+    }
+
+    /**
+     * Returns <code>true</code> if any triple template using the given predicate defines a triple 
+     * with the given subject and object.
+     * No triples are created, and the search stops at the first triple template containing the triple.
+     * @param subject - The subject of the triple
+     * @param predicate - The predicate of the triple
+     * @param object - The object of the triple
+     */
+    public boolean containsTriple(BoundNode subject, BoundNode predicate, BoundNode object) {
+        // only evaluate triple templates using the given predicate
+        for (TripleTemplate tripleTemplate: this.getTripleTemplatesForPredicate(predicate)) {
+            if ( tripleTemplate.contains(subject, object) ) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Returns the number of distinct triples of all triple templates.
+     * </p>
+     * <p>
+     * The triples of a triple template, that can't share a triple with any other triple template of its predicate
+     * (as their subject or object node types are disjoint), are counted without creating them 
+     * (see {@link com.vmax.vmax_core.triple_templates.TripleTemplate#countTriples() <code>TripleTemplate.countTriples()</code>}).
+     * The triples of the remaining triple templates of a predicate, e.g. the <code>rdfs:subClassOf</code> triples of the classes,
+     * are enumerated to count each triple only once.
+     * </p>
+     */
+    public long countTriples() {
+        long tripleCount = 0;
+        for (BoundNode predicate: this.predicateList) {
+            List<TripleTemplate> tripleTemplates = this.getTripleTemplatesForPredicate(predicate);
+            List<TripleTemplate> overlappingTripleTemplates = new ArrayList<TripleTemplate>();
+            for (TripleTemplate tripleTemplate: tripleTemplates) {
+                boolean overlapping = tripleTemplates.stream().anyMatch((TripleTemplate otherTripleTemplate) -> 
+                    otherTripleTemplate != tripleTemplate && TripleFinderHelper.mayOverlap(tripleTemplate, otherTripleTemplate));
+                if ( overlapping ) { overlappingTripleTemplates.add(tripleTemplate); }
+                else { tripleCount += tripleTemplate.countTriples(); }
+            }
+            if ( !overlappingTripleTemplates.isEmpty() ) { tripleCount += TripleFinderHelper.countDistinctTriples(overlappingTripleTemplates); }
+        }
+        return tripleCount;
+    }
+
+    /**
+     * Returns <code>true</code> if the two triple templates (of the same predicate) may define the same triple,
+     * i.e. both their subject node types and their object node types intersect.
+     */
+    private static boolean mayOverlap(TripleTemplate tripleTemplate, TripleTemplate otherTripleTemplate) {
+        return !Collections.disjoint(tripleTemplate.getSubjectNodeTypes(), otherTripleTemplate.getSubjectNodeTypes())
+            && !Collections.disjoint(tripleTemplate.getObjectNodeTypes(), otherTripleTemplate.getObjectNodeTypes());
+    }
+
+    /**
+     * Returns the number of distinct triples of the given triple templates of the same predicate by enumerating their triples.
+     * The objects are requested in batches of subjects.
+     */
+    private static long countDistinctTriples(List<TripleTemplate> tripleTemplates) {
+        Set<List<BoundNode>> distinctSubjectsAndObjects = new HashSet<List<BoundNode>>();
+        for (TripleTemplate tripleTemplate: tripleTemplates) {
+            List<? extends BoundNode> subjects = tripleTemplate.getAllSubjects();
+            if ( subjects == null || subjects.isEmpty() ) { continue; }
+            List<BoundNode> distinctSubjects = new ArrayList<BoundNode>(new LinkedHashSet<BoundNode>(subjects));
+            for (int from = 0; from < distinctSubjects.size(); from += TripleTemplate.SUBJECT_BATCH_SIZE) {
+                List<BoundNode> subjectBatch = distinctSubjects.subList(from, Math.min(from + TripleTemplate.SUBJECT_BATCH_SIZE, distinctSubjects.size()));
+                List<List<? extends BoundNode>> objectsList = tripleTemplate.getAllObjectsForSubjects(subjectBatch);
+                for (int i = 0; i < subjectBatch.size(); i++) {
+                    List<? extends BoundNode> objects = objectsList.get(i);
+                    if ( objects == null ) { continue; }
+                    for (BoundNode object: objects) { distinctSubjectsAndObjects.add(List.of(subjectBatch.get(i), object)); }
+                }
+            }
+        }
+        return distinctSubjectsAndObjects.size();
+    }
+
 }
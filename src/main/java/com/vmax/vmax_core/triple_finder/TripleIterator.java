@@ -0,0 +1,106 @@
+package com.vmax.vmax_core.triple_finder;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+import com.vmax.vmax_core.graph.Triple;
+
+/**
+ * <p>
+ * Abstract class for a lazy iterator over the {@link com.vmax.vmax_core.graph.Triple <code>Triples</code>} matching a triple pattern.
+ * </p>
+ * <p>
+ * Implementing classes only have to compute the next triple by implementing {@link #computeNext() <code>computeNext()</code>}.
+ * This class handles the look ahead, counts the returned triples and executes a finish action once,
+ * when the iterator is exhausted or closed.
+ * </p>
+ * <p>
+ * The iterator can be closed before it is exhausted by calling {@link #close() <code>close()</code>}.
+ * Afterwards, {@link #computeNext() <code>computeNext()</code>} is not called anymore, so no more calls to the API are made.
+ * </p>
+ */
+public abstract class TripleIterator implements Iterator<Triple>, AutoCloseable {
+
+    /** Action to be executed once with the number of returned triples, when the iterator is exhausted or closed */
+    private final IntConsumer finishAction;
+    // look ahead triple, number of returned triples and boolean to check if iterator is finished
+    private Triple nextTriple;
+    private int tripleCount = 0;
+    private boolean finished = false;
+
+    public TripleIterator(IntConsumer finishAction) {
+        this.finishAction = finishAction;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( this.finished ) { return false; }
+        if ( this.nextTriple == null ) { this.nextTriple = this.computeNext(); }
+        // if no more triples can be found, the iterator is exhausted
+        if ( this.nextTriple == null ) {
+            this.finish();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Triple next() {
+        if ( !this.hasNext() ) { throw new NoSuchElementException("triple iterator is exhausted"); }
+        Triple triple = this.nextTriple;
+        this.nextTriple = null;
+        this.tripleCount++;
+        return triple;
+    }
+
+    /**
+     * Skips up to the given number of triples, e.g. to apply an offset.
+     * Skipped triples are not counted as returned triples.
+     * Returns the number of skipped triples, which is smaller than the given number if the iterator is exhausted.
+     * @param count - The number of triples to skip
+     */
+    public long skip(long count) {
+        long skipped = 0;
+        while ( skipped < count && this.hasNext() ) {
+            this.nextTriple = null;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Closes the iterator.
+     * No more triples are returned and no more calls to the API are made.
+     * Can be called multiple times.
+     */
+    @Override
+    public void close() {
+        if ( !this.finished ) { this.finish(); }
+    }
+
+    /**
+     * Computes the next triple.
+     * Returns <code>null</code> if there are no more triples.
+     * Must be implemented by the implementing subclass.
+     */
+    protected abstract Triple computeNext();
+
+    /**
+     * Releases all resources held to compute further triples.
+     * Called once when the iterator is exhausted or closed.
+     * Can be overridden by implementing subclasses.
+     */
+    protected void release() { }
+
+    /**
+     * Marks the iterator as finished, releases its resources and executes the finish action.
+     */
+    private void finish() {
+        this.finished = true;
+        this.nextTriple = null;
+        this.release();
+        if ( this.finishAction != null ) { this.finishAction.accept(this.tripleCount); }
+    }
+
+}
@@ -0,0 +1,454 @@
+package com.vmax.vmax_core.triple_finder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.vmax.vmax_core.api_elements.ApiInstance;
+import com.vmax.vmax_core.api_helper.ModelChangeEvent;
+import com.vmax.vmax_core.api_helper.ModelChangeListener;
+import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.graph.Node;
+import com.vmax.vmax_core.graph.NodeType;
+import com.vmax.vmax_core.graph.RdfsHelper;
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.graph.TriplePattern;
+
+/**
+ * <p>
+ * Class for a cache of the {@link com.vmax.vmax_core.graph.Triple <code>Triples</code>} matching a
+ * {@link com.vmax.vmax_core.graph.TriplePattern <code>TriplePattern</code>}, used by the
+ * {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>}
+ * (see {@link com.vmax.vmax_core.triple_finder.TripleFinder#setResultCache(TriplePatternCache) <code>setResultCache(TriplePatternCache)</code>}).
+ * </p>
+ * <p>
+ * The results of triple patterns are only cached once they were evaluated completely.
+ * The memory used by the cache is bounded by the maximum number of cached triples,
+ * if this number is exceeded, the least recently used results are evicted.
+ * Results expire after the time to live of their predicate (see {@link #setTimeToLive(BoundNode, Duration) <code>setTimeToLive(BoundNode, Duration)</code>})
+ * or after the default time to live, if no time to live is set for their predicate or their predicate is unbound.
+ * </p>
+ * <p>
+ * All results are stored together with the model epoch at the start of their evaluation.
+ * Tool specific implementations should call {@link #incrementEpoch() <code>incrementEpoch()</code>} whenever the model of the tool changes,
+ * which invalidates all cached results at once.
+ * Results evaluated while the epoch is incremented are not cached.
+ * </p>
+ * <p>
+ * The cache is a {@link com.vmax.vmax_core.api_helper.ModelChangeListener <code>ModelChangeListener</code>}
+ * and is registered at the {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper</code>} by the triple finder.
+ * Changes of single instances or attribute values only evict the results of triple patterns that can contain the changed triples,
+ * a change of the whole model increments the epoch.
+ * Results evaluated while any change is reported are not cached.
+ * </p>
+ * <p>
+ * Results of schema-only triple patterns (see {@link #isSchemaTriplePattern(TriplePattern) <code>isSchemaTriplePattern(TriplePattern)</code>})
+ * only depend on the classes and attributes of the API, which do not change at runtime.
+ * They are cached permanently, i.e. they neither expire nor are they invalidated by the epoch or evicted.
+ * </p>
+ */
+public class TriplePatternCache implements ModelChangeListener {
+
+    /** Default maximum number of cached triples */
+    public static final long DEFAULT_MAX_TRIPLES = 1_000_000;
+
+    private final long maxTriples;
+    private final long defaultTimeToLiveNanos;
+    /** Time to live of the results of bound predicates, overriding the default time to live */
+    private final Map<BoundNode, Long> timeToLiveNanosByPredicate = new ConcurrentHashMap<BoundNode, Long>();
+    /** Model epoch, incremented whenever the model of the tool changes */
+    private final AtomicLong epoch = new AtomicLong();
+    /** Number of reported changes, including changes of single instances, guarded by the lock of the map of entries */
+    private long changeCount = 0;
+    /** Results of triple patterns depending on the model, in access order, guarded by the lock of this map */
+    private final LinkedHashMap<TriplePattern, Entry> entries = new LinkedHashMap<TriplePattern, Entry>(16, 0.75f, true);
+    /** Number of triples of all results depending on the model, guarded by the lock of the map of entries */
+    private long cachedTripleCount = 0;
+    /** Results of schema-only triple patterns, cached permanently */
+    private final Map<TriplePattern, List<Triple>> schemaEntries = new ConcurrentHashMap<TriplePattern, List<Triple>>();
+    // counters for monitoring
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates a new cache with the default maximum number of cached triples, whose results do not expire.
+     */
+    public TriplePatternCache() {
+        this(DEFAULT_MAX_TRIPLES, null);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxTriples - The maximum number of triples of all cached results depending on the model
+     * @param defaultTimeToLive - The time after which results expire, <code>null</code> or a non-positive duration for no expiry
+     */
+    public TriplePatternCache(long maxTriples, Duration defaultTimeToLive) {
+        if ( maxTriples < 0 ) { throw new IllegalArgumentException("maximum number of cached triples can't be negative"); }
+        this.maxTriples = maxTriples;
+        this.defaultTimeToLiveNanos = TriplePatternCache.toNanos(defaultTimeToLive);
+    }
+
+    /**
+     * Sets the time to live of the results of triple patterns with the given predicate.
+     * A time to live of zero disables caching of these results, e.g. for attributes whose values change constantly.
+     * @param predicate - The predicate, e.g. an {@link com.vmax.vmax_core.api_elements.ApiAttribute <code>ApiAttribute</code>}
+     * @param timeToLive - The time after which results expire, <code>null</code> to use the default time to live again
+     */
+    public void setTimeToLive(BoundNode predicate, Duration timeToLive) {
+        if ( predicate == null ) { throw new IllegalArgumentException("predicate of a time to live can't be null"); }
+        if ( timeToLive == null ) {
+            this.timeToLiveNanosByPredicate.remove(predicate);
+            return;
+        }
+        if ( timeToLive.isNegative() ) { throw new IllegalArgumentException("time to live can't be negative"); }
+        this.timeToLiveNanosByPredicate.put(predicate, timeToLive.toNanos());
+    }
+
+    /**
+     * Returns the current model epoch.
+     */
+    public long getEpoch() {
+        return this.epoch.get();
+    }
+
+    /**
+     * Increments the model epoch and thereby invalidates all cached results depending on the model.
+     * Returns the new epoch.
+     */
+    public long incrementEpoch() {
+        long newEpoch = this.epoch.incrementAndGet();
+        synchronized (this.entries) {
+            this.changeCount++;
+            this.entries.clear();
+            this.cachedTripleCount = 0;
+        }
+        return newEpoch;
+    }
+
+    /**
+     * <p>
+     * Evicts the results affected by the given change of the model.
+     * </p>
+     * <p>
+     * If an attribute value of an instance changed, the results of triple patterns with the attribute or an unbound predicate
+     * and the instance or an unbound subject are evicted.
+     * If an instance was created or deleted, the results of triple patterns with the instance or an unbound node as subject
+     * and the results of triple patterns with the instance as object are evicted.
+     * If the whole model changed, the epoch is incremented.
+     * The results of schema-only triple patterns are kept in any case.
+     * </p>
+     * @param modelChangeEvent - The change of the model
+     */
+    @Override
+    public void modelChanged(ModelChangeEvent modelChangeEvent) {
+        ApiInstance apiInstance = modelChangeEvent.getApiInstance();
+        switch (modelChangeEvent.getModelChangeType()) {
+            case ATTRIBUTE_VALUE_CHANGED:
+                BoundNode apiAttribute = modelChangeEvent.getApiAttribute();
+                this.invalidateIf((TriplePattern triplePattern) ->
+                    TriplePatternCache.isUnboundOrEqual(triplePattern.getPredicate(), apiAttribute)
+                    && TriplePatternCache.isUnboundOrEqual(triplePattern.getSubject(), apiInstance));
+                break;
+            case INSTANCE_CREATED:
+            case INSTANCE_DELETED:
+                this.invalidateIf((TriplePattern triplePattern) ->
+                    TriplePatternCache.isUnboundOrEqual(triplePattern.getSubject(), apiInstance)
+                    || triplePattern.getObject().equals(apiInstance));
+                break;
+            case MODEL_CHANGED:
+                this.incrementEpoch();
+                break;
+        }
+    }
+
+    /**
+     * Returns the cached triples matching the given triple pattern
+     * or <code>null</code> if no (unexpired) result of the current epoch is cached.
+     * @param triplePattern - The triple pattern to look up
+     */
+    public List<Triple> get(TriplePattern triplePattern) {
+        List<Triple> triples = this.lookUp(triplePattern);
+        if ( triples == null ) { this.missCount.increment(); }
+        else { this.hitCount.increment(); }
+        return triples;
+    }
+
+    /**
+     * <p>
+     * Caches the triples matching the given triple pattern, if they were evaluated in the given epoch.
+     * </p>
+     * <p>
+     * Results of an older epoch, results of predicates with a time to live of zero
+     * and results with more triples than the maximum number of cached triples are ignored.
+     * </p>
+     * @param triplePattern - The evaluated triple pattern
+     * @param triples - All triples matching the triple pattern
+     * @param evaluationEpoch - The epoch at the start of the evaluation (see {@link #getEpoch() <code>getEpoch()</code>})
+     */
+    public void put(TriplePattern triplePattern, List<Triple> triples, long evaluationEpoch) {
+        this.put(triplePattern, triples, evaluationEpoch, -1);
+    }
+
+    /**
+     * Caches the triples matching the given triple pattern, if they were evaluated in the given epoch
+     * and no change was reported since the given number of changes, unless the given number of changes is negative.
+     */
+    void put(TriplePattern triplePattern, List<Triple> triples, long evaluationEpoch, long evaluationChangeCount) {
+        if ( triplePattern == null || triples == null ) { return; }
+        List<Triple> cachedTriples = Collections.unmodifiableList(new ArrayList<Triple>(triples));
+        // schema-only triple patterns are cached permanently
+        if ( TriplePatternCache.isSchemaTriplePattern(triplePattern) ) {
+            this.schemaEntries.put(triplePattern, cachedTriples);
+            return;
+        }
+        long timeToLiveNanos = this.getTimeToLiveNanos(triplePattern);
+        if ( timeToLiveNanos == 0 || cachedTriples.size() > this.maxTriples ) { return; }
+        long nowNanos = System.nanoTime();
+        synchronized (this.entries) {
+            // discard results evaluated before the model changed
+            if ( evaluationEpoch != this.epoch.get() ) { return; }
+            if ( evaluationChangeCount >= 0 && evaluationChangeCount != this.changeCount ) { return; }
+            Entry previousEntry = this.entries.put(triplePattern, new Entry(cachedTriples, nowNanos + timeToLiveNanos));
+            if ( previousEntry != null ) { this.cachedTripleCount -= previousEntry.triples.size(); }
+            this.cachedTripleCount += cachedTriples.size();
+            // evict least recently used results until the maximum number of triples is met
+            Iterator<Entry> iterator = this.entries.values().iterator();
+            while ( this.cachedTripleCount > this.maxTriples && iterator.hasNext() ) {
+                this.cachedTripleCount -= iterator.next().triples.size();
+                iterator.remove();
+                this.evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached results, including the results of schema-only triple patterns.
+     */
+    public void invalidateAll() {
+        this.schemaEntries.clear();
+        synchronized (this.entries) {
+            this.entries.clear();
+            this.cachedTripleCount = 0;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns <code>true</code> if the triples matching the given triple pattern only depend on the classes and attributes of the API,
+     * i.e. the predicate is <code>rdfs:subClassOf</code>, <code>rdfs:domain</code> or <code>rdfs:range</code>,
+     * or the predicate is <code>rdf:type</code> and the subject is a class or attribute
+     * or the object is <code>rdfs:Class</code> or <code>rdf:Property</code>.
+     * </p>
+     * @param triplePattern - The triple pattern to check
+     */
+    public static boolean isSchemaTriplePattern(TriplePattern triplePattern) {
+        Node predicate = triplePattern.getPredicate();
+        if ( predicate.equals(RdfsHelper.RDFS_SUBCLASSOF)
+            || predicate.equals(RdfsHelper.RDFS_DOMAIN)
+            || predicate.equals(RdfsHelper.RDFS_RANGE) ) { return true; }
+        if ( !predicate.equals(RdfsHelper.RDF_TYPE) ) { return false; }
+        NodeType subjectType = triplePattern.getSubject().getNodeType();
+        if ( subjectType == NodeType.API_CLASS || subjectType == NodeType.API_ATTRIBUTE ) { return true; }
+        Node object = triplePattern.getObject();
+        return object.equals(RdfsHelper.RDFS_CLASS) || object.equals(RdfsHelper.RDF_PROPERTY);
+    }
+
+    /**
+     * Returns the number of cached results, including expired results that have not been removed yet.
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size() + this.schemaEntries.size();
+        }
+    }
+
+    /**
+     * Returns the number of triples of all cached results depending on the model.
+     */
+    public long getCachedTripleCount() {
+        synchronized (this.entries) {
+            return this.cachedTripleCount;
+        }
+    }
+
+    public long getMaxTriples() {
+        return this.maxTriples;
+    }
+
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "[triple pattern cache: epoch " + this.getEpoch() + ", " + this.size() + " results, "
+            + this.getCachedTripleCount() + "/" + this.maxTriples + " triples, "
+            + this.getHitCount() + " hits, " + this.getMissCount() + " misses, " + this.getEvictionCount() + " evictions]";
+    }
+
+    /**
+     * Evaluates the given triple pattern and returns an iterator over its triples, which caches all triples once it is exhausted.
+     * Triples are not cached if the iterator is closed before, if it returns more triples than the maximum number of cached triples
+     * or if a change of the model is reported before it is exhausted.
+     * @param triplePattern - The triple pattern to evaluate
+     * @param evaluation - Function evaluating the triple pattern, returning an iterator without finish action
+     * @param finishAction - Action executed with the number of returned triples, when the iterator is exhausted or closed
+     */
+    TripleIterator evaluateAndCache(TriplePattern triplePattern, Supplier<TripleIterator> evaluation, IntConsumer finishAction) {
+        // remember the epoch and the number of changes before the evaluation starts
+        long evaluationEpoch = this.getEpoch();
+        long evaluationChangeCount = this.getChangeCount();
+        return new CachingTripleIterator(triplePattern, evaluation.get(), evaluationEpoch, evaluationChangeCount, finishAction);
+    }
+
+    /**
+     * Evicts all results depending on the model, whose triple pattern matches the given predicate.
+     */
+    private void invalidateIf(Predicate<TriplePattern> predicate) {
+        synchronized (this.entries) {
+            this.changeCount++;
+            Iterator<Map.Entry<TriplePattern, Entry>> iterator = this.entries.entrySet().iterator();
+            while ( iterator.hasNext() ) {
+                Map.Entry<TriplePattern, Entry> mapEntry = iterator.next();
+                if ( !predicate.test(mapEntry.getKey()) ) { continue; }
+                this.cachedTripleCount -= mapEntry.getValue().triples.size();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the given node of a triple pattern is unbound or equal to the given bound node.
+     */
+    private static boolean isUnboundOrEqual(Node node, BoundNode boundNode) {
+        return node.getNodeType() == NodeType.UNBOUND || node.equals(boundNode);
+    }
+
+    /**
+     * Returns the number of reported changes.
+     */
+    long getChangeCount() {
+        synchronized (this.entries) {
+            return this.changeCount;
+        }
+    }
+
+    /**
+     * Returns the cached triples without counting a hit or a miss.
+     */
+    private List<Triple> lookUp(TriplePattern triplePattern) {
+        if ( triplePattern == null ) { return null; }
+        List<Triple> schemaTriples = this.schemaEntries.get(triplePattern);
+        if ( schemaTriples != null ) { return schemaTriples; }
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(triplePattern);
+            if ( entry == null ) { return null; }
+            // remove expired result
+            if ( System.nanoTime() - entry.expiryNanos >= 0 ) {
+                this.entries.remove(triplePattern);
+                this.cachedTripleCount -= entry.triples.size();
+                this.evictionCount.increment();
+                return null;
+            }
+            return entry.triples;
+        }
+    }
+
+    /**
+     * Returns the time to live of the result of the given triple pattern in nanoseconds,
+     * {@link java.lang.Long#MAX_VALUE <code>Long.MAX_VALUE</code>} for no expiry.
+     */
+    private long getTimeToLiveNanos(TriplePattern triplePattern) {
+        Node predicate = triplePattern.getPredicate();
+        if ( predicate.getNodeType() == NodeType.UNBOUND ) { return this.defaultTimeToLiveNanos; }
+        Long timeToLiveNanos = this.timeToLiveNanosByPredicate.get((BoundNode) predicate);
+        if ( timeToLiveNanos == null ) { return this.defaultTimeToLiveNanos; }
+        return timeToLiveNanos;
+    }
+
+    private static long toNanos(Duration timeToLive) {
+        // comparisons of nano times are overflow safe, so a time to live of Long.MAX_VALUE never expires in practice
+        return ( timeToLive == null || timeToLive.isNegative() || timeToLive.isZero() ) ? Long.MAX_VALUE : timeToLive.toNanos();
+    }
+
+    /**
+     * Cached result of a triple pattern, holding the triples and the expiry time.
+     */
+    private static final class Entry {
+
+        private final List<Triple> triples;
+        private final long expiryNanos;
+
+        private Entry(List<Triple> triples, long expiryNanos) {
+            this.triples = triples;
+            this.expiryNanos = expiryNanos;
+        }
+
+    }
+
+    /**
+     * Iterator collecting the triples of another iterator, which are cached once the other iterator is exhausted.
+     */
+    private final class CachingTripleIterator extends TripleIterator {
+
+        private final TriplePattern triplePattern;
+        private final TripleIterator tripleIterator;
+        private final long evaluationEpoch;
+        private final long evaluationChangeCount;
+        /** Triples returned so far, <code>null</code> if the result is too large to be cached */
+        private List<Triple> triples = new ArrayList<Triple>();
+
+        private CachingTripleIterator(TriplePattern triplePattern, TripleIterator tripleIterator, 
+                long evaluationEpoch, long evaluationChangeCount, IntConsumer finishAction) {
+            super(finishAction);
+            this.triplePattern = triplePattern;
+            this.tripleIterator = tripleIterator;
+            this.evaluationEpoch = evaluationEpoch;
+            this.evaluationChangeCount = evaluationChangeCount;
+        }
+
+        @Override
+        protected Triple computeNext() {
+            if ( !this.tripleIterator.hasNext() ) {
+                // the triple pattern was evaluated completely
+                if ( this.triples != null ) { TriplePatternCache.this.put(this.triplePattern, this.triples, this.evaluationEpoch, this.evaluationChangeCount); }
+                return null;
+            }
+            Triple triple = this.tripleIterator.next();
+            if ( this.triples != null ) {
+                this.triples.add(triple);
+                // stop collecting triples of results that can't be cached anyway
+                if ( this.triples.size() > TriplePatternCache.this.maxTriples
+                    && !TriplePatternCache.isSchemaTriplePattern(this.triplePattern) ) { this.triples = null; }
+            }
+            return triple;
+        }
+
+        @Override
+        protected void release() {
+            this.tripleIterator.close();
+            this.triples = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,371 @@
+package com.vmax.vmax_core.triple_finder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.vmax.vmax_core.api_elements.ApiClass;
+import com.vmax.vmax_core.api_helper.ModelChangeEvent;
+import com.vmax.vmax_core.api_helper.ModelChangeListener;
+import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.triple_templates.TripleTemplate;
+
+/**
+ * <p>
+ * Class for cardinality estimates of triple patterns, e.g. to let a query engine evaluate selective triple patterns first.
+ * </p>
+ * <p>
+ * The estimates are derived per predicate from the {@link com.vmax.vmax_core.triple_templates.TripleTemplate <code>TripleTemplates</code>}:
+ * the subjects of each triple template are streamed and counted, and the objects are requested in a single call
+ * for a limited prefix of these subjects, so creating the statistics requires only few calls to the API.
+ * Triple templates with the same subject class (see {@link com.vmax.vmax_core.triple_templates.TripleTemplate#getSubjectClass() <code>getSubjectClass()</code>}),
+ * e.g. the triple templates of all attributes of a class, share the count and the prefix of their subjects,
+ * so the instances of each class are streamed only once per creation of the statistics.
+ * From these counts, the number of triples, distinct subjects and distinct objects of each predicate is estimated,
+ * which gives an estimate for each combination of bound and unbound nodes of a triple pattern.
+ * </p>
+ * <p>
+ * The statistics are created on first use and can be refreshed manually or periodically in the background.
+ * </p>
+ * <p>
+ * The statistics are a {@link com.vmax.vmax_core.api_helper.ModelChangeListener <code>ModelChangeListener</code>}
+ * and are registered at the {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper</code>} by the triple finder.
+ * Any reported change of the model marks the current statistics as stale and starts a background refresh.
+ * The stale statistics are used until the refresh is complete, so estimates never wait for the API after a change.
+ * </p>
+ */
+public class TripleStatistics implements ModelChangeListener {
+
+    /** Default maximum number of subjects per triple template, for which the objects are requested */
+    public static final int DEFAULT_SAMPLE_SIZE = 32;
+
+    private final TripleFinderHelper tripleFinderHelper;
+    private final int sampleSize;
+    /** The current statistics, replaced atomically on refresh */
+    private volatile Snapshot snapshot;
+    // executor and task for periodic and background refreshes
+    private ScheduledExecutorService refreshExecutor;
+    private ScheduledFuture<?> refreshTask;
+    private CompletableFuture<Void> runningRefresh;
+    /** <code>true</code> while a background refresh is running, guarded by the lock of the statistics */
+    private boolean refreshRunning = false;
+    /** <code>true</code> if a change of the model was reported after the creation of the current statistics started */
+    private volatile boolean stale = false;
+
+    public TripleStatistics(TripleFinderHelper tripleFinderHelper, int sampleSize) {
+        if ( sampleSize < 1 ) { throw new IllegalArgumentException("sample size must be at least 1"); }
+        this.tripleFinderHelper = tripleFinderHelper;
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Creates the statistics in the calling thread and replaces the current statistics.
+     */
+    public void refresh() {
+        this.stale = false;
+        this.snapshot = Snapshot.build(this.tripleFinderHelper, this.sampleSize);
+    }
+
+    /**
+     * <p>
+     * Creates the statistics in the background and replaces the current statistics when they are complete.
+     * </p>
+     * <p>
+     * If a background refresh is already running, no new refresh is started and the running refresh is returned.
+     * The running refresh creates the statistics again, if they have become stale while they were created.
+     * </p>
+     */
+    public synchronized CompletableFuture<Void> refreshAsync() {
+        if ( this.refreshRunning ) { return this.runningRefresh; }
+        this.refreshRunning = true;
+        try {
+            this.runningRefresh = CompletableFuture.runAsync(this::refreshUntilCurrent, this.getRefreshExecutor());
+        } catch (RuntimeException e) {
+            this.refreshRunning = false;
+            throw e;
+        }
+        return this.runningRefresh;
+    }
+
+    /**
+     * Creates the statistics until no change of the model was reported while they were created.
+     */
+    private void refreshUntilCurrent() {
+        try {
+            while (true) {
+                this.refresh();
+                // the check and the end of the refresh are atomic, so a change reported afterwards starts a new refresh
+                synchronized (this) {
+                    if ( !this.stale ) { 
+                        this.refreshRunning = false;
+                        return; 
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) { this.refreshRunning = false; }
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the current statistics as stale and starts a background refresh (see {@link #refreshAsync() <code>refreshAsync()</code>}).
+     * The stale statistics are used until the refresh is complete.
+     * Statistics that have not been created yet need no refresh, they are created on first use.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            this.stale = true;
+            // a running background refresh creates the statistics again
+            if ( this.refreshRunning || this.snapshot == null ) { return; }
+        }
+        this.refreshAsync();
+    }
+
+    /**
+     * Marks the current statistics as stale and refreshes them in the background, as any change of the model may change the estimates.
+     * @param modelChangeEvent - The change of the model
+     */
+    @Override
+    public void modelChanged(ModelChangeEvent modelChangeEvent) {
+        this.invalidate();
+    }
+
+    /**
+     * Returns <code>true</code> if a change of the model was reported after the creation of the current statistics started.
+     */
+    public boolean isStale() {
+        return this.stale;
+    }
+
+    /**
+     * Refreshes the statistics periodically in the background, replacing a previously started periodic refresh.
+     * @param interval - The time between two refreshes
+     */
+    public synchronized void startPeriodicRefresh(Duration interval) {
+        if ( interval == null || interval.isNegative() || interval.isZero() ) { throw new IllegalArgumentException("refresh interval must be positive"); }
+        this.stopPeriodicRefresh();
+        long intervalMillis = interval.toMillis();
+        this.refreshTask = this.getRefreshExecutor().scheduleWithFixedDelay(this::refresh, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the executor for periodic and background refreshes, creates it first if necessary.
+     * Both kinds of refreshes share its single thread, so they never run at the same time.
+     */
+    private synchronized ScheduledExecutorService getRefreshExecutor() {
+        if ( this.refreshExecutor == null ) {
+            this.refreshExecutor = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+                Thread thread = new Thread(runnable, "vmax-triple-statistics-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.refreshExecutor;
+    }
+
+    /**
+     * Stops the periodic refresh. The current statistics stay available.
+     */
+    public synchronized void stopPeriodicRefresh() {
+        if ( this.refreshTask != null ) { this.refreshTask.cancel(false); }
+        this.refreshTask = null;
+    }
+
+    /**
+     * Stops the periodic refresh and the executor used for periodic and background refreshes.
+     * The current statistics stay available.
+     */
+    public synchronized void shutdown() {
+        this.stopPeriodicRefresh();
+        if ( this.refreshExecutor != null ) { this.refreshExecutor.shutdownNow(); }
+        this.refreshExecutor = null;
+        this.refreshRunning = false;
+    }
+
+    /**
+     * <p>
+     * Returns the estimated number of triples matching a triple pattern with the given bound and unbound nodes.
+     * </p>
+     * <p>
+     * For a bound predicate, the estimate is based on the statistics of this predicate.
+     * For an unbound predicate (<code>null</code>), the estimates of all predicates are summed up.
+     * </p>
+     * @param subjectBound - <code>true</code> if the subject of the triple pattern is bound
+     * @param predicate - The bound predicate of the triple pattern, <code>null</code> if the predicate is unbound
+     * @param objectBound - <code>true</code> if the object of the triple pattern is bound
+     */
+    public long estimateTripleCount(boolean subjectBound, BoundNode predicate, boolean objectBound) {
+        Snapshot currentSnapshot = this.getSnapshot();
+        if ( predicate != null ) {
+            PredicateStatistics predicateStatistics = currentSnapshot.statisticsByPredicate.get(predicate);
+            if ( predicateStatistics == null ) { return 0; }
+            return predicateStatistics.estimate(subjectBound, objectBound);
+        }
+        long estimate = 0;
+        for (PredicateStatistics predicateStatistics: currentSnapshot.statisticsByPredicate.values()) {
+            estimate += predicateStatistics.estimate(subjectBound, objectBound);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the number of predicates with at least one triple.
+     */
+    public int getPredicateCount() {
+        return this.getSnapshot().statisticsByPredicate.size();
+    }
+
+    /**
+     * Returns the time, at which the creation of the current statistics started.
+     */
+    public Instant getSnapshotTime() {
+        return this.getSnapshot().snapshotTime;
+    }
+
+    public int getSampleSize() {
+        return this.sampleSize;
+    }
+
+    /**
+     * Returns the current statistics, creates them first if they have not been created yet.
+     */
+    private Snapshot getSnapshot() {
+        Snapshot currentSnapshot = this.snapshot;
+        if ( currentSnapshot == null ) {
+            synchronized (this) {
+                if ( this.snapshot == null ) { this.refresh(); }
+                currentSnapshot = this.snapshot;
+            }
+        }
+        return currentSnapshot;
+    }
+
+    /**
+     * Immutable statistics of all predicates.
+     */
+    private static final class Snapshot {
+
+        private final Instant snapshotTime;
+        private final Map<BoundNode, PredicateStatistics> statisticsByPredicate;
+
+        private Snapshot(Instant snapshotTime, Map<BoundNode, PredicateStatistics> statisticsByPredicate) {
+            this.snapshotTime = snapshotTime;
+            this.statisticsByPredicate = statisticsByPredicate;
+        }
+
+        private static Snapshot build(TripleFinderHelper tripleFinderHelper, int sampleSize) {
+            Instant snapshotTime = Instant.now();
+            Map<BoundNode, PredicateStatistics> statisticsByPredicate = new HashMap<BoundNode, PredicateStatistics>();
+            // subjects of triple templates with the same subject class are streamed only once
+            Map<ApiClass, SubjectSample> subjectSamplesByClass = new HashMap<ApiClass, SubjectSample>();
+            for (BoundNode predicate: tripleFinderHelper.getAllPredicates()) {
+                PredicateStatistics predicateStatistics = new PredicateStatistics();
+                for (TripleTemplate tripleTemplate: tripleFinderHelper.getTripleTemplatesForPredicate(predicate)) {
+                    ApiClass subjectClass = tripleTemplate.getSubjectClass();
+                    SubjectSample subjectSample = ( subjectClass == null ) 
+                        ? SubjectSample.of(tripleTemplate, sampleSize)
+                        : subjectSamplesByClass.computeIfAbsent(subjectClass, (ApiClass apiClass) -> SubjectSample.of(tripleTemplate, sampleSize));
+                    predicateStatistics.add(tripleTemplate, subjectSample);
+                }
+                if ( predicateStatistics.triples > 0 ) { statisticsByPredicate.put(predicate, predicateStatistics); }
+            }
+            return new Snapshot(snapshotTime, Map.copyOf(statisticsByPredicate));
+        }
+
+    }
+
+    /**
+     * Number of subjects of a triple template and the prefix of these subjects, for which the objects are requested.
+     */
+    private static final class SubjectSample {
+
+        private final long subjectCount;
+        private final List<BoundNode> sampledSubjects;
+
+        private SubjectSample(long subjectCount, List<BoundNode> sampledSubjects) {
+            this.subjectCount = subjectCount;
+            this.sampledSubjects = sampledSubjects;
+        }
+
+        /**
+         * Streams the subjects of the triple template once, counts them and keeps the first <code>sampleSize</code> subjects.
+         */
+        private static SubjectSample of(TripleTemplate tripleTemplate, int sampleSize) {
+            long subjectCount = 0;
+            List<BoundNode> sampledSubjects = new ArrayList<BoundNode>(sampleSize);
+            Iterator<? extends BoundNode> subjectIterator = tripleTemplate.streamSubjects().iterator();
+            while (subjectIterator.hasNext()) {
+                BoundNode subject = subjectIterator.next();
+                if ( subjectCount < sampleSize ) { sampledSubjects.add(subject); }
+                subjectCount++;
+            }
+            return new SubjectSample(subjectCount, sampledSubjects);
+        }
+
+    }
+
+    /**
+     * Estimated number of triples, distinct subjects and distinct objects of a predicate.
+     */
+    private static final class PredicateStatistics {
+
+        private long triples = 0;
+        private long subjects = 0;
+        private long objects = 0;
+
+        /**
+         * Adds the estimated counts of a triple template using the predicate.
+         * The objects are requested in a single call for the sampled prefix of the subjects of the triple template.
+         */
+        private void add(TripleTemplate tripleTemplate, SubjectSample subjectSample) {
+            if ( subjectSample.subjectCount == 0 ) { return; }
+            // sample objects of the first subjects
+            long sampledTriples = 0;
+            Set<BoundNode> sampledObjects = new HashSet<BoundNode>();
+            for (List<? extends BoundNode> subjectObjects: tripleTemplate.getAllObjectsForSubjects(subjectSample.sampledSubjects)) {
+                if ( subjectObjects == null ) { continue; }
+                sampledTriples += subjectObjects.size();
+                sampledObjects.addAll(subjectObjects);
+            }
+            // extrapolate sample to all subjects
+            double scale = (double) subjectSample.subjectCount / subjectSample.sampledSubjects.size();
+            long estimatedTriples = Math.round(sampledTriples * scale);
+            this.triples += estimatedTriples;
+            this.subjects += subjectSample.subjectCount;
+            // distinct objects grow at most linearly with the number of subjects
+            this.objects += Math.min(estimatedTriples, Math.round(sampledObjects.size() * scale));
+        }
+
+        /**
+         * Returns the estimated number of triples for the given combination of bound subject and object.
+         */
+        private long estimate(boolean subjectBound, boolean objectBound) {
+            if ( subjectBound && objectBound ) { return 1; }
+            if ( subjectBound ) { return PredicateStatistics.divide(this.triples, this.subjects); }
+            if ( objectBound ) { return PredicateStatistics.divide(this.triples, this.objects); }
+            return this.triples;
+        }
+
+        /**
+         * Returns the rounded up quotient, at least <code>1</code>.
+         */
+        private static long divide(long dividend, long divisor) {
+            if ( divisor <= 0 ) { return Math.max(1, dividend); }
+            return Math.max(1, (dividend + divisor - 1) / divisor);
+        }
+
+    }
+
+}
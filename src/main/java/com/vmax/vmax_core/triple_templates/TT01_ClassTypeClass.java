@@ -1,7 +1,9 @@
 package com.vmax.vmax_core.triple_templates;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import com.vmax.vmax_core.api_helper.ApiHelper;
 import com.vmax.vmax_core.graph.BoundNode;
@@ -47,6 +49,22 @@ public class TT01_ClassTypeClass extends TripleTemplate {
         return this.rdfsClassAsList;
     }
 
+    @Override
+    public boolean containsSpec(BoundNode subject, BoundNode object) {
+        // the only possible object is rdfs:Class, which has already been checked by isApplicableForObject()
+        return true;
+    }
+
+    @Override
+    public Set<NodeType> getSubjectNodeTypes() {
+        return EnumSet.of(NodeType.API_CLASS);
+    }
+
+    @Override
+    public Set<NodeType> getObjectNodeTypes() {
+        return EnumSet.of(NodeType.RDFS);
+    }
+
     @Override
     public boolean isApplicableForObjectSpec(BoundNode object) {
         return object.equals(RdfsHelper.RDFS_CLASS);
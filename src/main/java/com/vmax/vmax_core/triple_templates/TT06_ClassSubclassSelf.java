@@ -1,7 +1,9 @@
 package com.vmax.vmax_core.triple_templates;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import com.vmax.vmax_core.api_helper.ApiHelper;
 import com.vmax.vmax_core.graph.BoundNode;
@@ -45,6 +47,22 @@ public class TT06_ClassSubclassSelf extends TripleTemplate {
         return Collections.singletonList(subject);
     }
 
+    @Override
+    public boolean containsSpec(BoundNode subject, BoundNode object) {
+        // each class is only a subclass of itself within this triple template
+        return subject.equals(object);
+    }
+
+    @Override
+    public Set<NodeType> getSubjectNodeTypes() {
+        return EnumSet.of(NodeType.API_CLASS);
+    }
+
+    @Override
+    public Set<NodeType> getObjectNodeTypes() {
+        return EnumSet.of(NodeType.API_CLASS);
+    }
+
     @Override
     public boolean isApplicableForObjectSpec(BoundNode object) {
         return object.getNodeType().equals(NodeType.API_CLASS);
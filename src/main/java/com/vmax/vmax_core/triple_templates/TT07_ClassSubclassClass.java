@@ -1,6 +1,8 @@
 package com.vmax.vmax_core.triple_templates;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import com.vmax.vmax_core.api_elements.ApiClass;
 import com.vmax.vmax_core.api_helper.ApiHelper;
@@ -45,6 +47,22 @@ public class TT07_ClassSubclassClass extends TripleTemplate {
         return ((ApiClass) subject).getIndirectSuperclasses();
     }
 
+    @Override
+    public boolean containsSpec(BoundNode subject, BoundNode object) {
+        // check the bit set of superclasses instead of the list, the class itself is not one of its superclasses
+        return !subject.equals(object) && ((ApiClass) subject).isSubtypeOf((ApiClass) object);
+    }
+
+    @Override
+    public Set<NodeType> getSubjectNodeTypes() {
+        return EnumSet.of(NodeType.API_CLASS);
+    }
+
+    @Override
+    public Set<NodeType> getObjectNodeTypes() {
+        return EnumSet.of(NodeType.API_CLASS);
+    }
+
     @Override
     public boolean isApplicableForObjectSpec(BoundNode object) {
         return object.getNodeType().equals(NodeType.API_CLASS);
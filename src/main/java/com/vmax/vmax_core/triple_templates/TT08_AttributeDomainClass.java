@@ -1,6 +1,8 @@
 package com.vmax.vmax_core.triple_templates;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import com.vmax.vmax_core.api_elements.ApiAttribute;
 import com.vmax.vmax_core.api_elements.ApiClass;
@@ -46,6 +48,16 @@ public class TT08_AttributeDomainClass extends TripleTemplate {
         return ((ApiAttribute) subject).getIndirectSourceClasses();
     }
 
+    @Override
+    public Set<NodeType> getSubjectNodeTypes() {
+        return EnumSet.of(NodeType.API_ATTRIBUTE);
+    }
+
+    @Override
+    public Set<NodeType> getObjectNodeTypes() {
+        return EnumSet.of(NodeType.API_CLASS);
+    }
+
     @Override
     public boolean isApplicableForObjectSpec(BoundNode object) {
         return object.getNodeType().equals(NodeType.API_CLASS);
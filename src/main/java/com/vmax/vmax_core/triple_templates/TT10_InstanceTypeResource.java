@@ -1,8 +1,12 @@
 package com.vmax.vmax_core.triple_templates;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import com.vmax.vmax_core.api_elements.ApiInstance;
 import com.vmax.vmax_core.api_helper.ApiHelper;
 import com.vmax.vmax_core.graph.BoundNode;
 import com.vmax.vmax_core.graph.NodeType;
@@ -35,6 +39,11 @@ public class TT10_InstanceTypeResource extends TripleTemplate {
         return this.apiHelper.getAllInstances();
     }
 
+    @Override
+    public Stream<ApiInstance> streamSubjects() {
+        return this.apiHelper.streamAllInstances();
+    }
+
     @Override
     public List<? extends BoundNode> getAllSubjectsForObjectSpec(BoundNode object) {
         return this.apiHelper.getAllInstances();
@@ -45,6 +54,22 @@ public class TT10_InstanceTypeResource extends TripleTemplate {
         return this.objects;
     }
 
+    @Override
+    public boolean containsSpec(BoundNode subject, BoundNode object) {
+        // the only possible object is rdfs:Resource, which has already been checked by isApplicableForObject()
+        return true;
+    }
+
+    @Override
+    public Set<NodeType> getSubjectNodeTypes() {
+        return EnumSet.of(NodeType.API_INSTANCE);
+    }
+
+    @Override
+    public Set<NodeType> getObjectNodeTypes() {
+        return EnumSet.of(NodeType.RDFS);
+    }
+
     @Override
     public boolean isApplicableForObjectSpec(BoundNode object) {
         return object.equals(RdfsHelper.RDFS_RESOURCE);
@@ -55,4 +80,10 @@ public class TT10_InstanceTypeResource extends TripleTemplate {
         return subject.getNodeType().equals(NodeType.API_INSTANCE);
     }
 
-}
\ No newline at end of file
+    @Override
+    public long countTriples() {
+        // each instance has exactly one triple with the object rdfs:Resource
+        return this.apiHelper.streamAllInstances().count();
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.vmax.vmax_core.triple_templates;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import com.vmax.vmax_core.api_elements.ApiClass;
 import com.vmax.vmax_core.api_elements.ApiInstance;
@@ -33,6 +36,11 @@ public class TT11_InstanceTypeClass extends TripleTemplate {
         return this.apiHelper.getAllInstances();
     }
 
+    @Override
+    public Stream<ApiInstance> streamSubjects() {
+        return this.apiHelper.streamAllInstances();
+    }
+
     @Override
     public List<? extends BoundNode> getAllSubjectsForObjectSpec(BoundNode object) {
         return ((ApiClass) object).getImplementingInstances();
@@ -43,6 +51,22 @@ public class TT11_InstanceTypeClass extends TripleTemplate {
         return ((ApiInstance) subject).getIndirectTypes();
     }
 
+    @Override
+    public boolean containsSpec(BoundNode subject, BoundNode object) {
+        // check the bit set of superclasses of the direct class instead of the list of types
+        return ((ApiInstance) subject).getDirectType().isSubtypeOf((ApiClass) object);
+    }
+
+    @Override
+    public Set<NodeType> getSubjectNodeTypes() {
+        return EnumSet.of(NodeType.API_INSTANCE);
+    }
+
+    @Override
+    public Set<NodeType> getObjectNodeTypes() {
+        return EnumSet.of(NodeType.API_CLASS);
+    }
+
     @Override
     public boolean isApplicableForObjectSpec(BoundNode object) {
         return object.getNodeType().equals(NodeType.API_CLASS);
@@ -52,5 +76,12 @@ public class TT11_InstanceTypeClass extends TripleTemplate {
     public boolean isApplicableForSubjectSpec(BoundNode subject) {
         return subject.getNodeType().equals(NodeType.API_INSTANCE);
     }
-    
-}
\ No newline at end of file
+
+    @Override
+    public long countTriples() {
+        // each instance has a triple for each of its indirect types
+        return this.apiHelper.streamAllInstances()
+            .mapToLong((ApiInstance apiInstance) -> apiInstance.getIndirectTypes().size()).sum();
+    }
+
+}
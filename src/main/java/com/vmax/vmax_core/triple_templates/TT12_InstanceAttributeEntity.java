@@ -1,7 +1,11 @@
 package com.vmax.vmax_core.triple_templates;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import com.vmax.vmax_core.api_elements.ApiAttribute;
 import com.vmax.vmax_core.api_elements.ApiClass;
@@ -50,21 +54,35 @@ public class TT12_InstanceAttributeEntity extends TripleTemplate {
         return this.attributeSourceClass.getImplementingInstances();
     }
 
+    @Override
+    public Stream<ApiInstance> streamSubjects() {
+        return this.attributeSourceClass.streamImplementingInstances();
+    }
+
+    @Override
+    public ApiClass getSubjectClass() {
+        return this.attributeSourceClass;
+    }
+
     @Override
     public List<? extends BoundNode> getAllSubjectsForObjectSpec(BoundNode object) {
-        // first, get all instances of the attributes source class as in method above (getAllSubjectsSpec())
-        List<ApiInstance> possibleSubjectInstances = this.attributeSourceClass.getImplementingInstances();
-        if ( possibleSubjectInstances == null || possibleSubjectInstances.isEmpty() ) { return null; }
-        // filter list for all instances returning the given object 
+        // if enabled, use the reverse index of the attribute
+        if ( this.apiAttribute.isReverseIndexEnabled() ) {
+            return this.apiAttribute.getSourceInstancesForTargetEntity(object);
+        }
+        // else, stream all instances of the attributes source class as in method above (getAllSubjectsSpec())
+        // and filter them for all instances returning the given object 
         // this is somehow like an "inverse property" in RDF, but we do not have this concept in our API
-        List<ApiInstance> subjectInstances = possibleSubjectInstances.stream().filter(
-            ( ApiInstance apiInstance ) -> {
-                List<? extends BoundNode> targetEntities = this.apiAttribute.getTargetEntitiesForSourceInstance(apiInstance);
-                if ( targetEntities == null || targetEntities.isEmpty() ) { return false; }
-                return targetEntities.contains(object);
+        // the target entities are requested in batches of instances
+        List<ApiInstance> subjectInstances = new ArrayList<ApiInstance>();
+        this.attributeSourceClass.forEachImplementingInstanceBatch(SUBJECT_BATCH_SIZE, (List<ApiInstance> instanceBatch) -> {
+            List<List<? extends BoundNode>> targetEntitiesList = this.apiAttribute.getTargetEntitiesForSourceInstances(instanceBatch);
+            for (int i = 0; i < instanceBatch.size(); i++) {
+                List<? extends BoundNode> targetEntities = targetEntitiesList.get(i);
+                if ( targetEntities != null && targetEntities.contains(object) ) { subjectInstances.add(instanceBatch.get(i)); }
             }
-        ).collect(Collectors.toList());
-        if ( subjectInstances == null || subjectInstances.isEmpty() ) { return null; }
+        });
+        if ( subjectInstances.isEmpty() ) { return null; }
         return subjectInstances;
     }
 
@@ -73,34 +91,72 @@ public class TT12_InstanceAttributeEntity extends TripleTemplate {
         return this.apiAttribute.getTargetEntitiesForSourceInstance((ApiInstance) subject); 
     }
 
+    @Override
+    public List<? extends List<? extends BoundNode>> getAllObjectsForSubjectsSpec(List<BoundNode> subjects) {
+        // request the target entities of all subjects in a single call to the attribute
+        List<ApiInstance> subjectInstances = new ArrayList<ApiInstance>(subjects.size());
+        for (BoundNode subject: subjects) { subjectInstances.add((ApiInstance) subject); }
+        return this.apiAttribute.getTargetEntitiesForSourceInstances(subjectInstances);
+    }
+
+    @Override
+    public boolean containsSpec(BoundNode subject, BoundNode object) {
+        // stop consuming the target entities as soon as the object is found
+        return this.apiAttribute.streamTargetEntitiesForSourceInstance((ApiInstance) subject).anyMatch(object::equals);
+    }
+
+    @Override
+    public long countTriples() {
+        // stream the instances of the source class instead of materializing them
+        // and request the target entities in batches of instances
+        long[] count = new long[] { 0 };
+        this.attributeSourceClass.forEachImplementingInstanceBatch(SUBJECT_BATCH_SIZE, (List<ApiInstance> instanceBatch) -> {
+            for (List<? extends BoundNode> targetEntities: this.apiAttribute.getTargetEntitiesForSourceInstances(instanceBatch)) {
+                if ( targetEntities == null || targetEntities.isEmpty() ) { continue; }
+                count[0] += ( targetEntities.size() == 1 ) ? 1 : new HashSet<BoundNode>(targetEntities).size();
+            }
+        });
+        return count[0];
+    }
+
+    @Override
+    public List<? extends ApiType> getSubjectDirectTypes() {
+        // an instance is a possible subject, if its direct class is the source class of the attribute or any of its subclasses
+        return this.indirectAttributeSourceClasses;
+    }
+
+    @Override
+    public List<? extends ApiType> getObjectDirectTypes() {
+        // an entity is a possible object, if its direct type is the target type of the attribute or any of its subclasses
+        return this.indirectAttributeTargetTypes;
+    }
+
+    @Override
+    public Set<NodeType> getSubjectNodeTypes() {
+        return EnumSet.of(NodeType.API_INSTANCE);
+    }
+
+    @Override
+    public Set<NodeType> getObjectNodeTypes() {
+        return EnumSet.of(NodeType.API_INSTANCE, NodeType.API_VARIABLE);
+    }
+
     @Override
     public boolean isApplicableForObjectSpec(BoundNode object) {
         if ( !(object.getNodeType().equals(NodeType.API_INSTANCE) || object.getNodeType().equals(NodeType.API_VARIABLE)) ) { return false; }
-        // get a list of all types of the object entity
-        List<? extends ApiType> objectEntityTypes = ((ApiEntity) object).getIndirectTypes();
-        // check if there is any intersection between this.indirectAttributeTargetTypes and objectEntityTypes
-        boolean intersection = false;
-        for (ApiType objectEntityType: objectEntityTypes) {
-            if (this.indirectAttributeTargetTypes.contains(objectEntityType)) {
-                intersection = true;
-                break;
-        }}
-        return intersection;
+        // the types of the object entity intersect this.indirectAttributeTargetTypes, 
+        // if and only if its direct type is the target type of the attribute or any of its subclasses
+        // so a single bit of the target type ordinals of the attribute is checked
+        return this.apiAttribute.isIndirectTargetType(((ApiEntity) object).getDirectType());
     }
 
     @Override
     public boolean isApplicableForSubjectSpec(BoundNode subject) {
         if ( !subject.getNodeType().equals(NodeType.API_INSTANCE) ) { return false; }
-        // get a list of all types (or classes) of the subject instance
-        List<ApiClass> subjectInstanceClasses= ((ApiInstance) subject).getIndirectTypes();
-        // check if there is any intersection between this.indirectAttributeSourceClasses and objectEntityTypes
-        boolean intersection = false;
-        for (ApiClass subjectInstanceClass: subjectInstanceClasses) {
-            if (this.indirectAttributeSourceClasses.contains(subjectInstanceClass)) {
-                intersection = true;
-                break;
-        }}
-        return intersection;
+        // the classes of the subject instance intersect this.indirectAttributeSourceClasses, 
+        // if and only if its direct class is the source class of the attribute or any of its subclasses
+        // so a single bit of the source class ordinals of the attribute is checked
+        return this.apiAttribute.isIndirectSourceClass(((ApiInstance) subject).getDirectType());
     }
 
 }
\ No newline at end of file
@@ -1,9 +1,18 @@
 package com.vmax.vmax_core.triple_templates;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.api_elements.ApiClass;
+import com.vmax.vmax_core.api_elements.ApiType;
 import com.vmax.vmax_core.api_helper.ApiHelper;
 import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.graph.NodeType;
+import com.vmax.vmax_core.metrics.OperationMetrics;
 
 /**
  * <p>
@@ -26,8 +35,13 @@ import com.vmax.vmax_core.graph.BoundNode;
  */
 public abstract class TripleTemplate {
 
+    /** Maximum number of subjects, whose objects are requested in a single batch when scanning many subjects */
+    public static final int SUBJECT_BATCH_SIZE = ApiAttribute.SOURCE_BATCH_SIZE;
+
     protected final ApiHelper apiHelper;
     protected final BoundNode predicate;
+    /** Latencies and numbers of results of all lookups of the triple template */
+    private final OperationMetrics metrics = new OperationMetrics();
 
     public TripleTemplate(ApiHelper apiHelper, BoundNode predicate) {
         this.apiHelper = apiHelper;
@@ -47,7 +61,28 @@ public abstract class TripleTemplate {
      * {@link #getAllSubjectsSpec() <code>getAllSubjectsSpec()</code>}.
      */
     public List<? extends BoundNode> getAllSubjects() {
-        return this.getAllSubjectsSpec();
+        long startTime = System.nanoTime();
+        return this.record(startTime, this.getAllSubjectsSpec());
+    }
+
+    /**
+     * Returns a lazy stream of all possible subjects of the triple template.
+     * The default implementation streams the list of {@link #getAllSubjects() <code>getAllSubjects()</code>}.
+     * Can be overridden by triple templates, whose subjects can be streamed from the API without creating a list first.
+     */
+    public Stream<? extends BoundNode> streamSubjects() {
+        List<? extends BoundNode> subjects = this.getAllSubjects();
+        if ( subjects == null ) { return Stream.empty(); }
+        return subjects.stream();
+    }
+
+    /**
+     * Returns the class, whose instances are exactly the possible subjects of the triple template,
+     * or <code>null</code> if the subjects are not the instances of a single class (default).
+     * Triple templates with the same subject class share their subjects, e.g. the triple templates of all attributes of a class.
+     */
+    public ApiClass getSubjectClass() {
+        return null;
     }
     
     /**
@@ -59,7 +94,8 @@ public abstract class TripleTemplate {
      */
     public List<? extends BoundNode> getAllSubjectsForObject(BoundNode object) {
         if ( !this.isApplicableForObject(object) ) { return null; }
-        return this.getAllSubjectsForObjectSpec(object);
+        long startTime = System.nanoTime();
+        return this.record(startTime, this.getAllSubjectsForObjectSpec(object));
     }
 
     /**
@@ -71,7 +107,105 @@ public abstract class TripleTemplate {
      */
     public List<? extends BoundNode> getAllObjectsForSubject(BoundNode subject) {
         if ( !this.isApplicableForSubject(subject) ) { return null; }
-        return this.getAllObjectsForSubjectSpec(subject);
+        long startTime = System.nanoTime();
+        return this.record(startTime, this.getAllObjectsForSubjectSpec(subject));
+    }
+
+    /**
+     * <p>
+     * Returns all possible objects of the triple template for each of the given subjects, in the same order as the subjects.
+     * Each element is <code>null</code> if the triple template is not applicable for the subject or the subject has no objects.
+     * </p>
+     * <p>
+     * Calls the triple template specific method 
+     * {@link #getAllObjectsForSubjectsSpec(List) <code>getAllObjectsForSubjectsSpec(List subjects)</code>} once 
+     * for all applicable subjects and records it as a single lookup.
+     * </p>
+     * @param subjects - The subjects to filter possible objects
+     */
+    public List<List<? extends BoundNode>> getAllObjectsForSubjects(List<? extends BoundNode> subjects) {
+        // collect applicable subjects
+        List<BoundNode> applicableSubjects = new ArrayList<BoundNode>(subjects.size());
+        for (BoundNode subject: subjects) {
+            if ( this.isApplicableForSubject(subject) ) { applicableSubjects.add(subject); }
+        }
+        List<List<? extends BoundNode>> objectsList = new ArrayList<List<? extends BoundNode>>(subjects.size());
+        if ( applicableSubjects.isEmpty() ) {
+            for (int i = 0; i < subjects.size(); i++) { objectsList.add(null); }
+            return objectsList;
+        }
+        // get objects of all applicable subjects at once
+        long startTime = System.nanoTime();
+        List<? extends List<? extends BoundNode>> applicableObjectsList = this.getAllObjectsForSubjectsSpec(applicableSubjects);
+        int resultNumber = 0;
+        for (List<? extends BoundNode> objects: applicableObjectsList) {
+            if ( objects != null ) { resultNumber += objects.size(); }
+        }
+        this.metrics.record(startTime, resultNumber);
+        // assign objects to the subjects, not applicable subjects get null
+        int applicableIndex = 0;
+        for (BoundNode subject: subjects) {
+            if ( applicableIndex < applicableSubjects.size() && applicableSubjects.get(applicableIndex) == subject ) {
+                objectsList.add(applicableObjectsList.get(applicableIndex++));
+            } else {
+                objectsList.add(null);
+            }
+        }
+        return objectsList;
+    }
+
+    /**
+     * Determines if the triple template defines the triple with the given subject and object.
+     * Checks if the triple template is applicable for the subject and object first, 
+     * then calls the triple template specific method
+     * {@link #containsSpec(BoundNode, BoundNode) <code>containsSpec(BoundNode subject, BoundNode object)</code>}.
+     * @param subject - The subject of the triple
+     * @param object - The object of the triple
+     * @return <code>true</code> if the triple template defines the triple, <code>false</code>  otherwise
+     */
+    public boolean contains(BoundNode subject, BoundNode object) {
+        if ( !this.isApplicableForSubjectAndObject(subject, object) ) { return false; }
+        long startTime = System.nanoTime();
+        boolean contained = this.containsSpec(subject, object);
+        this.metrics.record(startTime, contained ? 1 : 0);
+        return contained;
+    }
+
+    /**
+     * Returns the latencies and numbers of results of all lookups of the triple template.
+     * Lookups, for which the triple template is not applicable, are not recorded.
+     */
+    public OperationMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Records a lookup in the metrics of the triple template and returns its result.
+     */
+    private List<? extends BoundNode> record(long startTime, List<? extends BoundNode> result) {
+        this.metrics.record(startTime, ( result == null ) ? 0 : result.size());
+        return result;
+    }
+
+    /**
+     * Returns the number of triples defined by the triple template, without creating the triples.
+     * The objects of each distinct subject are counted.
+     * Can be overridden by triple templates, that can count their triples more efficiently.
+     */
+    public long countTriples() {
+        List<? extends BoundNode> subjects = this.getAllSubjects();
+        if ( subjects == null || subjects.isEmpty() ) { return 0; }
+        List<BoundNode> distinctSubjects = new ArrayList<BoundNode>(new HashSet<BoundNode>(subjects));
+        long count = 0;
+        // request objects in batches of subjects
+        for (int from = 0; from < distinctSubjects.size(); from += SUBJECT_BATCH_SIZE) {
+            List<BoundNode> subjectBatch = distinctSubjects.subList(from, Math.min(from + SUBJECT_BATCH_SIZE, distinctSubjects.size()));
+            for (List<? extends BoundNode> objects: this.getAllObjectsForSubjects(subjectBatch)) {
+                if ( objects == null || objects.isEmpty() ) { continue; }
+                count += ( objects.size() == 1 ) ? 1 : new HashSet<BoundNode>(objects).size();
+            }
+        }
+        return count;
     }
 
     /**
@@ -116,6 +250,63 @@ public abstract class TripleTemplate {
         return ( this.isApplicableForSubjectSpec(subject) && this.isApplicableForObjectSpec(object));
     };
 
+    /**
+     * Determines if the triple template defines the triple with the given subject and object,
+     * after it has been checked that the triple template is applicable for both.
+     * By default, checks if the object is contained in the objects for the subject.
+     * Can be overridden by triple templates, that can check the triple without requesting all objects.
+     * @param subject - The subject of the triple
+     * @param object - The object of the triple
+     */
+    public boolean containsSpec(BoundNode subject, BoundNode object) {
+        List<? extends BoundNode> objects = this.getAllObjectsForSubjectSpec(subject);
+        return objects != null && objects.contains(object);
+    }
+
+    /**
+     * <p>
+     * Returns all types, that subjects of the triple template can directly implement.
+     * </p>
+     * <p>
+     * Returns <code>null</code> if subjects are not restricted to entities of specific types,
+     * which is the default. Triple templates restricted to specific types should override this method,
+     * so that the {@link com.vmax.vmax_core.triple_finder.TripleFinderHelper <code>TripleFinderHelper</code>} 
+     * can index them by type instead of node type.
+     * </p>
+     */
+    public List<? extends ApiType> getSubjectDirectTypes() {
+        return null;
+    }
+
+    /**
+     * <p>
+     * Returns all types, that objects of the triple template can directly implement.
+     * </p>
+     * <p>
+     * Returns <code>null</code> if objects are not restricted to entities of specific types,
+     * which is the default. Triple templates restricted to specific types should override this method,
+     * so that the {@link com.vmax.vmax_core.triple_finder.TripleFinderHelper <code>TripleFinderHelper</code>} 
+     * can index them by type instead of node type.
+     * </p>
+     */
+    public List<? extends ApiType> getObjectDirectTypes() {
+        return null;
+    }
+
+    /**
+     * Abstract method to get all node types, that subjects of the triple template can have.
+     * Used to index triple templates by node type.
+     * Must be implemented by the implementing triple template subclass.
+     */
+    public abstract Set<NodeType> getSubjectNodeTypes();
+
+    /**
+     * Abstract method to get all node types, that objects of the triple template can have.
+     * Used to index triple templates by node type.
+     * Must be implemented by the implementing triple template subclass.
+     */
+    public abstract Set<NodeType> getObjectNodeTypes();
+
     /**
      * Abstract method to get all possible subjects of the triple template.
      * Must be implemented by the implementing triple template subclass.
@@ -135,6 +326,19 @@ public abstract class TripleTemplate {
      * @param subject - The subject to filter possible objects
      */
     public abstract List<? extends BoundNode> getAllObjectsForSubjectSpec(BoundNode subject);
+
+    /**
+     * Method to get all possible objects of the triple template for each of the given subjects, in the same order as the subjects.
+     * The subjects have already been checked to be applicable.
+     * The default implementation calls {@link #getAllObjectsForSubjectSpec(BoundNode) <code>getAllObjectsForSubjectSpec(BoundNode subject)</code>}
+     * for each subject, triple templates which can look up many subjects at once override it.
+     * @param subjects - The subjects to filter possible objects
+     */
+    public List<? extends List<? extends BoundNode>> getAllObjectsForSubjectsSpec(List<BoundNode> subjects) {
+        List<List<? extends BoundNode>> objectsList = new ArrayList<List<? extends BoundNode>>(subjects.size());
+        for (BoundNode subject: subjects) { objectsList.add(this.getAllObjectsForSubjectSpec(subject)); }
+        return objectsList;
+    }
     
     /**
      * Abstract method to determine if the triple template is applicable for a given object.
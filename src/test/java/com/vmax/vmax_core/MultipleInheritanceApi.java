@@ -0,0 +1,120 @@
+package com.vmax.vmax_core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.api_elements.ApiClass;
+import com.vmax.vmax_core.api_helper.ApiClassAndAttributeList;
+import com.vmax.vmax_core.api_helper.ApiHelper;
+
+/**
+ * <p>
+ * Test API with multiple inheritance, i.e. a class with several top classes.
+ * </p>
+ * <p>
+ * The classes are named, owned and part (subclass of named and owned).
+ * The instances of each class include the instances of its subclasses.
+ * The attribute owner links owned instances to a named instance.
+ * </p>
+ * <p>
+ * As the data types are shared by all APIs, only one helper can be created per JVM,
+ * so all tests use the same helper (see {@link #getApiHelper() <code>getApiHelper()</code>}).
+ * </p>
+ */
+public final class MultipleInheritanceApi {
+
+    public static final String CLASS_URI_PREFIX = "http://example.org/class/";
+    public static final String ATTRIBUTE_URI_PREFIX = "http://example.org/attribute/";
+    public static final String INSTANCE_URI_PREFIX = "http://example.org/instance/";
+
+    // objects of the tool: a part is both named and owned
+    public interface Named { }
+    public interface Owned {
+        Named getOwner();
+    }
+    public static final class Part implements Named, Owned {
+        private final Named owner;
+        public Part(Named owner) { this.owner = owner; }
+        @Override
+        public Named getOwner() { return this.owner; }
+    }
+    public static final class Label implements Named { }
+    public static final class Tool implements Owned {
+        private final Named owner;
+        public Tool(Named owner) { this.owner = owner; }
+        @Override
+        public Named getOwner() { return this.owner; }
+    }
+
+    /** All objects of the tool */
+    public static final List<Object> OBJECTS = MultipleInheritanceApi.createObjects();
+
+    private static ApiHelper apiHelper;
+
+    private MultipleInheritanceApi() { }
+
+    private static List<Object> createObjects() {
+        // the first part is owned by the label and owns the tool, the second part has no owner
+        Label label = new Label();
+        Part part = new Part(label);
+        return List.of(part, label, new Tool(part), new Part(null));
+    }
+
+    /**
+     * Returns the helper for all {@link #OBJECTS <code>OBJECTS</code>}, creates it on first use.
+     */
+    public static synchronized ApiHelper getApiHelper() {
+        if ( apiHelper == null ) { apiHelper = MultipleInheritanceApi.createApiHelper(OBJECTS); }
+        return apiHelper;
+    }
+
+    private static ApiHelper createApiHelper(List<Object> objects) {
+        ApiClassAndAttributeList apiClassAndAttributeList = new ApiClassAndAttributeList(CLASS_URI_PREFIX, ATTRIBUTE_URI_PREFIX, INSTANCE_URI_PREFIX) {
+            {
+                ApiClass named = MultipleInheritanceApi.createApiClass("Named", Named.class, List.of(), objects);
+                ApiClass owned = MultipleInheritanceApi.createApiClass("Owned", Owned.class, List.of(), objects);
+                ApiClass part = MultipleInheritanceApi.createApiClass("Part", Part.class, List.of(named, owned), objects);
+                this.classList = new ArrayList<ApiClass>(List.of(named, owned, part));
+                this.attributeList = new ArrayList<ApiAttribute>(List.of(MultipleInheritanceApi.createOwnerAttribute(owned, named)));
+            }
+        };
+        return new ApiHelper(INSTANCE_URI_PREFIX, apiClassAndAttributeList) {
+            @Override
+            protected Object findApiInstanceAsObjectByUri(String uri) {
+                // the uri of an instance ends with the index of its object
+                int index = Integer.parseInt(uri.substring(INSTANCE_URI_PREFIX.length()));
+                return ( index < objects.size() ) ? objects.get(index) : null;
+            }
+        };
+    }
+
+    private static ApiAttribute createOwnerAttribute(ApiClass owned, ApiClass named) {
+        return new ApiAttribute(owned, named, ATTRIBUTE_URI_PREFIX + "owner") {
+            @Override
+            public List<? extends Object> getTargetEntitiesForSourceInstanceSpec(Object sourceInstanceObject) {
+                Named owner = ((Owned) sourceInstanceObject).getOwner();
+                return ( owner == null ) ? null : List.of(owner);
+            }
+        };
+    }
+
+    private static ApiClass createApiClass(String name, Class<?> associatedClass, List<ApiClass> directSuperclasses, List<Object> objects) {
+        return new ApiClass(associatedClass, directSuperclasses, CLASS_URI_PREFIX + name, INSTANCE_URI_PREFIX) {
+            @Override
+            protected String determineInstanceUri(Object instanceAsObject) {
+                return INSTANCE_URI_PREFIX + objects.indexOf(instanceAsObject);
+            }
+            @Override
+            protected List<Object> getImplementingInstancesAsObjects() {
+                return objects.stream().filter(associatedClass::isInstance).collect(Collectors.toList());
+            }
+            @Override
+            protected boolean indirectInstancesIncluded() {
+                return true;
+            }
+        };
+    }
+
+}
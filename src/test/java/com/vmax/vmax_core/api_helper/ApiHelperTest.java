@@ -0,0 +1,39 @@
+package com.vmax.vmax_core.api_helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.vmax.vmax_core.MultipleInheritanceApi;
+import com.vmax.vmax_core.api_elements.ApiInstance;
+
+/**
+ * Tests of the {@link com.vmax.vmax_core.api_helper.ApiHelper <code>ApiHelper</code>} 
+ * for an API with multiple inheritance (see {@link com.vmax.vmax_core.MultipleInheritanceApi <code>MultipleInheritanceApi</code>}).
+ */
+public class ApiHelperTest {
+
+    @Test
+    public void allInstancesOfClassesWithSeveralTopClassesAreReturnedOnce() {
+        List<Object> objects = MultipleInheritanceApi.OBJECTS;
+        ApiHelper apiHelper = MultipleInheritanceApi.getApiHelper();
+        // each object is enumerated by all of its top classes, but returned only once
+        List<ApiInstance> allInstances = apiHelper.getAllInstances();
+        assertEquals(objects.size(), allInstances.size());
+        assertEquals(objects.size(), new HashSet<ApiInstance>(allInstances).size());
+        assertEquals(
+            new HashSet<Object>(objects), 
+            allInstances.stream().map((ApiInstance apiInstance) -> apiInstance.getEntityAsObject()).collect(Collectors.toSet()));
+        assertEquals(objects.size(), apiHelper.streamAllInstances().count());
+        // instances have the actual class of their object as direct type, not the enumerating top class
+        for (ApiInstance apiInstance: allInstances) {
+            if ( !(apiInstance.getEntityAsObject() instanceof MultipleInheritanceApi.Part) ) { continue; }
+            assertEquals(MultipleInheritanceApi.CLASS_URI_PREFIX + "Part", apiInstance.getDirectType().getUri());
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.vmax.vmax_core.triple_finder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.vmax.vmax_core.MultipleInheritanceApi;
+import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.api_elements.ApiInstance;
+import com.vmax.vmax_core.api_helper.ApiHelper;
+import com.vmax.vmax_core.graph.Node;
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.graph.UnboundNode;
+
+/**
+ * Tests of the {@link com.vmax.vmax_core.triple_finder.MaterializedTripleStore <code>MaterializedTripleStore</code>}
+ * for an API with multiple inheritance (see {@link com.vmax.vmax_core.MultipleInheritanceApi <code>MultipleInheritanceApi</code>}).
+ */
+public class MaterializedTripleStoreTest {
+
+    /**
+     * Compares the triples found in the materialized mode with the triples retrieved from the API
+     * for all eight shapes of triple patterns, using the nodes of every triple as bound nodes,
+     * so each index of the store (SPO, POS and OSP) is used with matching and non-matching bound nodes.
+     * Bound instances are resolved by their URI, as by the servers, so they have the actual class of their object as direct type.
+     */
+    @Test
+    public void materializedTriplesEqualTriplesOfTheApi() {
+        ApiHelper apiHelper = MultipleInheritanceApi.getApiHelper();
+        TripleFinder liveTripleFinder = new TripleFinder(apiHelper);
+        TripleFinder materializedTripleFinder = new TripleFinder(apiHelper);
+        materializedTripleFinder.materialize();
+        try {
+            List<Triple> allTriples = liveTripleFinder.find(new TriplePattern(new UnboundNode(), new UnboundNode(), new UnboundNode()));
+            // the attribute is materialized as well, so triple patterns with bound instances are compared
+            ApiAttribute owner = apiHelper.getAttributeList().get(0);
+            assertFalse(liveTripleFinder.find(new TriplePattern(new UnboundNode(), owner, new UnboundNode())).isEmpty());
+            // all shapes with the nodes of each triple, and with the object of another triple as a non-matching object
+            List<TriplePattern> triplePatterns = new ArrayList<TriplePattern>();
+            triplePatterns.add(new TriplePattern(new UnboundNode(), new UnboundNode(), new UnboundNode()));
+            Node otherObject = MaterializedTripleStoreTest.resolve(apiHelper, allTriples.get(0).getObject());
+            for (Triple triple: allTriples) {
+                Node subject = MaterializedTripleStoreTest.resolve(apiHelper, triple.getSubject());
+                Node predicate = triple.getPredicate();
+                Node object = MaterializedTripleStoreTest.resolve(apiHelper, triple.getObject());
+                // SPO
+                triplePatterns.add(new TriplePattern(subject, new UnboundNode(), new UnboundNode()));
+                triplePatterns.add(new TriplePattern(subject, predicate, new UnboundNode()));
+                triplePatterns.add(new TriplePattern(subject, predicate, object));
+                triplePatterns.add(new TriplePattern(subject, predicate, otherObject));
+                // POS
+                triplePatterns.add(new TriplePattern(new UnboundNode(), predicate, new UnboundNode()));
+                triplePatterns.add(new TriplePattern(new UnboundNode(), predicate, object));
+                // OSP
+                triplePatterns.add(new TriplePattern(new UnboundNode(), new UnboundNode(), object));
+                triplePatterns.add(new TriplePattern(subject, new UnboundNode(), object));
+                triplePatterns.add(new TriplePattern(subject, new UnboundNode(), otherObject));
+            }
+            for (TriplePattern triplePattern: triplePatterns) {
+                List<Triple> materializedTriples = materializedTripleFinder.find(triplePattern);
+                assertEquals(new HashSet<Triple>(liveTripleFinder.find(triplePattern)), new HashSet<Triple>(materializedTriples), triplePattern.toString());
+                // the store holds each triple once
+                assertEquals(new HashSet<Triple>(materializedTriples).size(), materializedTriples.size(), triplePattern.toString());
+            }
+        } finally {
+            materializedTripleFinder.dematerialize();
+        }
+    }
+
+    /**
+     * Returns the instance with the URI of the given node, if the node is an instance, else the node itself.
+     */
+    private static Node resolve(ApiHelper apiHelper, Node node) {
+        if ( !(node instanceof ApiInstance) ) { return node; }
+        return apiHelper.getNodeByUri(((ApiInstance) node).getUri());
+    }
+
+}
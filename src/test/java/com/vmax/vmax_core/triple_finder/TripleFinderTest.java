@@ -0,0 +1,31 @@
+package com.vmax.vmax_core.triple_finder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.vmax.vmax_core.MultipleInheritanceApi;
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.graph.UnboundNode;
+
+/**
+ * Tests of the {@link com.vmax.vmax_core.triple_finder.TripleFinder <code>TripleFinder</code>} 
+ * for an API with multiple inheritance (see {@link com.vmax.vmax_core.MultipleInheritanceApi <code>MultipleInheritanceApi</code>}).
+ */
+public class TripleFinderTest {
+
+    @Test
+    public void countEqualsNumberOfDistinctTriples() {
+        TripleFinder tripleFinder = new TripleFinder(MultipleInheritanceApi.getApiHelper());
+        List<Triple> allTriples = tripleFinder.find(new TriplePattern(new UnboundNode(), new UnboundNode(), new UnboundNode()));
+        assertEquals(new HashSet<Triple>(allTriples).size(), tripleFinder.count());
+        // the count of the materialized snapshot is the same
+        tripleFinder.materialize();
+        assertEquals(new HashSet<Triple>(allTriples).size(), tripleFinder.count());
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.vmax.vmax_core.triple_finder;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import org.junit.jupiter.api.Test;
+
+import com.vmax.vmax_core.MultipleInheritanceApi;
+import com.vmax.vmax_core.api_elements.ApiAttribute;
+import com.vmax.vmax_core.api_elements.ApiInstance;
+import com.vmax.vmax_core.api_helper.ApiHelper;
+import com.vmax.vmax_core.graph.BoundNode;
+import com.vmax.vmax_core.graph.Node;
+import com.vmax.vmax_core.graph.RdfsHelper;
+import com.vmax.vmax_core.graph.Triple;
+import com.vmax.vmax_core.graph.TriplePattern;
+import com.vmax.vmax_core.graph.UnboundNode;
+
+/**
+ * Tests of the {@link com.vmax.vmax_core.triple_finder.TriplePatternCache <code>TriplePatternCache</code>}
+ * for changes of the model reported to the API helper of an API with multiple inheritance
+ * (see {@link com.vmax.vmax_core.MultipleInheritanceApi <code>MultipleInheritanceApi</code>}).
+ */
+public class TriplePatternCacheTest {
+
+    private final ApiHelper apiHelper = MultipleInheritanceApi.getApiHelper();
+    // the first part is owned by the label and owns the tool
+    private final ApiInstance part = this.getInstance(0);
+    private final ApiInstance label = this.getInstance(1);
+    private final ApiInstance tool = this.getInstance(2);
+    private final ApiAttribute owner = this.apiHelper.getAttributeList().get(0);
+    private final BoundNode partClass = (BoundNode) this.apiHelper.getNodeByUri(MultipleInheritanceApi.CLASS_URI_PREFIX + "Part");
+
+    @Test
+    public void attributeValueChangeEvictsPatternsWithTheAttributeAndTheInstance() {
+        TriplePatternCache cache = new TriplePatternCache();
+        TriplePattern partOwner = this.cache(cache, this.part, this.owner, new UnboundNode());
+        TriplePattern anyOwner = this.cache(cache, new UnboundNode(), this.owner, new UnboundNode());
+        TriplePattern partAny = this.cache(cache, this.part, new UnboundNode(), new UnboundNode());
+        TriplePattern toolOwner = this.cache(cache, this.tool, this.owner, new UnboundNode());
+        TriplePattern partType = this.cache(cache, this.part, RdfsHelper.RDF_TYPE, new UnboundNode());
+        TriplePattern partClassType = this.cache(cache, this.partClass, RdfsHelper.RDF_TYPE, new UnboundNode());
+        this.apiHelper.addModelChangeListener(cache);
+        try {
+            this.apiHelper.notifyAttributeValueChanged(this.part.getEntityAsObject(), this.owner);
+        } finally {
+            this.apiHelper.removeModelChangeListener(cache);
+        }
+        // patterns with the attribute or an unbound predicate and the instance or an unbound subject are evicted
+        assertNull(cache.get(partOwner));
+        assertNull(cache.get(anyOwner));
+        assertNull(cache.get(partAny));
+        // patterns with another instance or another predicate are kept
+        assertNotNull(cache.get(toolOwner));
+        assertNotNull(cache.get(partType));
+        // schema patterns are kept
+        assertNotNull(cache.get(partClassType));
+    }
+
+    @Test
+    public void createdInstanceEvictsPatternsWithTheInstanceAsSubjectOrObject() {
+        this.assertInstanceChangeEvictsPatternsWithTheInstance((ApiInstance apiInstance) ->
+            this.apiHelper.notifyInstanceCreated(apiInstance.getEntityAsObject()));
+    }
+
+    @Test
+    public void deletedInstanceEvictsPatternsWithTheInstanceAsSubjectOrObject() {
+        this.assertInstanceChangeEvictsPatternsWithTheInstance((ApiInstance apiInstance) ->
+            this.apiHelper.notifyInstanceDeleted(apiInstance));
+    }
+
+    @Test
+    public void modelChangeEvictsAllPatternsButSchemaPatterns() {
+        TriplePatternCache cache = new TriplePatternCache();
+        TriplePattern anyAny = this.cache(cache, new UnboundNode(), new UnboundNode(), new UnboundNode());
+        TriplePattern toolOwner = this.cache(cache, this.tool, this.owner, new UnboundNode());
+        TriplePattern partClassType = this.cache(cache, this.partClass, RdfsHelper.RDF_TYPE, new UnboundNode());
+        TriplePattern subclasses = this.cache(cache, new UnboundNode(), RdfsHelper.RDFS_SUBCLASSOF, new UnboundNode());
+        long epoch = cache.getEpoch();
+        this.apiHelper.addModelChangeListener(cache);
+        try {
+            this.apiHelper.notifyModelChanged();
+        } finally {
+            this.apiHelper.removeModelChangeListener(cache);
+        }
+        assertNull(cache.get(anyAny));
+        assertNull(cache.get(toolOwner));
+        assertNotNull(cache.get(partClassType));
+        assertNotNull(cache.get(subclasses));
+        // results evaluated in the previous epoch are not cached anymore
+        cache.put(toolOwner, List.of(), epoch);
+        assertNull(cache.get(toolOwner));
+    }
+
+    @Test
+    public void resultsEvaluatedDuringAChangeAreNotCached() {
+        TriplePatternCache cache = new TriplePatternCache();
+        TriplePattern labelType = new TriplePattern(this.label, RdfsHelper.RDF_TYPE, new UnboundNode());
+        // remember the epoch and the number of changes before the evaluation, as the triple finder does
+        long evaluationEpoch = cache.getEpoch();
+        long evaluationChangeCount = cache.getChangeCount();
+        this.apiHelper.addModelChangeListener(cache);
+        try {
+            // a change not affecting the triple pattern is reported during the evaluation
+            this.apiHelper.notifyAttributeValueChanged(this.tool.getEntityAsObject(), this.owner);
+        } finally {
+            this.apiHelper.removeModelChangeListener(cache);
+        }
+        cache.put(labelType, List.of(), evaluationEpoch, evaluationChangeCount);
+        assertNull(cache.get(labelType));
+        // a result evaluated after the change is cached
+        cache.put(labelType, List.of(), cache.getEpoch(), cache.getChangeCount());
+        assertNotNull(cache.get(labelType));
+    }
+
+    /**
+     * Reports a change of the first part by the given function and checks the cached results,
+     * which are the same for created and deleted instances.
+     */
+    private void assertInstanceChangeEvictsPatternsWithTheInstance(ToLongFunction<ApiInstance> change) {
+        TriplePatternCache cache = new TriplePatternCache();
+        TriplePattern partAny = this.cache(cache, this.part, new UnboundNode(), new UnboundNode());
+        TriplePattern anyOwner = this.cache(cache, new UnboundNode(), this.owner, new UnboundNode());
+        TriplePattern toolOwnerPart = this.cache(cache, this.tool, this.owner, this.part);
+        TriplePattern anyAnyPart = this.cache(cache, new UnboundNode(), new UnboundNode(), this.part);
+        TriplePattern toolOwner = this.cache(cache, this.tool, this.owner, new UnboundNode());
+        TriplePattern labelType = this.cache(cache, this.label, RdfsHelper.RDF_TYPE, new UnboundNode());
+        TriplePattern partClassType = this.cache(cache, this.partClass, RdfsHelper.RDF_TYPE, new UnboundNode());
+        this.apiHelper.addModelChangeListener(cache);
+        try {
+            change.applyAsLong(this.part);
+        } finally {
+            this.apiHelper.removeModelChangeListener(cache);
+        }
+        // patterns with the instance or an unbound node as subject and patterns with the instance as object are evicted
+        assertNull(cache.get(partAny));
+        assertNull(cache.get(anyOwner));
+        assertNull(cache.get(toolOwnerPart));
+        assertNull(cache.get(anyAnyPart));
+        // patterns with other instances are kept
+        assertNotNull(cache.get(toolOwner));
+        assertNotNull(cache.get(labelType));
+        // schema patterns are kept
+        assertNotNull(cache.get(partClassType));
+    }
+
+    /**
+     * Caches an empty result for the given triple pattern and returns the triple pattern.
+     */
+    private TriplePattern cache(TriplePatternCache cache, Node subject, Node predicate, Node object) {
+        TriplePattern triplePattern = new TriplePattern(subject, predicate, object);
+        cache.put(triplePattern, List.<Triple>of(), cache.getEpoch());
+        assertNotNull(cache.get(triplePattern));
+        return triplePattern;
+    }
+
+    private ApiInstance getInstance(int index) {
+        return (ApiInstance) this.apiHelper.getNodeByUri(MultipleInheritanceApi.INSTANCE_URI_PREFIX + index);
+    }
+
+}